@@ -0,0 +1,77 @@
+#!/usr/bin/env bash
+# Measures startup time and first-request latency of the packaged application, as CSV on stdout.
+#
+# Each run starts a fresh JVM, records the time until GET /actuator/health answers UP, then the latency of the first
+# GET /vehicle. Modes:
+#   jar        the repackaged jar, as the default Docker image runs it
+#   cds-aot    the extracted jar with its AppCDS archive and AOT-processed context (needs mvn -Pfast-startup package)
+#   native     the native executable (needs mvn -Pnative native:compile)
+# Modes whose artifacts are missing are skipped.
+#
+# Usage: scripts/startup-benchmark.sh [runs] [mode...]
+#   runs defaults to 10 and modes to all of them; set PORT to change the port (default 18080)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+runs=${1:-10}
+shift || true
+modes=("$@")
+if [ ${#modes[@]} -eq 0 ]; then
+    modes=(jar cds-aot native)
+fi
+port=${PORT:-18080}
+base_url="http://localhost:${port}"
+
+jar=$(ls target/vehicle-service-*.jar 2>/dev/null | head -n 1 || true)
+extracted_jar=$(ls target/application/vehicle-service-*.jar 2>/dev/null | head -n 1 || true)
+native_image=target/vehicle-service
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+command_for() {
+    case $1 in
+        jar)
+            [ -n "$jar" ] && echo "java -jar $jar"
+            ;;
+        cds-aot)
+            [ -n "$extracted_jar" ] && [ -f target/application/application.jsa ] \
+                && echo "java -XX:SharedArchiveFile=target/application/application.jsa -Dspring.aot.enabled=true -jar $extracted_jar"
+            ;;
+        native)
+            [ -x "$native_image" ] && echo "$native_image"
+            ;;
+        *)
+            echo "Unknown mode $1" >&2
+            exit 1
+            ;;
+    esac
+}
+
+echo "mode,run,startup_ms,first_request_ms"
+for mode in "${modes[@]}"; do
+    command=$(command_for "$mode" || true)
+    if [ -z "$command" ]; then
+        echo "Skipping $mode: artifact not built" >&2
+        continue
+    fi
+    for run in $(seq 1 "$runs"); do
+        start=$(now_ms)
+        $command --server.port="$port" --logging.level.root=WARN > /dev/null 2>&1 &
+        pid=$!
+        until curl -sf "${base_url}/actuator/health" 2>/dev/null | grep -q '"UP"'; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$mode failed to start" >&2
+                exit 1
+            fi
+            sleep 0.01
+        done
+        startup=$(( $(now_ms) - start ))
+        first_request=$(curl -s -o /dev/null -w '%{time_total}' "${base_url}/vehicle")
+        echo "${mode},${run},${startup},$(awk -v t="$first_request" 'BEGIN { printf "%.1f", t * 1000 }')"
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+    done
+done
@@ -0,0 +1,61 @@
+package com.apollo.vehicle.benchmark;
+
+import com.apollo.vehicle.entity.Vehicle;
+
+import java.math.BigDecimal;
+
+/**
+ * Deterministic test data for the benchmarks. VINs carry a correct ISO 3779 check digit.
+ */
+final class BenchmarkVehicles {
+    private static final String[] MANUFACTURERS = {"Toyota", "Honda", "Ford", "Tesla", "BMW"};
+    private static final String[] CATEGORIES = {"SUV", "Sedan", "Truck", "Coupe"};
+    private static final String[] FUEL_TYPES = {"Gasoline", "Diesel", "Electric", "Hybrid"};
+    private static final String[] COLORS = {"Black", "White", "Silver", "Blue", "Red"};
+    private static final int[] WEIGHTS = {8, 7, 6, 5, 4, 3, 2, 10, 0, 9, 8, 7, 6, 5, 4, 3, 2};
+
+    private BenchmarkVehicles() {
+    }
+
+    /**
+     * @param wmi the three-character manufacturer prefix, used to keep generated ranges apart
+     * @param serial the serial number, 0 to 99,999,999
+     * @return a valid VIN
+     */
+    static String vin(String wmi, long serial) {
+        char[] vin = (wmi + "CM826" + "0" + String.format("%08d", serial)).toCharArray();
+        int sum = 0;
+        for (int i = 0; i < vin.length; i++) {
+            sum += transliterate(vin[i]) * WEIGHTS[i];
+        }
+        int check = sum % 11;
+        vin[8] = check == 10 ? 'X' : (char) ('0' + check);
+        return new String(vin);
+    }
+
+    static Vehicle vehicle(String vin, long n) {
+        return new Vehicle(vin, MANUFACTURERS[(int) (n % MANUFACTURERS.length)],
+                "Benchmark vehicle " + n + " with a description of typical length for a dealer listing",
+                100 + (int) (n % 400), "Model " + (n % 50), 2000 + (int) (n % 25),
+                BigDecimal.valueOf(15_000 + (n % 60_000), 0).setScale(2), FUEL_TYPES[(int) (n % FUEL_TYPES.length)],
+                COLORS[(int) (n % COLORS.length)], CATEGORIES[(int) (n % CATEGORIES.length)]);
+    }
+
+    private static int transliterate(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        return switch (c) {
+            case 'A', 'J' -> 1;
+            case 'B', 'K', 'S' -> 2;
+            case 'C', 'L', 'T' -> 3;
+            case 'D', 'M', 'U' -> 4;
+            case 'E', 'N', 'V' -> 5;
+            case 'F', 'W' -> 6;
+            case 'G', 'P', 'X' -> 7;
+            case 'H', 'Y' -> 8;
+            case 'R', 'Z' -> 9;
+            default -> throw new IllegalArgumentException("Invalid VIN character " + c);
+        };
+    }
+}
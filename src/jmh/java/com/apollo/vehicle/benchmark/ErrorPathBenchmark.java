@@ -0,0 +1,76 @@
+package com.apollo.vehicle.benchmark;
+
+import com.apollo.vehicle.exception.GlobalExceptionHandler;
+import com.apollo.vehicle.exception.VehicleNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answering a lookup of an unknown VIN, from the throw to the error response: the previous path (an
+ * IllegalArgumentException with a concatenated message and a stack trace, and a new HashMap body) against
+ * {@link VehicleNotFoundException} and its pre-built body. The exception is thrown under a configurable number of
+ * frames, since filling in the stack trace costs more the deeper the request handling stack is. Run with
+ * -prof gc to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorPathBenchmark {
+
+    // Roughly the depth of a Spring MVC request in a servlet container, and a shallow call
+    @Param({"120", "10"})
+    private int depth;
+
+    private String vin;
+
+    private GlobalExceptionHandler handler;
+
+    @Setup
+    public void setUp() {
+        vin = BenchmarkVehicles.vin("1HG", 42);
+        handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> illegalArgumentException() {
+        try {
+            throwAt(depth, () -> {
+                throw new IllegalArgumentException("Vehicle with VIN " + vin + " not found");
+            });
+            return null;
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> vehicleNotFoundException() {
+        try {
+            throwAt(depth, () -> {
+                throw new VehicleNotFoundException(vin);
+            });
+            return null;
+        } catch (VehicleNotFoundException e) {
+            return handler.handleVehicleNotFoundException(e);
+        }
+    }
+
+    private static void throwAt(int depth, Runnable thrower) {
+        if (depth == 0) {
+            thrower.run();
+            return;
+        }
+        throwAt(depth - 1, thrower);
+    }
+}
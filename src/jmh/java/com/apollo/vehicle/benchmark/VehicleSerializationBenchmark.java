@@ -0,0 +1,63 @@
+package com.apollo.vehicle.benchmark;
+
+import com.apollo.vehicle.entity.Vehicle;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of a single vehicle and of list payloads the size of GET /vehicle responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VehicleSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private Vehicle vehicle;
+
+    @Setup
+    public void setUp() {
+        // Same defaults Spring MVC applies to the mapper used by the controllers
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        vehicle = BenchmarkVehicles.vehicle(BenchmarkVehicles.vin("1HG", 0), 0);
+    }
+
+    /**
+     * The list payloads, in their own state so that only {@link #serializeVehicleList} runs once per list size
+     */
+    @State(Scope.Benchmark)
+    public static class VehicleList {
+        @Param({"100", "10000"})
+        public int listSize;
+
+        private List<Vehicle> vehicles;
+
+        @Setup
+        public void setUp() {
+            vehicles = new ArrayList<>(listSize);
+            for (int i = 0; i < listSize; i++) {
+                vehicles.add(BenchmarkVehicles.vehicle(BenchmarkVehicles.vin("1HG", i), i));
+            }
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeVehicle() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(vehicle);
+    }
+
+    @Benchmark
+    public byte[] serializeVehicleList(VehicleList list) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(list.vehicles);
+    }
+}
@@ -0,0 +1,85 @@
+package com.apollo.vehicle.benchmark;
+
+import com.apollo.vehicle.VehicleServiceApplication;
+import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.service.VehicleService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service-layer hot paths against the embedded H2 database, with and without the VIN cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VehicleServiceBenchmark {
+    private static final int SEEDED_VEHICLES = 10_000;
+
+    @Param({"none", "caffeine"})
+    public String cacheType;
+
+    private final AtomicLong nextSerial = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private VehicleService vehicleService;
+
+    private String[] seededVins;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(VehicleServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.cache.type=" + cacheType, "logging.level.root=WARN",
+                        "spring.h2.console.enabled=false")
+                .run();
+        vehicleService = context.getBean(VehicleService.class);
+
+        List<Vehicle> vehicles = new ArrayList<>(SEEDED_VEHICLES);
+        seededVins = new String[SEEDED_VEHICLES];
+        for (int i = 0; i < SEEDED_VEHICLES; i++) {
+            seededVins[i] = BenchmarkVehicles.vin("1HG", i);
+            vehicles.add(BenchmarkVehicles.vehicle(seededVins[i], i));
+        }
+        vehicleService.createVehicles(vehicles, false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Vehicle getVehicleByVin() {
+        return vehicleService.getVehicleByVin(randomSeededVin());
+    }
+
+    @Benchmark
+    public Vehicle createVehicle() {
+        long serial = nextSerial.getAndIncrement();
+        return vehicleService.createVehicle(BenchmarkVehicles.vehicle(BenchmarkVehicles.vin("2HG", serial), serial));
+    }
+
+    @Benchmark
+    public Vehicle updateVehicle() {
+        Vehicle updates = new Vehicle();
+        updates.setPurchasePrice(BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(10_000, 90_000), 0));
+        return vehicleService.updateVehicle(randomSeededVin(), updates);
+    }
+
+    private String randomSeededVin() {
+        return seededVins[ThreadLocalRandom.current().nextInt(SEEDED_VEHICLES)];
+    }
+}
@@ -0,0 +1,63 @@
+package com.apollo.vehicle.benchmark;
+
+import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.validation.VinValidator;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of request bodies, for both a valid vehicle and one that violates several constraints, and the
+ * VIN check-digit validation that runs on every VIN path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VehicleValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private Vehicle validVehicle;
+
+    private Vehicle invalidVehicle;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        validVehicle = BenchmarkVehicles.vehicle(BenchmarkVehicles.vin("1HG", 0), 0);
+        invalidVehicle = new Vehicle();
+        invalidVehicle.setVin("TOO-SHORT");
+        invalidVehicle.setManufacturerName("Toyota");
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Vehicle>> validateValidVehicle() {
+        return validator.validate(validVehicle);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Vehicle>> validateInvalidVehicle() {
+        return validator.validate(invalidVehicle);
+    }
+
+    @Benchmark
+    public boolean validateVin() {
+        return VinValidator.isValid(validVehicle.getVin());
+    }
+}
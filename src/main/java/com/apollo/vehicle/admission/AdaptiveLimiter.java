@@ -0,0 +1,226 @@
+package com.apollo.vehicle.admission;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit shared by every admitted request, adjusted to observed latency with a gradient: while requests
+ * complete about as fast as they usually do the limit grows by its square root, and once latency rises past
+ * {@value #TOLERANCE} times the long-term average it shrinks in proportion. Each {@link RequestPriority} keeps its
+ * own long-term latency, so a scan taking longer than a VIN lookup is not mistaken for overload.
+ * <p>
+ * Requests over the limit wait in a bounded queue per priority, and a freed slot always goes to the highest
+ * priority waiting. Writes and scans may also only use the part of the limit not reserved for reads, so cheap reads
+ * still get in while writes and scans are queued.
+ */
+public class AdaptiveLimiter {
+    private static final double TOLERANCE = 1.5;
+
+    // Weight of each new limit estimate
+    private static final double SMOOTHING = 0.2;
+
+    // Weight of each sample in the long-term latency, about a 600-sample exponential moving average
+    private static final double LONG_RTT_DECAY = 2.0 / 601;
+
+    /**
+     * Outcome of asking for admission
+     */
+    public enum Admission {
+        ADMITTED,
+        QUEUE_FULL,
+        TIMED_OUT
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int queueCapacity;
+
+    private final double reservedForReads;
+
+    private final Map<RequestPriority, ArrayDeque<Waiter>> queues = new EnumMap<>(RequestPriority.class);
+
+    private final double[] longRttNanos = new double[RequestPriority.values().length];
+
+    private volatile double limit;
+
+    private volatile int inFlight;
+
+    /**
+     * @param initialLimit the limit to start from
+     * @param minLimit the lowest the limit may shrink to
+     * @param maxLimit the highest the limit may grow to
+     * @param queueCapacity the maximum number of requests waiting per priority
+     * @param reservedForReads the fraction of the limit that writes and scans may not use
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, int queueCapacity, double reservedForReads) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (reservedForReads < 0 || reservedForReads >= 1) {
+            throw new IllegalArgumentException("The fraction reserved for reads must be in [0, 1)");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueCapacity = queueCapacity;
+        this.reservedForReads = reservedForReads;
+        for (RequestPriority priority : RequestPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Admits a request now, or waits up to maxWait for a slot
+     * @param priority the class of the request
+     * @param maxWait how long the request may wait in the queue
+     * @return whether the request was admitted; if so, {@link #release} must be called when it completes
+     */
+    public Admission acquire(RequestPriority priority, Duration maxWait) {
+        lock.lock();
+        try {
+            if (!hasWaitersAtOrAbove(priority) && inFlight < limitFor(priority)) {
+                inFlight++;
+                return Admission.ADMITTED;
+            }
+            ArrayDeque<Waiter> queue = queues.get(priority);
+            if (queue.size() >= queueCapacity) {
+                return Admission.QUEUE_FULL;
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            queue.add(waiter);
+            long remaining = maxWait.toNanos();
+            try {
+                while (!waiter.admitted && remaining > 0) {
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (waiter.admitted) {
+                if (!Thread.currentThread().isInterrupted()) {
+                    return Admission.ADMITTED;
+                }
+                // Admitted just as the thread was interrupted: hand the slot on
+                inFlight--;
+                admitWaiters();
+            } else {
+                queue.remove(waiter);
+            }
+            return Admission.TIMED_OUT;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the slot of a completed request and adjusts the limit to its latency
+     * @param priority the class of the request
+     * @param rttNanos how long the request took once admitted
+     * @param sample whether the latency is a fair sample; failed or asynchronous requests are not
+     */
+    public void release(RequestPriority priority, long rttNanos, boolean sample) {
+        lock.lock();
+        try {
+            if (sample && rttNanos > 0) {
+                adjust(priority, rttNanos);
+            }
+            inFlight--;
+            admitWaiters();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current concurrency limit
+     */
+    public double getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of admitted requests that have not completed yet
+     */
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return the number of requests waiting for a slot
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queues.values().stream().mapToInt(ArrayDeque::size).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(RequestPriority priority, long rttNanos) {
+        int i = priority.ordinal();
+        double longRtt = longRttNanos[i] == 0
+                ? rttNanos
+                : longRttNanos[i] + (rttNanos - longRttNanos[i]) * LONG_RTT_DECAY;
+        if (longRtt > 2 * rttNanos) {
+            // Latency has dropped well below its long-term average, e.g. after an overload: let the average catch up
+            longRtt *= 0.95;
+        }
+        longRttNanos[i] = longRtt;
+        if (inFlight < limit / 2) {
+            // Most of the limit is unused, so the latency says nothing about whether it is too high
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rttNanos));
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + estimate * SMOOTHING));
+    }
+
+    private void admitWaiters() {
+        for (RequestPriority priority : RequestPriority.values()) {
+            ArrayDeque<Waiter> queue = queues.get(priority);
+            while (!queue.isEmpty() && inFlight < limitFor(priority)) {
+                Waiter waiter = queue.poll();
+                waiter.admitted = true;
+                inFlight++;
+                waiter.condition.signal();
+            }
+        }
+    }
+
+    private double limitFor(RequestPriority priority) {
+        double current = Math.floor(limit);
+        return priority == RequestPriority.READ ? current : Math.max(1, Math.floor(current * (1 - reservedForReads)));
+    }
+
+    private boolean hasWaitersAtOrAbove(RequestPriority priority) {
+        for (RequestPriority other : RequestPriority.values()) {
+            if (!queues.get(other).isEmpty()) {
+                return true;
+            }
+            if (other == priority) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+
+        // Set under the lock when a slot is handed to this waiter
+        private boolean admitted;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.apollo.vehicle.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Admits vehicle API requests through an {@link AdaptiveLimiter} and sheds the rest with 503 Service Unavailable
+ * and a Retry-After header, before they take a request thread's worth of work or a connection. Publishes the
+ * limit, in-flight and queued requests as gauges, and rejections per priority and reason as
+ * vehicle.admission.rejected.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+    private static final String REJECTED_BODY = "{\"error\":\"Service is overloaded, retry later\"}";
+
+    private final AdaptiveLimiter limiter;
+
+    private final Map<RequestPriority, Duration> maxWaits;
+
+    private final String retryAfterSeconds;
+
+    private final Map<RequestPriority, Map<AdaptiveLimiter.Admission, Counter>> rejections =
+            new EnumMap<>(RequestPriority.class);
+
+    /**
+     * @param limiter the limiter shared by every admitted request
+     * @param maxWaits how long each priority may wait in the queue
+     * @param retryAfter the Retry-After sent with a rejection, rounded up to whole seconds
+     * @param meterRegistry the registry for the admission metrics
+     */
+    public AdmissionControlFilter(AdaptiveLimiter limiter, Map<RequestPriority, Duration> maxWaits,
+                                  Duration retryAfter, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.maxWaits = new EnumMap<>(maxWaits);
+        this.retryAfterSeconds = Long.toString(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+        for (RequestPriority priority : RequestPriority.values()) {
+            Map<AdaptiveLimiter.Admission, Counter> byReason = new EnumMap<>(AdaptiveLimiter.Admission.class);
+            for (AdaptiveLimiter.Admission reason : new AdaptiveLimiter.Admission[] {
+                    AdaptiveLimiter.Admission.QUEUE_FULL, AdaptiveLimiter.Admission.TIMED_OUT}) {
+                byReason.put(reason, Counter.builder("vehicle.admission.rejected")
+                        .description("Requests shed with 503 by admission control")
+                        .tag("priority", priority.name().toLowerCase())
+                        .tag("reason", reason.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+            rejections.put(priority, byReason);
+        }
+        Gauge.builder("vehicle.admission.limit", limiter, AdaptiveLimiter::getLimit)
+                .description("Current adaptive concurrency limit").register(meterRegistry);
+        Gauge.builder("vehicle.admission.in.flight", limiter, AdaptiveLimiter::getInFlight)
+                .description("Admitted requests that have not completed").register(meterRegistry);
+        Gauge.builder("vehicle.admission.queued", limiter, AdaptiveLimiter::getQueued)
+                .description("Requests waiting for admission").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestPriority priority = RequestPriority.of(request);
+        if (priority == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AdaptiveLimiter.Admission admission = limiter.acquire(priority, maxWaits.get(priority));
+        if (admission != AdaptiveLimiter.Admission.ADMITTED) {
+            rejections.get(priority).get(admission).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(REJECTED_BODY);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean sample = false;
+        try {
+            chain.doFilter(request, response);
+            // Server errors often fail fast and would read as spare capacity
+            sample = !request.isAsyncStarted() && response.getStatus() < 500;
+        } finally {
+            limiter.release(priority, System.nanoTime() - start, sample);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.apollo.vehicle.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Admission classes of the vehicle API, from the first to be admitted to the last
+ */
+public enum RequestPriority {
+    /**
+     * Single-vehicle lookups and in-memory statistics
+     */
+    READ,
+    /**
+     * Creates, updates, deletes, sales, batches and import control
+     */
+    WRITE,
+    /**
+     * Reads that go through many rows: the whole inventory, pages, search, multi-VIN lookups and sold vehicles
+     */
+    SCAN;
+
+    /**
+     * Classifies a request by method and path
+     * @param request the request
+     * @return the admission class, or null for long-lived streams (stream, change feed, export), which hold a
+     * connection for minutes and are left out of admission control
+     */
+    public static RequestPriority of(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.length() > 1 && path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        String method = request.getMethod();
+        if (method.equals("POST") && path.equals("/vehicle/lookup")) {
+            return SCAN;
+        }
+        if (method.equals("POST") || method.equals("PUT") || method.equals("PATCH") || method.equals("DELETE")) {
+            return WRITE;
+        }
+        if (path.equals("/vehicle/stream") || path.equals("/vehicle/changes") || path.startsWith("/vehicle/export")) {
+            return null;
+        }
+        if (path.equals("/vehicle") || path.equals("/vehicle/search") || path.startsWith("/vehicle/getSoldVehicles")) {
+            return SCAN;
+        }
+        return READ;
+    }
+}
@@ -0,0 +1,49 @@
+package com.apollo.vehicle.config;
+
+import com.apollo.vehicle.admission.AdaptiveLimiter;
+import com.apollo.vehicle.admission.AdmissionControlFilter;
+import com.apollo.vehicle.admission.RequestPriority;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Adaptive admission control in front of the vehicle API, on unless vehicle.admission.enabled is false. Cheap reads
+ * wait up to vehicle.admission.read-max-wait; writes and scans, which are shed first, wait up to
+ * vehicle.admission.max-wait.
+ */
+@Configuration
+@ConditionalOnProperty(name = "vehicle.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    @Bean
+    public AdaptiveLimiter adaptiveLimiter(@Value("${vehicle.admission.initial-limit:20}") int initialLimit,
+                                           @Value("${vehicle.admission.min-limit:4}") int minLimit,
+                                           @Value("${vehicle.admission.max-limit:200}") int maxLimit,
+                                           @Value("${vehicle.admission.queue-size:100}") int queueSize,
+                                           @Value("${vehicle.admission.reserved-for-reads:0.2}") double reserved) {
+        return new AdaptiveLimiter(initialLimit, minLimit, maxLimit, queueSize, reserved);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(
+            AdaptiveLimiter adaptiveLimiter, MeterRegistry meterRegistry,
+            @Value("${vehicle.admission.read-max-wait:1s}") Duration readMaxWait,
+            @Value("${vehicle.admission.max-wait:250ms}") Duration maxWait,
+            @Value("${vehicle.admission.retry-after:1s}") Duration retryAfter) {
+        Map<RequestPriority, Duration> maxWaits = Map.of(
+                RequestPriority.READ, readMaxWait,
+                RequestPriority.WRITE, maxWait,
+                RequestPriority.SCAN, maxWait);
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(adaptiveLimiter, maxWaits, retryAfter, meterRegistry));
+        registration.addUrlPatterns("/vehicle", "/vehicle/*");
+        return registration;
+    }
+}
@@ -0,0 +1,17 @@
+package com.apollo.vehicle.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Enables the VIN read-through cache. Size and stats recording are set with spring.cache.caffeine.spec, the TTL with
+ * vehicle.cache.expire-after-write, which the serialized response cache shares.
+ * The caching advice runs outside the transaction advice so evictions happen after commit and cache hits
+ * never open a transaction.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+    public static final String VEHICLES_CACHE = "vehicles";
+}
@@ -0,0 +1,48 @@
+package com.apollo.vehicle.config;
+
+import com.apollo.vehicle.metrics.QueryCountInterceptor;
+import com.apollo.vehicle.metrics.QueryCountingStatementInspector;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Latency and query instrumentation on top of what Actuator records on its own (HTTP server requests, Spring Data
+ * repository invocations, Hibernate statistics, Hikari pool and cache gauges): timers for @Timed service methods
+ * and a per-request count of SQL statements.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public QueryCountingStatementInspector queryCountingStatementInspector() {
+        return new QueryCountingStatementInspector();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(QueryCountingStatementInspector inspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    @Bean
+    public WebMvcConfigurer queryCountInterceptorConfigurer(QueryCountingStatementInspector inspector,
+                                                           MeterRegistry meterRegistry) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new QueryCountInterceptor(inspector, meterRegistry))
+                        .addPathPatterns("/vehicle/**");
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+package com.apollo.vehicle.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read path that may be served by a read replica when replica routing is enabled. Only read-only
+ * transactions inside the method are routed, and only when neither the client nor, for the VINs or shared result
+ * it names, anyone else has written within the read-your-writes window. Write paths that read first (to check a
+ * VIN or a version) must not carry it, so they never act on a lagging copy.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ReadFromReplica {
+
+    /**
+     * @return the name of the parameter holding the VIN, or the collection of VINs, the read is about; a read of a
+     * VIN written within the window uses the primary, so the VIN cache never keeps a lagging copy
+     */
+    String vins() default "";
+
+    /**
+     * @return whether the result is cached for every client until the next write, so any write within the window
+     * keeps it on the primary
+     */
+    boolean shared() default false;
+}
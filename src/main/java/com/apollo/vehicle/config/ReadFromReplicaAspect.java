@@ -0,0 +1,45 @@
+package com.apollo.vehicle.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Runs methods annotated with {@link ReadFromReplica} as replica reads
+ */
+@Aspect
+public class ReadFromReplicaAspect {
+
+    @Around("@annotation(readFromReplica)")
+    public Object readFromReplica(ProceedingJoinPoint joinPoint, ReadFromReplica readFromReplica) throws Throwable {
+        ReadRouting.ReplicaRead previous = ReadRouting.allowReplica(vins(joinPoint, readFromReplica.vins()),
+                readFromReplica.shared());
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadRouting.restore(previous);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<String> vins(ProceedingJoinPoint joinPoint, String parameter) {
+        if (parameter.isEmpty()) {
+            return List.of();
+        }
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(parameter)) {
+                Object value = joinPoint.getArgs()[i];
+                if (value instanceof String vin) {
+                    return List.of(vin);
+                }
+                return value instanceof Collection<?> vins ? (Collection<String>) vins : List.of();
+            }
+        }
+        throw new IllegalStateException(joinPoint.getSignature() + " has no parameter named " + parameter);
+    }
+}
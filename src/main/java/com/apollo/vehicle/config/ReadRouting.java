@@ -0,0 +1,93 @@
+package com.apollo.vehicle.config;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread state deciding whether a new connection may come from a read replica
+ */
+public final class ReadRouting {
+    private static final ThreadLocal<ReplicaRead> REPLICA_READ = new ThreadLocal<>();
+
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Runs a read that may be served by a replica
+     * @param read the read to run
+     * @return the result of the read
+     */
+    public static <T> T readFromReplica(Supplier<T> read) {
+        ReplicaRead previous = allowReplica(List.of(), false);
+        try {
+            return read.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Lets the current thread read from a replica until {@link #restore} is called
+     * @param vins the VINs the read is about, kept on the primary while any of them was written recently
+     * @param shared whether the result is cached for every client, kept on the primary after any recent write
+     * @return the previous state, to pass to {@link #restore}
+     */
+    static ReplicaRead allowReplica(Collection<String> vins, boolean shared) {
+        ReplicaRead previous = REPLICA_READ.get();
+        REPLICA_READ.set(new ReplicaRead(vins, shared));
+        return previous;
+    }
+
+    static void restore(ReplicaRead previous) {
+        if (previous == null) {
+            REPLICA_READ.remove();
+        } else {
+            REPLICA_READ.set(previous);
+        }
+    }
+
+    /**
+     * Keeps every read of the current thread on the primary until {@link #unpin} is called, for a client that has
+     * just written
+     * @return the previous state, to pass to {@link #unpin}
+     */
+    static Boolean pinToPrimary() {
+        Boolean previous = PRIMARY_PINNED.get();
+        PRIMARY_PINNED.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void unpin(Boolean previous) {
+        if (previous == null) {
+            PRIMARY_PINNED.remove();
+        } else {
+            PRIMARY_PINNED.set(previous);
+        }
+    }
+
+    /**
+     * @return the replica read the current thread is inside, or null if it is not in one, is pinned to the primary
+     * or its transaction is not read-only
+     */
+    static ReplicaRead eligibleRead() {
+        ReplicaRead read = REPLICA_READ.get();
+        if (read == null || PRIMARY_PINNED.get() != null
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return null;
+        }
+        return read;
+    }
+
+    /**
+     * What a replica read is about, for the read-your-writes checks
+     * @param vins the VINs read, empty if the read is not about particular vehicles
+     * @param shared whether the result is shared by every client until the next write
+     */
+    record ReplicaRead(Collection<String> vins, boolean shared) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.apollo.vehicle.config;
+
+import com.apollo.vehicle.service.InventoryVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections from the primary, or round-robin from the read replicas for read-only transactions inside
+ * a {@link ReadFromReplica} read. Reads stay on the primary for the read-your-writes window, which must be longer
+ * than the replication lag, only where a recent write could be missed: for a client that has just written (see
+ * {@link ReadYourWritesFilter}), for reads of a VIN written within the window, and for results shared by every
+ * client after any write within it, so neither a client nor the response and VIN caches read a replica that has not
+ * caught up. Everything else keeps using the replicas while the inventory is being written. A replica that cannot
+ * hand out a connection is skipped for that read, which falls back to the primary.
+ * <p>
+ * The decision is made when the connection is requested, so it must sit behind a LazyConnectionDataSourceProxy:
+ * transaction managers ask for the connection before the read-only flag of the transaction is set.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+    private final DataSource primary;
+
+    private final List<DataSource> replicas;
+
+    private final InventoryVersion inventoryVersion;
+
+    private final Duration readYourWritesWindow;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    // VINs written within the window, recorded after each commit
+    private final Cache<String, Boolean> recentlyWritten;
+
+    // System.nanoTime() of the last write that did not say which VINs it changed
+    private volatile long unknownWriteAtNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+
+    private final Counter primaryConnections;
+
+    private final Counter replicaConnections;
+
+    private final Counter replicaFailures;
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, InventoryVersion inventoryVersion,
+                                      Duration readYourWritesWindow, MeterRegistry meterRegistry) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.inventoryVersion = inventoryVersion;
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.recentlyWritten = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).build();
+        inventoryVersion.addListener(this::recordWrite);
+        this.primaryConnections = connections("primary", meterRegistry);
+        this.replicaConnections = connections("replica", meterRegistry);
+        this.replicaFailures = Counter.builder("vehicle.datasource.replica.failures")
+                .description("Replica connection attempts that failed and fell back to the primary")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (routeToReplica()) {
+            try {
+                Connection connection = nextReplica().getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replicaFailures.increment();
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (routeToReplica()) {
+            try {
+                Connection connection = nextReplica().getConnection(username, password);
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replicaFailures.increment();
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection(username, password);
+    }
+
+    private boolean routeToReplica() {
+        ReadRouting.ReplicaRead read = ReadRouting.eligibleRead();
+        if (read == null) {
+            return false;
+        }
+        if (System.nanoTime() - unknownWriteAtNanos < readYourWritesWindow.toNanos()) {
+            return false;
+        }
+        if (read.shared() && inventoryVersion.changedWithin(readYourWritesWindow)) {
+            return false;
+        }
+        for (String vin : read.vins()) {
+            if (recentlyWritten.getIfPresent(vin) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void recordWrite(Collection<String> vins) {
+        if (vins == null) {
+            unknownWriteAtNanos = System.nanoTime();
+            return;
+        }
+        for (String vin : vins) {
+            recentlyWritten.put(vin, Boolean.TRUE);
+        }
+    }
+
+    private DataSource nextReplica() {
+        return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+    }
+
+    private static Counter connections(String route, MeterRegistry meterRegistry) {
+        return Counter.builder("vehicle.datasource.connections").tag("route", route)
+                .description("Connections handed out per route").register(meterRegistry);
+    }
+}
@@ -0,0 +1,80 @@
+package com.apollo.vehicle.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Keeps each client's reads on the primary for the read-your-writes window after its own writes. A write request
+ * gets a cookie holding the time it was made, which expires with the window; requests that send it back within the
+ * window are pinned to the primary. Other clients keep reading from the replicas.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    public static final String COOKIE_NAME = "vehicle-last-write";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final Duration window;
+
+    private final Clock clock;
+
+    public ReadYourWritesFilter(Duration window) {
+        this(window, Clock.systemUTC());
+    }
+
+    ReadYourWritesFilter(Duration window, Clock clock) {
+        this.window = window;
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            // Set before the response is committed; a write that fails only costs the client a short primary stay
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE_NAME, Long.toString(clock.millis()))
+                    .path("/").maxAge(Duration.ofSeconds((window.toMillis() + 999) / 1000)).httpOnly(true)
+                    .sameSite("Lax").build().toString());
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!wroteRecently(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Boolean previous = ReadRouting.pinToPrimary();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.unpin(previous);
+        }
+    }
+
+    private boolean wroteRecently(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    long age = clock.millis() - Long.parseLong(cookie.getValue());
+                    return age >= 0 && age < window.toMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,107 @@
+package com.apollo.vehicle.config;
+
+import com.apollo.vehicle.service.InventoryVersion;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replica routing. Enabling vehicle.datasource.replicas.enabled replaces the single auto-configured pool with
+ * a Hikari pool for the primary (spring.datasource.*) and one per URL in vehicle.datasource.replicas.urls, behind a
+ * {@link ReadWriteRoutingDataSource}. Every pool takes its settings from spring.datasource.hikari.*, replicas then
+ * from vehicle.datasource.replicas.hikari.*, and reports hikaricp_* metrics under its pool name (primary,
+ * replica-1, ...). A {@link ReadYourWritesFilter} keeps clients that have just written on the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "vehicle.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig implements DisposableBean {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 InventoryVersion inventoryVersion, MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+        List<String> urls = binder.bind("vehicle.datasource.replicas.urls", Bindable.listOf(String.class))
+                .orElseThrow(() -> new IllegalStateException("vehicle.datasource.replicas.urls must list the replicas"));
+        String username = binder.bind("vehicle.datasource.replicas.username", String.class)
+                .orElse(properties.determineUsername());
+        String password = binder.bind("vehicle.datasource.replicas.password", String.class)
+                .orElse(properties.determinePassword());
+        Duration window = binder.bind("vehicle.datasource.read-your-writes-window", Duration.class)
+                .orElse(Duration.ofSeconds(2));
+
+        HikariDataSource primary = pool("primary", properties.determineUrl(), properties.determineUsername(),
+                properties.determinePassword(), properties.determineDriverClassName(), binder, meterRegistry);
+        List<DataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = pool("replica-" + (i + 1), urls.get(i), username, password,
+                    properties.determineDriverClassName(), binder, meterRegistry);
+            binder.bind("vehicle.datasource.replicas.hikari", Bindable.ofInstance(replica));
+            replicas.add(admit(replica, binder));
+        }
+        // Defers taking a connection until the first statement, once the transaction's read-only flag is known
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(admit(primary, binder), replicas,
+                inventoryVersion, window, meterRegistry));
+    }
+
+    @Bean
+    public ReadFromReplicaAspect readFromReplicaAspect() {
+        return new ReadFromReplicaAspect();
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${vehicle.datasource.read-your-writes-window:2s}") Duration window) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(window));
+        registration.addUrlPatterns("/vehicle", "/vehicle/*");
+        return registration;
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource pool(String name, String url, String username, String password, String driverClassName,
+                                  Binder binder, MeterRegistry meterRegistry) {
+        HikariDataSource pool = new HikariDataSource();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        pool.setDriverClassName(driverClassName);
+        pool.setMetricRegistry(meterRegistry);
+        pools.add(pool);
+        return pool;
+    }
+
+    /**
+     * Applies the same connection admission as {@link VirtualThreadConfig}, whose post-processor only sees pools
+     * that are beans
+     */
+    private static DataSource admit(HikariDataSource pool, Binder binder) {
+        if (!binder.bind("spring.threads.virtual.enabled", Boolean.class).orElse(false)) {
+            return pool;
+        }
+        Duration maxWait = binder.bind("vehicle.datasource.admission.max-wait", Duration.class)
+                .orElse(Duration.ofSeconds(2));
+        return new BoundedDataSource(pool, pool.getMaximumPoolSize(), maxWait);
+    }
+}
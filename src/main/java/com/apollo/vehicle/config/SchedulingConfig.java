@@ -0,0 +1,12 @@
+package com.apollo.vehicle.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the periodic maintenance jobs, such as the inventory aggregates rebuild
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
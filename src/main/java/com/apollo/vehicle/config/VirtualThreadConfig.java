@@ -0,0 +1,35 @@
+package com.apollo.vehicle.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Virtual-thread execution mode. Enabling spring.threads.virtual.enabled runs Tomcat request handling, MVC async
+ * (e.g. GET /vehicle/stream) and the application task executor on virtual threads; this configuration pairs it with
+ * a bounded connection-acquisition policy in front of each Hikari pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+        Duration maxWait = environment.getProperty("vehicle.datasource.admission.max-wait", Duration.class,
+                Duration.ofSeconds(2));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    return new BoundedDataSource(hikari, hikari.getMaximumPoolSize(), maxWait);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.apollo.vehicle.controller;
+
+/**
+ * Negotiation of the response content coding from the Accept-Encoding request header
+ */
+final class ContentCoding {
+
+    private ContentCoding() {
+    }
+
+    /**
+     * Checks whether an Accept-Encoding header allows a gzip-compressed response
+     * @param acceptEncoding the Accept-Encoding header value, may be null
+     * @return true if gzip is listed and not refused with q=0
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,117 @@
+package com.apollo.vehicle.controller;
+
+import com.apollo.vehicle.export.ExportFormat;
+import com.apollo.vehicle.export.ExportTable;
+import com.apollo.vehicle.service.ExportService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@RestController
+@RequestMapping("/vehicle/export")
+public class ExportController {
+    private static final String VIN_RANGE_UNIT = "vin";
+
+    private static final String VIN_RANGE_PREFIX = VIN_RANGE_UNIT + "=";
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    /**
+     * Export the whole inventory in VIN order
+     * @param format csv or binary
+     * @param after resume after this VIN, exclusive
+     * @param range alternatively, a "vin=&lt;vin&gt;-" range to resume from this VIN, inclusive
+     * @param acceptEncoding the Accept-Encoding header; a CSV export is gzip-compressed only if it allows gzip
+     * @return a ResponseEntity streaming the export with a 200 OK status, or 206 Partial Content for a range
+     */
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> exportVehicles(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String after,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return export(ExportTable.VEHICLES, "vehicles", format, after, range, acceptEncoding);
+    }
+
+    /**
+     * Export all sold vehicles in VIN order
+     * @param format csv or binary
+     * @param after resume after this VIN, exclusive
+     * @param range alternatively, a "vin=&lt;vin&gt;-" range to resume from this VIN, inclusive
+     * @param acceptEncoding the Accept-Encoding header; a CSV export is gzip-compressed only if it allows gzip
+     * @return a ResponseEntity streaming the export with a 200 OK status, or 206 Partial Content for a range
+     */
+    @GetMapping("/sold")
+    public ResponseEntity<StreamingResponseBody> exportSoldVehicles(
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String after,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return export(ExportTable.SOLD_VEHICLES, "sold-vehicles", format, after, range, acceptEncoding);
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(ExportTable table, String fileName, String format,
+                                                         String after, String range, String acceptEncoding) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        String rangeStart = parseRange(range);
+        if (after != null && rangeStart != null) {
+            throw new IllegalArgumentException("Specify either after or a Range header, not both");
+        }
+        String fromVin = rangeStart != null ? rangeStart : after;
+        boolean inclusive = rangeStart != null;
+        boolean gzip = exportFormat == ExportFormat.CSV && ContentCoding.acceptsGzip(acceptEncoding);
+
+        StreamingResponseBody body = out -> exportService.export(table, exportFormat, fromVin, inclusive, gzip, out);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, VIN_RANGE_UNIT);
+        if (exportFormat == ExportFormat.CSV) {
+            headers.setContentType(new MediaType("text", "csv", StandardCharsets.UTF_8));
+            headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+            if (gzip) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            headers.setContentDisposition(ContentDisposition.attachment().filename(fileName + ".csv").build());
+        } else {
+            headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            headers.setContentDisposition(ContentDisposition.attachment().filename(fileName + ".bin").build());
+        }
+        if (rangeStart == null) {
+            return ResponseEntity.ok().headers(headers).body(body);
+        }
+        // The range is open-ended, so the response runs from the requested VIN to the last one
+        headers.set(HttpHeaders.CONTENT_RANGE, VIN_RANGE_UNIT + " " + rangeStart + "-");
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers).body(body);
+    }
+
+    /**
+     * Parses a "vin=&lt;vin&gt;-" Range header. Ranges in other units are ignored, as HTTP allows.
+     * @param range the Range header, or null
+     * @return the VIN to start from, or null if there is no VIN range
+     * @throws IllegalArgumentException if the VIN range is malformed
+     */
+    private static String parseRange(String range) {
+        if (range == null || !range.startsWith(VIN_RANGE_PREFIX)) {
+            return null;
+        }
+        String spec = range.substring(VIN_RANGE_PREFIX.length()).trim();
+        if (!spec.endsWith("-") || spec.length() < 2 || spec.indexOf(',') >= 0) {
+            throw new IllegalArgumentException("Range must be of the form vin=<vin>-");
+        }
+        return spec.substring(0, spec.length() - 1);
+    }
+}
@@ -0,0 +1,66 @@
+package com.apollo.vehicle.controller;
+
+import com.apollo.vehicle.dto.ImportRequest;
+import com.apollo.vehicle.dto.ImportStatus;
+import com.apollo.vehicle.service.ImportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/vehicle/import")
+public class ImportController {
+
+    private final ImportService importService;
+
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    /**
+     * Start importing a CSV or NDJSON feed file from the import directory
+     * @param request the file to import and whether to resume from its last checkpoint
+     * @return a ResponseEntity containing the status of the import with a 202 ACCEPTED status
+     */
+    @PostMapping
+    public ResponseEntity<ImportStatus> startImport(@RequestBody ImportRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(importService.startImport(request));
+    }
+
+    /**
+     * Retrieve the progress of every import since startup
+     * @return a ResponseEntity containing the import statuses with a 200 OK status
+     */
+    @GetMapping
+    public ResponseEntity<List<ImportStatus>> getImports() {
+        return ResponseEntity.ok(importService.getImports());
+    }
+
+    /**
+     * Retrieve the progress and throughput of an import
+     * @param id the id of the import
+     * @return a ResponseEntity containing the import status with a 200 OK status
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportStatus> getImport(@PathVariable String id) {
+        return ResponseEntity.ok(importService.getImport(id));
+    }
+
+    /**
+     * Stop an import after its current batch; it can be resumed later
+     * @param id the id of the import
+     * @return a ResponseEntity containing the import status with a 200 OK status
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ImportStatus> cancelImport(@PathVariable String id) {
+        return ResponseEntity.ok(importService.cancelImport(id));
+    }
+}
@@ -0,0 +1,212 @@
+package com.apollo.vehicle.controller;
+
+import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.service.InventoryVersion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized JSON of GET /vehicle and GET /vehicle/{vin}, so repeated reads skip both the query and Jackson, and
+ * conditional reads are answered with 304 Not Modified from memory. The whole-inventory response is kept until the
+ * {@link InventoryVersion} moves on; a single vehicle is kept until a write to that VIN evicts it, so writes to other
+ * vehicles leave it cached. Like the VIN cache it is local to this instance, so both also expire after
+ * vehicle.cache.expire-after-write, the TTL of the VIN cache, to pick up writes made through other instances.
+ * <p>
+ * The whole-inventory response carries a strong ETag made of an id of this process, the inventory version and a
+ * checksum of the body, and is also kept gzip-compressed once a client asks for it. A single vehicle's ETag is its
+ * optimistic lock version followed by a checksum of the body, so a vehicle deleted and created again at the same
+ * version still gets a new tag, and the version in it still works with If-Match.
+ */
+@Component
+public class ResponseCache {
+    private final ObjectMapper objectMapper;
+
+    private final InventoryVersion inventoryVersion;
+
+    private final int gzipMinBytes;
+
+    private final long expireAfterWriteNanos;
+
+    // Keeps an earlier run, or another instance, from ever producing the same list ETag for different content
+    private final String instanceId = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+
+    private final Cache<String, CachedResponse> vehicles;
+
+    private volatile CachedResponse allVehicles;
+
+    public ResponseCache(ObjectMapper objectMapper, InventoryVersion inventoryVersion,
+                         @Value("${vehicle.response-cache.max-vehicles:10000}") long maxVehicles,
+                         @Value("${vehicle.response-cache.gzip-min-bytes:1024}") int gzipMinBytes,
+                         @Value("${vehicle.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.objectMapper = objectMapper;
+        this.inventoryVersion = inventoryVersion;
+        this.gzipMinBytes = gzipMinBytes;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.vehicles = Caffeine.newBuilder().maximumSize(maxVehicles).expireAfterWrite(expireAfterWrite).build();
+        inventoryVersion.addListener(this::evict);
+    }
+
+    /**
+     * @param loader reads every vehicle if the cached response is out of date
+     * @return the response for the whole inventory at the current inventory version
+     */
+    public CachedResponse getAllVehicles(Supplier<List<Vehicle>> loader) {
+        // Read the version first: a write committing during the load leaves the response already out of date
+        long version = inventoryVersion.current();
+        CachedResponse cached = allVehicles;
+        if (cached != null && cached.version == version
+                && System.nanoTime() - cached.createdAtNanos < expireAfterWriteNanos) {
+            return cached;
+        }
+        byte[] json = serialize(loader.get());
+        String etag = "\"" + instanceId + "-" + version + "-" + checksum(json) + "\"";
+        CachedResponse fresh = new CachedResponse(version, etag, json, true);
+        allVehicles = fresh;
+        return fresh;
+    }
+
+    /**
+     * @param vin the VIN of the vehicle
+     * @param loader reads the vehicle if the cached response is out of date
+     * @return the response for the vehicle as of the last write to it
+     */
+    public CachedResponse getVehicle(String vin, Function<String, Vehicle> loader) {
+        CachedResponse cached = vehicles.getIfPresent(vin);
+        if (cached != null) {
+            return cached;
+        }
+        long version = inventoryVersion.current();
+        Vehicle vehicle = loader.apply(vin);
+        byte[] json = serialize(vehicle);
+        String etag = vehicle.getVersion() != null ? "\"" + vehicle.getVersion() + "-" + checksum(json) + "\"" : null;
+        CachedResponse fresh = new CachedResponse(version, etag, json, false);
+        // A write committing during the load may have been evicted before this put, so only cache if none did
+        if (inventoryVersion.current() == version) {
+            vehicles.put(vin, fresh);
+        }
+        return fresh;
+    }
+
+    private void evict(Collection<String> vins) {
+        if (vins == null) {
+            vehicles.invalidateAll();
+        } else {
+            vehicles.invalidateAll(vins);
+        }
+    }
+
+    private static String checksum(byte[] json) {
+        CRC32C crc = new CRC32C();
+        crc.update(json);
+        return Long.toString(crc.getValue(), 36);
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * One serialized response, with its gzip-compressed form built on first use
+     */
+    public final class CachedResponse {
+        private final long version;
+
+        private final String etag;
+
+        private final byte[] json;
+
+        private final boolean compressible;
+
+        private final long createdAtNanos = System.nanoTime();
+
+        private volatile byte[] gzip;
+
+        private CachedResponse(long version, String etag, byte[] json, boolean compressible) {
+            this.version = version;
+            this.etag = etag;
+            this.json = json;
+            this.compressible = compressible && json.length >= gzipMinBytes;
+        }
+
+        /**
+         * @return the strong ETag of the uncompressed response, or null if it has none
+         */
+        public String etag() {
+            return etag;
+        }
+
+        /**
+         * @return the strong ETag of the gzip-compressed response, which differs from the uncompressed one
+         */
+        public String gzipEtag() {
+            return etag == null ? null : etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+
+        public byte[] json() {
+            return json;
+        }
+
+        /**
+         * @return whether the response is large enough, and meant, to be sent compressed
+         */
+        public boolean isCompressible() {
+            return compressible;
+        }
+
+        public byte[] gzip() {
+            byte[] compressed = gzip;
+            if (compressed == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+                try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+                    zip.write(json);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                compressed = out.toByteArray();
+                gzip = compressed;
+            }
+            return compressed;
+        }
+
+        /**
+         * Weak comparison against an If-None-Match header, as HTTP requires for GET
+         * @param ifNoneMatch the If-None-Match header, may be null
+         * @return true if the client already has this response in either encoding
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null || etag == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
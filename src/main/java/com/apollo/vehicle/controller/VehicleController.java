@@ -1,14 +1,41 @@
 package com.apollo.vehicle.controller;
 
+import com.apollo.vehicle.dto.AggregateDimension;
+import com.apollo.vehicle.dto.BatchResult;
+import com.apollo.vehicle.dto.BulkDeleteRequest;
+import com.apollo.vehicle.dto.BulkDeleteResult;
+import com.apollo.vehicle.dto.CacheStatistics;
+import com.apollo.vehicle.dto.CursorPage;
+import com.apollo.vehicle.dto.GroupAggregate;
+import com.apollo.vehicle.dto.PatchResult;
+import com.apollo.vehicle.dto.SaleRequest;
+import com.apollo.vehicle.dto.SnapshotStatistics;
+import com.apollo.vehicle.dto.VehicleField;
+import com.apollo.vehicle.dto.VehicleLookupRequest;
+import com.apollo.vehicle.dto.VehicleLookupResult;
+import com.apollo.vehicle.dto.VehiclePatch;
+import com.apollo.vehicle.dto.VehicleSearchCriteria;
 import com.apollo.vehicle.entity.SoldVehicle;
 import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.exception.PreconditionFailedException;
 import com.apollo.vehicle.service.VehicleService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
 
 @RestController
@@ -16,44 +43,207 @@ import java.util.List;
 public class VehicleController {
     private final VehicleService vehicleService;
 
-    public VehicleController(VehicleService vehicleService) {
+    private final ObjectMapper objectMapper;
+
+    private final ResponseCache responseCache;
+
+    public VehicleController(VehicleService vehicleService, ObjectMapper objectMapper, ResponseCache responseCache) {
         this.vehicleService = vehicleService;
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
     }
 
     /**
-     * Retrieve all vehicles
-     * @return a ResponseEntity containing the list of all vehicles with a 200 OK status
+     * Retrieve all vehicles, gzip-compressed if the client accepts it and the list is large enough
+     * @param fields the comma-separated attributes to return, or omitted for whole vehicles
+     * @param ifNoneMatch the ETag of the list the client already has, if any
+     * @param acceptEncoding the encodings the client accepts
+     * @return a ResponseEntity containing the list of all vehicles with a 200 OK status, or 304 Not Modified
      */
     @GetMapping
-    public ResponseEntity<List<Vehicle>> getAllVehicles() {
-        List<Vehicle> vehicles = vehicleService.getAllVehicles();
-        return ResponseEntity.ok(vehicles);
+    public ResponseEntity<?> getAllVehicles(
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (fields != null) {
+            return ResponseEntity.ok(vehicleService.getAllVehicles(VehicleField.parse(fields)));
+        }
+        ResponseCache.CachedResponse response = responseCache.getAllVehicles(vehicleService::getAllVehicles);
+        boolean gzip = response.isCompressible() && ContentCoding.acceptsGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(gzip ? response.gzipEtag() : response.etag());
+        headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+        if (response.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return ResponseEntity.ok().headers(headers).body(response.gzip());
+        }
+        return ResponseEntity.ok().headers(headers).body(response.json());
     }
 
     /**
-     * Retrieve all vehicles
-     * @return a ResponseEntity containing the list of all vehicles with a 200 OK status
+     * Retrieve one page of vehicles ordered by VIN
+     * @param limit the maximum number of vehicles to return
+     * @param cursor the nextCursor value from the previous page, omitted for the first page
+     * @param fields the comma-separated attributes to return, or omitted for whole vehicles
+     * @return a ResponseEntity containing the page of vehicles and the next cursor with a 200 OK status
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<CursorPage<?>> getVehiclePage(@RequestParam int limit,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(vehicleService.getVehiclePage(cursor, limit, VehicleField.parse(fields)));
+        }
+        return ResponseEntity.ok(vehicleService.getVehiclePage(cursor, limit));
+    }
+
+    /**
+     * Search vehicles by manufacturer, model year range, category, fuel type, color and purchase price range
+     * @param criteria the filters to apply; any filter that is omitted is not applied
+     * @param pageable the page, size and sort parameters (sortable by vin, manufacturerName, modelYear, purchasePrice,
+     *                 horsePower and category)
+     * @param fields the comma-separated attributes to return, or omitted for whole vehicles
+     * @return a ResponseEntity containing the page of matching vehicles with a 200 OK status
+     */
+    @GetMapping("/search")
+    public ResponseEntity<PagedModel<?>> searchVehicles(VehicleSearchCriteria criteria,
+                                                        @PageableDefault(size = 50, sort = "vin") Pageable pageable,
+                                                        @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return ResponseEntity.ok(new PagedModel<>(
+                    vehicleService.searchVehicles(criteria, pageable, VehicleField.parse(fields))));
+        }
+        return ResponseEntity.ok(new PagedModel<>(vehicleService.searchVehicles(criteria, pageable)));
+    }
+
+    /**
+     * Stream all vehicles as newline-delimited JSON, writing each row as it is read from the database
+     * @return a ResponseEntity streaming one JSON vehicle per line with a 200 OK status
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllVehicles() {
+        StreamingResponseBody body = out -> vehicleService.streamAllVehicles(vehicle -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(vehicle));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Subscribe to committed inventory changes as server-sent events named created, updated, deleted and sold, each
+     * carrying the sequence number, VIN and commit time. A reset event means events were missed and the inventory
+     * should be read again.
+     * @param lastEventId the id of the last event received, sent by EventSource clients when they reconnect
+     * @return an SseEmitter streaming the changes after that event, or only new changes if it is omitted; a reset
+     * event first if the id was not issued by this instance since it started
+     */
+    @GetMapping("/changes")
+    public SseEmitter subscribeToChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return vehicleService.subscribeToChanges(lastEventId);
+    }
+
+    /**
+     * Retrieve all sold vehicles
+     * @return a ResponseEntity containing the list of all sold vehicles with a 200 OK status
      */
     @GetMapping("/getSoldVehicles")
     public ResponseEntity<List<SoldVehicle>> getAllSoldVehicles() {
         List<SoldVehicle> vehicles = vehicleService.getAllSoldVehicles();
         return ResponseEntity.ok(vehicles);
     }
+
+    /**
+     * Retrieve the VINs that are recorded as sold but are still in the inventory, one page at a time
+     * @param limit the maximum number of VINs to return
+     * @param cursor the nextCursor value from the previous page, omitted for the first page
+     * @return a ResponseEntity containing the page of VINs and the next cursor with a 200 OK status
+     */
+    @GetMapping("/getSoldVehicles/inInventory")
+    public ResponseEntity<CursorPage<String>> getSoldVinsStillInInventory(@RequestParam(defaultValue = "100") int limit,
+                                                                          @RequestParam(required = false) String cursor) {
+        return ResponseEntity.ok(vehicleService.getSoldVinsStillInInventory(cursor, limit));
+    }
+
+    /**
+     * Retrieve the hit, miss and eviction counters of the VIN lookup cache
+     * @return a ResponseEntity containing the cache statistics with a 200 OK status
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatistics> getCacheStats() {
+        return ResponseEntity.ok(vehicleService.getCacheStats());
+    }
+
+    /**
+     * Retrieve the number of vehicles in the in-memory inventory snapshot and the heap they are estimated to use
+     * @return a ResponseEntity containing the snapshot statistics with a 200 OK status
+     */
+    @GetMapping("/snapshot/stats")
+    public ResponseEntity<SnapshotStatistics> getSnapshotStats() {
+        return ResponseEntity.ok(vehicleService.getSnapshotStats());
+    }
+
+    /**
+     * Retrieve the count and purchase price / horse power statistics of the inventory, grouped by manufacturer,
+     * category, fuel type and model year
+     * @return a ResponseEntity containing the aggregates of each dimension with a 200 OK status
+     */
+    @GetMapping("/aggregates")
+    public ResponseEntity<Map<String, List<GroupAggregate>>> getAllAggregates() {
+        return ResponseEntity.ok(vehicleService.getAllAggregates());
+    }
+
     /**
-     * Since the Controller maps to the service class, I would want to define the actual business logic that finds
-     * the duplicates between them. I would define this in the sold vehicle repository.
-     * Return: a response entity with the JSON formatted soldVehicles List that I would get from the service and repository layers
+     * Retrieve the count and purchase price / horse power statistics of the inventory grouped by one attribute
+     * @param dimension manufacturerName, category, fuelType or modelYear
+     * @return a ResponseEntity containing the aggregate of each group with a 200 OK status
      */
+    @GetMapping("/aggregates/{dimension}")
+    public ResponseEntity<List<GroupAggregate>> getAggregates(@PathVariable String dimension) {
+        return ResponseEntity.ok(vehicleService.getAggregates(AggregateDimension.fromAttribute(dimension)));
+    }
 
     /**
      * Retrieve a specific vehicle by VIN
      * @param vin the VIN of the vehicle to retrieve
-     * @return a ResponseEntity containing the retrieved vehicle with a 200 OK status
+     * @param fields the comma-separated attributes to return, or omitted for the whole vehicle
+     * @param ifNoneMatch the ETag of the version the client already has, if any
+     * @return a ResponseEntity containing the retrieved vehicle with a 200 OK status, or 304 Not Modified
      */
     @GetMapping("/{vin}")
-    public ResponseEntity<Vehicle> getVehicle(@PathVariable String vin) {
-        Vehicle vehicle = vehicleService.getVehicleByVin(vin);
-        return ResponseEntity.ok(vehicle);
+    public ResponseEntity<?> getVehicle(@PathVariable String vin,
+                                        @RequestParam(required = false) String fields,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (fields != null) {
+            return ResponseEntity.ok(vehicleService.getVehicleByVin(vin, VehicleField.parse(fields)));
+        }
+        ResponseCache.CachedResponse response = responseCache.getVehicle(vin, vehicleService::getVehicleByVin);
+        HttpHeaders headers = new HttpHeaders();
+        if (response.etag() != null) {
+            headers.setETag(response.etag());
+        }
+        if (response.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return ResponseEntity.ok().headers(headers).body(response.json());
+    }
+
+    /**
+     * Retrieve many vehicles by VIN in one request
+     * @param request the VINs to look up, at most 5000
+     * @return a ResponseEntity containing the vehicles found and the VINs that were not, with a 200 OK status
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<VehicleLookupResult> lookupVehicles(@RequestBody VehicleLookupRequest request) {
+        return ResponseEntity.ok(vehicleService.lookupVehicles(request.vins()));
     }
 
     /**
@@ -64,19 +254,65 @@ public class VehicleController {
     @PostMapping
     public ResponseEntity<?> createVehicle(@Valid @RequestBody Vehicle vehicle) {
         Vehicle createdVehicle = vehicleService.createVehicle(vehicle);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdVehicle); //Required 201 Created response
+        return ResponseEntity.status(HttpStatus.CREATED) //Required 201 Created response
+                .headers(versionHeaders(createdVehicle))
+                .body(createdVehicle);
+    }
+
+    /**
+     * Create many vehicles in one request, e.g. from a dealer feed
+     * @param vehicles the vehicles to create
+     * @param upsert whether vehicles with an existing VIN should be overwritten instead of rejected
+     * @return a ResponseEntity containing the per-item outcome of the batch with a 200 OK status
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchResult> createVehicles(@RequestBody List<Vehicle> vehicles,
+                                                      @RequestParam(defaultValue = "false") boolean upsert) {
+        return ResponseEntity.ok(vehicleService.createVehicles(vehicles, upsert));
     }
 
     /**
      * Update an existing vehicle
      * @param vin the VIN of the vehicle to update
+     * @param ifMatch the ETag of the version the client last saw; if given, the update only applies to that version
      * @param updates the updated vehicle data
      * @return a ResponseEntity containing the updated vehicle with a 200 OK status
      */
     @PutMapping("/{vin}")
-    public ResponseEntity<?> updateVehicle(@PathVariable String vin, @Valid @RequestBody Vehicle updates) {
-        Vehicle updatedVehicle = vehicleService.updateVehicle(vin, updates);
-        return ResponseEntity.ok(updatedVehicle);
+    public ResponseEntity<?> updateVehicle(@PathVariable String vin,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                           @Valid @RequestBody Vehicle updates) {
+        Long expectedVersion = parseVersion(ifMatch);
+        Vehicle updatedVehicle = expectedVersion == null
+                ? vehicleService.updateVehicle(vin, updates)
+                : vehicleService.updateVehicle(vin, updates, expectedVersion);
+        return ResponseEntity.ok().headers(versionHeaders(updatedVehicle)).body(updatedVehicle);
+    }
+
+    /**
+     * Partially update an existing vehicle. Only the fields present in the body are written, in a single UPDATE.
+     * @param vin the VIN of the vehicle to update
+     * @param ifMatch the ETag of the version the client last saw; if given, the patch only applies to that version
+     * @param patch the fields to change
+     * @return a ResponseEntity containing the number of updated rows with a 200 OK status
+     */
+    @PatchMapping(value = "/{vin}", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<PatchResult> patchVehicle(@PathVariable String vin,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                    @Valid @RequestBody VehiclePatch patch) {
+        int updatedRows = vehicleService.patchVehicle(vin, patch, parseVersion(ifMatch));
+        return ResponseEntity.ok(new PatchResult(vin, updatedRows));
+    }
+
+    /**
+     * Sell a vehicle: record the sale and remove the vehicle from the inventory
+     * @param vin the VIN of the vehicle to sell
+     * @param sale the sale price and transaction type
+     * @return a ResponseEntity containing the recorded sale with a 201 Created status
+     */
+    @PostMapping("/{vin}/sell")
+    public ResponseEntity<SoldVehicle> sellVehicle(@PathVariable String vin, @Valid @RequestBody SaleRequest sale) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(vehicleService.sellVehicle(vin, sale));
     }
 
     /**
@@ -89,4 +325,51 @@ public class VehicleController {
         vehicleService.deleteVehicle(vin);
         return ResponseEntity.noContent().build(); //Required 204 No Content response
     }
+
+    /**
+     * Delete many vehicles, either by a list of VINs or by criteria
+     * @param request the VINs, or the modelYearBefore/category criteria, of the vehicles to delete
+     * @return a ResponseEntity containing the number of deleted vehicles with a 200 OK status
+     */
+    @PostMapping("/bulkDelete")
+    public ResponseEntity<BulkDeleteResult> deleteVehicles(@RequestBody BulkDeleteRequest request) {
+        return ResponseEntity.ok(vehicleService.deleteVehicles(request));
+    }
+
+    /**
+     * Builds the strong ETag for a vehicle from its optimistic lock version
+     * @param vehicle the vehicle
+     * @return headers carrying the ETag, empty if the vehicle has no version yet
+     */
+    private static HttpHeaders versionHeaders(Vehicle vehicle) {
+        HttpHeaders headers = new HttpHeaders();
+        if (vehicle != null && vehicle.getVersion() != null) {
+            headers.setETag("\"" + vehicle.getVersion() + "\"");
+        }
+        return headers;
+    }
+
+    /**
+     * Reads the version out of an If-Match header. Only a single strong ETag can match; "*" matches any version.
+     * The tag of a GET carries a checksum of the body after the version, which is ignored here.
+     * @param ifMatch the If-Match header value, may be null
+     * @return the expected version, or null if the update is unconditional
+     * @throws PreconditionFailedException if the header cannot match any version
+     */
+    private static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.length() > 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            String tag = etag.substring(1, etag.length() - 1);
+            int checksum = tag.indexOf('-');
+            try {
+                return Long.parseLong(checksum < 0 ? tag : tag.substring(0, checksum));
+            } catch (NumberFormatException e) {
+                // fall through: not one of our ETags
+            }
+        }
+        throw new PreconditionFailedException("If-Match does not match the current version");
+    }
 }
@@ -0,0 +1,63 @@
+package com.apollo.vehicle.dto;
+
+import java.util.function.Function;
+
+/**
+ * The vehicle attributes that inventory aggregates are broken down by
+ */
+public enum AggregateDimension {
+    MANUFACTURER_NAME("manufacturerName", VehicleFacts::manufacturerName, VehiclePatch::manufacturerName),
+    CATEGORY("category", VehicleFacts::category, VehiclePatch::category),
+    FUEL_TYPE("fuelType", VehicleFacts::fuelType, VehiclePatch::fuelType),
+    MODEL_YEAR("modelYear", VehicleFacts::modelYear, VehiclePatch::modelYear);
+
+    private final String attribute;
+
+    private final Function<VehicleFacts, Object> key;
+
+    private final Function<VehiclePatch, Object> patchedKey;
+
+    AggregateDimension(String attribute, Function<VehicleFacts, Object> key,
+                       Function<VehiclePatch, Object> patchedKey) {
+        this.attribute = attribute;
+        this.key = key;
+        this.patchedKey = patchedKey;
+    }
+
+    /**
+     * @return the name of the Vehicle attribute, as used in the API and in queries
+     */
+    public String attribute() {
+        return attribute;
+    }
+
+    /**
+     * @param facts the facts of a vehicle
+     * @return the group the vehicle belongs to in this dimension
+     */
+    public Object keyOf(VehicleFacts facts) {
+        return key.apply(facts);
+    }
+
+    /**
+     * @param patch a partial update of a vehicle
+     * @return true if the patch can move the vehicle to another group or change its group's figures
+     */
+    public boolean changedBy(VehiclePatch patch) {
+        return patchedKey.apply(patch) != null || patch.purchasePrice() != null || patch.horsePower() != null;
+    }
+
+    /**
+     * @param attribute the name of a Vehicle attribute
+     * @return the dimension for that attribute
+     * @throws IllegalArgumentException if vehicles cannot be aggregated by the attribute
+     */
+    public static AggregateDimension fromAttribute(String attribute) {
+        for (AggregateDimension dimension : values()) {
+            if (dimension.attribute.equals(attribute)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Cannot aggregate by " + attribute);
+    }
+}
@@ -0,0 +1,10 @@
+package com.apollo.vehicle.dto;
+
+/**
+ * A vehicle rejected from a bulk request
+ * @param index the position of the vehicle in the request body
+ * @param vin the VIN of the rejected vehicle, if it had one
+ * @param message why the vehicle was rejected
+ */
+public record BatchItemError(int index, String vin, String message) {
+}
@@ -0,0 +1,13 @@
+package com.apollo.vehicle.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk create/upsert request
+ * @param received the number of vehicles in the request
+ * @param created the number of vehicles inserted
+ * @param updated the number of existing vehicles overwritten (upsert only)
+ * @param errors the vehicles that were rejected, with the reason for each
+ */
+public record BatchResult(int received, int created, int updated, List<BatchItemError> errors) {
+}
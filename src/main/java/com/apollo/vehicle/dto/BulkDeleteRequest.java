@@ -0,0 +1,12 @@
+package com.apollo.vehicle.dto;
+
+import java.util.List;
+
+/**
+ * Selects the vehicles to delete in bulk, either by VIN or by criteria, but not both
+ * @param vins the VINs of the vehicles to delete
+ * @param modelYearBefore delete vehicles with a model year strictly before this year
+ * @param category delete vehicles in this category (combined with modelYearBefore if both are given)
+ */
+public record BulkDeleteRequest(List<String> vins, Integer modelYearBefore, String category) {
+}
@@ -0,0 +1,9 @@
+package com.apollo.vehicle.dto;
+
+/**
+ * Outcome of a bulk delete
+ * @param deleted the number of vehicles deleted
+ * @param chunks the number of separately committed DELETE statements it took
+ */
+public record BulkDeleteResult(int deleted, int chunks) {
+}
@@ -0,0 +1,12 @@
+package com.apollo.vehicle.dto;
+
+/**
+ * Snapshot of the VIN cache counters, used to size the cache
+ * @param size the approximate number of cached vehicles
+ * @param hitCount the number of lookups served from the cache
+ * @param missCount the number of lookups that went to the database
+ * @param hitRate the ratio of hits to lookups
+ * @param evictionCount the number of entries evicted by size or expiry
+ */
+public record CacheStatistics(long size, long hitCount, long missCount, double hitRate, long evictionCount) {
+}
@@ -0,0 +1,24 @@
+package com.apollo.vehicle.dto;
+
+/**
+ * The kinds of inventory change announced on the change feed
+ */
+public enum ChangeType {
+    CREATED("created"),
+    UPDATED("updated"),
+    DELETED("deleted"),
+    SOLD("sold");
+
+    private final String eventName;
+
+    ChangeType(String eventName) {
+        this.eventName = eventName;
+    }
+
+    /**
+     * @return the name of the server-sent event for this kind of change
+     */
+    public String eventName() {
+        return eventName;
+    }
+}
@@ -0,0 +1,11 @@
+package com.apollo.vehicle.dto;
+
+import java.util.List;
+
+/**
+ * A single page of a keyset-paginated result
+ * @param items the items on this page, in key order
+ * @param nextCursor the opaque cursor to pass back for the next page, or null if this is the last page
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,25 @@
+package com.apollo.vehicle.dto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Count and purchase price / horse power statistics of one group of vehicles
+ * @param key the value of the dimension the vehicles are grouped by
+ */
+public record GroupAggregate(Object key, long count,
+                             BigDecimal purchasePriceSum, BigDecimal purchasePriceMin, BigDecimal purchasePriceMax,
+                             BigDecimal purchasePriceAvg,
+                             long horsePowerSum, int horsePowerMin, int horsePowerMax, double horsePowerAvg) {
+
+    /**
+     * Builds the aggregate of a group, deriving the averages from the sums
+     */
+    public static GroupAggregate of(Object key, long count, BigDecimal purchasePriceSum, BigDecimal purchasePriceMin,
+                                    BigDecimal purchasePriceMax, long horsePowerSum, int horsePowerMin,
+                                    int horsePowerMax) {
+        return new GroupAggregate(key, count, purchasePriceSum, purchasePriceMin, purchasePriceMax,
+                purchasePriceSum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP),
+                horsePowerSum, horsePowerMin, horsePowerMax, (double) horsePowerSum / count);
+    }
+}
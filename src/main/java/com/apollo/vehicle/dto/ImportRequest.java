@@ -0,0 +1,9 @@
+package com.apollo.vehicle.dto;
+
+/**
+ * A request to import a feed file
+ * @param file the path of the feed file, relative to vehicle.import.directory
+ * @param resume whether to continue from the file's last checkpoint instead of starting over
+ */
+public record ImportRequest(String file, boolean resume) {
+}
@@ -0,0 +1,16 @@
+package com.apollo.vehicle.dto;
+
+/**
+ * Progress of a file import
+ * @param committedOffset the byte offset up to which the file has been committed to the database
+ * @param linesRead the number of lines read so far, including any skipped when resuming
+ * @param imported the number of vehicles created or updated
+ * @param rejected the number of lines written to the reject file
+ * @param rowsPerSecond the lines processed per second since this run started
+ * @param megabytesPerSecond the megabytes processed per second since this run started
+ * @param error the reason the import failed, if it did
+ */
+public record ImportStatus(String id, String file, String state, long totalBytes, long committedOffset,
+                           double percentComplete, long linesRead, long imported, long rejected,
+                           double rowsPerSecond, double megabytesPerSecond, String error) {
+}
@@ -0,0 +1,9 @@
+package com.apollo.vehicle.dto;
+
+/**
+ * Outcome of a partial update
+ * @param vin the VIN of the patched vehicle
+ * @param updatedRows the number of rows the UPDATE statement changed
+ */
+public record PatchResult(String vin, int updatedRows) {
+}
@@ -0,0 +1,20 @@
+package com.apollo.vehicle.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+/**
+ * The sale of a vehicle in the inventory
+ * @param salePrice the price the vehicle was sold for
+ * @param transactionType how the vehicle was sold, e.g. Retail or Lease
+ */
+public record SaleRequest(
+        @NotNull(message = "Sale price cannot be null")
+        @DecimalMin(value = "0.0", inclusive = false, message = "Sale price must be greater than 0")
+        BigDecimal salePrice,
+        @NotBlank(message = "Transaction type cannot be null")
+        String transactionType) {
+}
@@ -0,0 +1,14 @@
+package com.apollo.vehicle.dto;
+
+/**
+ * Size of the in-memory inventory snapshot, used to tell when the inventory no longer fits in the heap
+ * @param enabled whether reads are served from the snapshot (vehicle.snapshot.enabled)
+ * @param vehicles the number of vehicles in the snapshot
+ * @param estimatedBytes the estimated heap used by the vehicles and their indexes
+ * @param bytesPerVehicle the estimated heap per vehicle
+ * @param maxHeapBytes the maximum heap size of the JVM
+ * @param heapFraction the share of the maximum heap the snapshot uses
+ */
+public record SnapshotStatistics(boolean enabled, long vehicles, long estimatedBytes, long bytesPerVehicle,
+                                 long maxHeapBytes, double heapFraction) {
+}
@@ -0,0 +1,14 @@
+package com.apollo.vehicle.dto;
+
+import java.time.Instant;
+
+/**
+ * One committed change to the inventory, as published on the change feed
+ * @param sequence the position of the change in the feed; the id of the server-sent event is this sequence
+ *                 prefixed with an id of the feed
+ * @param type what happened to the vehicle
+ * @param vin the VIN of the vehicle
+ * @param committedAt when the change was published, just after it committed
+ */
+public record VehicleChangeEvent(long sequence, ChangeType type, String vin, Instant committedAt) {
+}
@@ -0,0 +1,18 @@
+package com.apollo.vehicle.dto;
+
+import com.apollo.vehicle.entity.Vehicle;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields of a vehicle that feed the inventory aggregates, read without loading the whole entity
+ * @param version the optimistic lock version the facts were read at
+ */
+public record VehicleFacts(String manufacturerName, String category, String fuelType, int modelYear,
+                           BigDecimal purchasePrice, int horsePower, Long version) {
+
+    public static VehicleFacts of(Vehicle vehicle) {
+        return new VehicleFacts(vehicle.getManufacturerName(), vehicle.getCategory(), vehicle.getFuelType(),
+                vehicle.getModelYear(), vehicle.getPurchasePrice(), vehicle.getHorsePower(), vehicle.getVersion());
+    }
+}
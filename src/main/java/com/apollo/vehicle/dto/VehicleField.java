@@ -0,0 +1,82 @@
+package com.apollo.vehicle.dto;
+
+import com.apollo.vehicle.entity.Vehicle;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The vehicle attributes a client can ask for with ?fields=, in the order they are written
+ */
+public enum VehicleField {
+    VIN("vin", Vehicle::getVin),
+    MANUFACTURER_NAME("manufacturerName", Vehicle::getManufacturerName),
+    DESCRIPTION("description", Vehicle::getDescription),
+    HORSE_POWER("horsePower", Vehicle::getHorsePower),
+    MODEL_NAME("modelName", Vehicle::getModelName),
+    MODEL_YEAR("modelYear", Vehicle::getModelYear),
+    PURCHASE_PRICE("purchasePrice", Vehicle::getPurchasePrice),
+    FUEL_TYPE("fuelType", Vehicle::getFuelType),
+    COLOR("color", Vehicle::getColor),
+    CATEGORY("category", Vehicle::getCategory),
+    VERSION("version", Vehicle::getVersion);
+
+    private final String attribute;
+
+    private final Function<Vehicle, Object> value;
+
+    VehicleField(String attribute, Function<Vehicle, Object> value) {
+        this.attribute = attribute;
+        this.value = value;
+    }
+
+    /**
+     * @return the name of the Vehicle attribute, as used in the API and in queries
+     */
+    public String attribute() {
+        return attribute;
+    }
+
+    /**
+     * Parses a comma-separated list of attribute names. The VIN is always included, as it identifies the vehicle.
+     * @param fields the value of the fields parameter, e.g. "modelName,purchasePrice"
+     * @return the requested fields and the VIN
+     * @throws IllegalArgumentException if a name is not a Vehicle attribute
+     */
+    public static Set<VehicleField> parse(String fields) {
+        Set<VehicleField> parsed = EnumSet.of(VIN);
+        for (String name : fields.split(",")) {
+            String attribute = name.trim();
+            if (!attribute.isEmpty()) {
+                parsed.add(fromAttribute(attribute));
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * Copies the requested fields of a vehicle that is already in memory
+     * @param vehicle the vehicle
+     * @param fields the fields to copy
+     * @return the field values by attribute name, in field order
+     */
+    public static Map<String, Object> project(Vehicle vehicle, Set<VehicleField> fields) {
+        Map<String, Object> projection = LinkedHashMap.newLinkedHashMap(fields.size());
+        for (VehicleField field : fields) {
+            projection.put(field.attribute, field.value.apply(vehicle));
+        }
+        return projection;
+    }
+
+    private static VehicleField fromAttribute(String attribute) {
+        for (VehicleField field : values()) {
+            if (field.attribute.equals(attribute)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown field " + attribute);
+    }
+}
@@ -0,0 +1,10 @@
+package com.apollo.vehicle.dto;
+
+import java.util.List;
+
+/**
+ * The VINs to resolve in one lookup
+ * @param vins the VINs of the vehicles to retrieve
+ */
+public record VehicleLookupRequest(List<String> vins) {
+}
@@ -0,0 +1,13 @@
+package com.apollo.vehicle.dto;
+
+import com.apollo.vehicle.entity.Vehicle;
+
+import java.util.List;
+
+/**
+ * Outcome of a multi-VIN lookup
+ * @param vehicles the vehicles found, in the order their VINs were requested
+ * @param missing the requested VINs that are not valid or not in the inventory, in request order
+ */
+public record VehicleLookupResult(List<Vehicle> vehicles, List<String> missing) {
+}
@@ -0,0 +1,37 @@
+package com.apollo.vehicle.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+
+import java.math.BigDecimal;
+
+/**
+ * Sparse update of a vehicle. A field that is absent (or null) is left unchanged; a field that is present is
+ * validated and written, so a horsePower or modelYear of 0, or a blank string, is rejected rather than ignored.
+ */
+public record VehiclePatch(
+        @Pattern(regexp = NOT_BLANK, message = "Manufacturer name cannot be blank") String manufacturerName,
+        @Pattern(regexp = NOT_BLANK, message = "Description cannot be blank") String description,
+        @Min(value = 1, message = "Horse power must be greater than 0") Integer horsePower,
+        @Pattern(regexp = NOT_BLANK, message = "Model name cannot be blank") String modelName,
+        @Min(value = 1, message = "Model year must be greater than 0") Integer modelYear,
+        @DecimalMin(value = "0.0", inclusive = false, message = "Purchase price must be greater than 0") BigDecimal purchasePrice,
+        @Pattern(regexp = NOT_BLANK, message = "Fuel type cannot be blank") String fuelType,
+        @Pattern(regexp = NOT_BLANK, message = "Color cannot be blank") String color,
+        @Pattern(regexp = NOT_BLANK, message = "Category cannot be blank") String category) {
+
+    // @NotBlank would also reject null, which means the field is absent; this only rejects present blank values.
+    // (?s) lets a value with a line break still match as a whole
+    static final String NOT_BLANK = "(?s).*\\S.*";
+
+    /**
+     * @return true if the patch does not set any field
+     */
+    @JsonIgnore
+    public boolean isEmpty() {
+        return manufacturerName == null && description == null && horsePower == null && modelName == null
+                && modelYear == null && purchasePrice == null && fuelType == null && color == null && category == null;
+    }
+}
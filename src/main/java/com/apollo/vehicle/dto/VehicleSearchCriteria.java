@@ -0,0 +1,19 @@
+package com.apollo.vehicle.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Optional filters for the vehicle search. Any filter left null is not applied.
+ * @param manufacturerName exact manufacturer name
+ * @param minModelYear lowest model year, inclusive
+ * @param maxModelYear highest model year, inclusive
+ * @param category exact category
+ * @param fuelType exact fuel type
+ * @param color exact color
+ * @param minPrice lowest purchase price, inclusive
+ * @param maxPrice highest purchase price, inclusive
+ */
+public record VehicleSearchCriteria(String manufacturerName, Integer minModelYear, Integer maxModelYear,
+                                    String category, String fuelType, String color,
+                                    BigDecimal minPrice, BigDecimal maxPrice) {
+}
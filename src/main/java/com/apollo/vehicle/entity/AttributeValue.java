@@ -0,0 +1,33 @@
+package com.apollo.vehicle.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One entry of the dictionary shared by the low-cardinality vehicle attributes. Vehicle rows store the id of the
+ * entry instead of repeating the name.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_attribute_value", columnNames = {"attribute", "name"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttributeValue {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, length = 32)
+    private String attribute;
+
+    @Column(nullable = false)
+    private String name;
+}
@@ -0,0 +1,54 @@
+package com.apollo.vehicle.entity;
+
+import com.apollo.vehicle.repository.AttributeDictionary;
+import jakarta.persistence.AttributeConverter;
+
+/**
+ * Stores a low-cardinality String attribute as its integer code in the {@link AttributeDictionary}. Query
+ * parameters compared with the attribute are encoded too, so filters become integer comparisons.
+ */
+public abstract class DictionaryConverter implements AttributeConverter<String, Integer> {
+
+    private final AttributeDictionary dictionary;
+
+    private final String attribute;
+
+    protected DictionaryConverter(AttributeDictionary dictionary, String attribute) {
+        this.dictionary = dictionary;
+        this.attribute = attribute;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String value) {
+        return value == null ? null : dictionary.codeOf(attribute, value);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer code) {
+        return code == null ? null : dictionary.valueOf(attribute, code);
+    }
+
+    public static class ManufacturerName extends DictionaryConverter {
+        public ManufacturerName(AttributeDictionary dictionary) {
+            super(dictionary, AttributeDictionary.MANUFACTURER_NAME);
+        }
+    }
+
+    public static class FuelType extends DictionaryConverter {
+        public FuelType(AttributeDictionary dictionary) {
+            super(dictionary, AttributeDictionary.FUEL_TYPE);
+        }
+    }
+
+    public static class Color extends DictionaryConverter {
+        public Color(AttributeDictionary dictionary) {
+            super(dictionary, AttributeDictionary.COLOR);
+        }
+    }
+
+    public static class Category extends DictionaryConverter {
+        public Category(AttributeDictionary dictionary) {
+            super(dictionary, AttributeDictionary.CATEGORY);
+        }
+    }
+}
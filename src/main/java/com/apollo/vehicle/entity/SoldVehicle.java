@@ -1,14 +1,25 @@
 package com.apollo.vehicle.entity;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
+@Entity
+@Table(indexes = @Index(name = "idx_sold_vehicle_transaction_type", columnList = "transaction_type"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class SoldVehicle
 {
     @Id
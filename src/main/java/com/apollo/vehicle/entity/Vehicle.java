@@ -1,27 +1,46 @@
 package com.apollo.vehicle.entity;
+import com.apollo.vehicle.validation.ValidVin;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
-import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.DynamicUpdate;
+import org.springframework.data.domain.Persistable;
+
 import java.math.BigDecimal;
 
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_vehicle_manufacturer_year", columnList = "manufacturer_code, model_year"),
+        @Index(name = "idx_vehicle_category_fuel_year", columnList = "category_code, fuel_type_code, model_year"),
+        @Index(name = "idx_vehicle_year_price", columnList = "model_year, purchase_price"),
+        @Index(name = "idx_vehicle_price", columnList = "purchase_price"),
+        @Index(name = "idx_vehicle_color", columnList = "color_code")
+})
+@EntityListeners(VehicleDictionaryListener.class)
+@DynamicUpdate
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-public class Vehicle {
+public class Vehicle implements Persistable<String> {
     @Id
     @Column(unique = true, nullable = false)
     @NotNull(message = "VIN cannot be null")
-    @Size(min = 17, max = 17, message = "VIN must be exactly 17 characters")
+    @ValidVin
     private String vin;
 
-    @Column(nullable = false)
+    // Low-cardinality attributes are stored as codes in the shared attribute_value dictionary
+    @Column(name = "manufacturer_code", nullable = false)
+    @Convert(converter = DictionaryConverter.ManufacturerName.class)
     @NotBlank(message = "Manufacturer name cannot be null")
     private String manufacturerName;
 
@@ -47,15 +66,81 @@ public class Vehicle {
     @DecimalMin(value = "0.0", inclusive = false, message = "Purchase price must be greater than 0")
     private BigDecimal purchasePrice;
 
-    @Column(nullable = false)
+    @Column(name = "fuel_type_code", nullable = false)
+    @Convert(converter = DictionaryConverter.FuelType.class)
     @NotBlank(message = "Fuel type cannot be null")
     private String fuelType;
 
-    @Column(nullable = false)
+    @Column(name = "color_code", nullable = false)
+    @Convert(converter = DictionaryConverter.Color.class)
     @NotBlank(message = "Color cannot be null")
     private String color;
 
-    @Column(nullable = false)
+    @Column(name = "category_code", nullable = false)
+    @Convert(converter = DictionaryConverter.Category.class)
     @NotBlank(message = "Category cannot be null")
     private String category;
+
+    /**
+     * Optimistic lock version, bumped by every update. Exposed to clients as the ETag and read-only in request bodies.
+     */
+    @Version
+    @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    /**
+     * VINs are assigned by the client, so Spring Data cannot tell a new vehicle from its id. Tracking it here lets
+     * save() persist new vehicles directly instead of merging, which would first SELECT the row.
+     */
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean newEntity = true;
+
+    public Vehicle(String vin, String manufacturerName, String description, int horsePower, String modelName,
+                   int modelYear, BigDecimal purchasePrice, String fuelType, String color, String category) {
+        this.vin = vin;
+        this.manufacturerName = manufacturerName;
+        this.description = description;
+        this.horsePower = horsePower;
+        this.modelName = modelName;
+        this.modelYear = modelYear;
+        this.purchasePrice = purchasePrice;
+        this.fuelType = fuelType;
+        this.color = color;
+        this.category = category;
+    }
+
+    /**
+     * @return a detached copy of this vehicle, including its version, that is not shared with any persistence context
+     */
+    public Vehicle copy() {
+        Vehicle copy = new Vehicle(vin, manufacturerName, description, horsePower, modelName, modelYear, purchasePrice,
+                fuelType, color, category);
+        copy.version = version;
+        copy.newEntity = newEntity;
+        return copy;
+    }
+
+    @Override
+    @JsonIgnore
+    public String getId() {
+        return vin;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newEntity = false;
+    }
 }
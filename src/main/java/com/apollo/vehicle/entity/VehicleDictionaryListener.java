@@ -0,0 +1,27 @@
+package com.apollo.vehicle.entity;
+
+import com.apollo.vehicle.repository.AttributeDictionary;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * Adds any new dictionary-encoded values of a vehicle to the {@link AttributeDictionary} before the vehicle is
+ * inserted or updated, so the converters always have a code to write
+ */
+public class VehicleDictionaryListener {
+
+    private final AttributeDictionary dictionary;
+
+    public VehicleDictionaryListener(AttributeDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void registerValues(Vehicle vehicle) {
+        dictionary.register(AttributeDictionary.MANUFACTURER_NAME, vehicle.getManufacturerName());
+        dictionary.register(AttributeDictionary.FUEL_TYPE, vehicle.getFuelType());
+        dictionary.register(AttributeDictionary.COLOR, vehicle.getColor());
+        dictionary.register(AttributeDictionary.CATEGORY, vehicle.getCategory());
+    }
+}
@@ -1,5 +1,9 @@
 package com.apollo.vehicle.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -10,8 +14,102 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Maps exceptions to error responses and counts them per type in vehicle.errors. Errors whose body does not depend
+ * on the request share one pre-built immutable body.
+ */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private static final Map<String, String> NOT_FOUND_BODY = Map.of("error", "Vehicle not found");
+
+    private static final Map<String, String> INVALID_VIN_BODY = Map.of("error", "Invalid VIN");
+
+    private static final Map<String, String> ALREADY_EXISTS_BODY = Map.of("error", "Vehicle already exists");
+
+    private static final Map<String, String> ALREADY_SOLD_BODY = Map.of("error", "Vehicle already sold");
+
+    private static final Map<String, String> CONCURRENT_MODIFICATION_BODY =
+            Map.of("error", "Vehicle was modified concurrently, retry with the latest version");
+
+    private static final Map<String, String> CONSTRAINT_VIOLATION_BODY =
+            Map.of("error", "Request conflicts with the current inventory");
+
+    private final Counter notFound;
+
+    private final Counter alreadyExists;
+
+    private final Counter alreadySold;
+
+    private final Counter invalidVin;
+
+    private final Counter validationFailed;
+
+    private final Counter badRequest;
+
+    private final Counter preconditionFailed;
+
+    private final Counter conflict;
+
+    private final Counter constraintViolation;
+
+    private final Counter internalError;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.notFound = errors("not_found", meterRegistry);
+        this.alreadyExists = errors("already_exists", meterRegistry);
+        this.alreadySold = errors("already_sold", meterRegistry);
+        this.invalidVin = errors("invalid_vin", meterRegistry);
+        this.validationFailed = errors("validation_failed", meterRegistry);
+        this.badRequest = errors("bad_request", meterRegistry);
+        this.preconditionFailed = errors("precondition_failed", meterRegistry);
+        this.conflict = errors("conflict", meterRegistry);
+        this.constraintViolation = errors("constraint_violation", meterRegistry);
+        this.internalError = errors("internal_error", meterRegistry);
+    }
+
+    /**
+     * Handle lookups of VINs that are not in the inventory (404 Not Found)
+     * @param ex the exception thrown for the missing VIN
+     * @return a response entity with the 404 error code details
+     */
+    @ExceptionHandler(VehicleNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handleVehicleNotFoundException(VehicleNotFoundException ex) {
+        notFound.increment();
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(NOT_FOUND_BODY);
+    }
+
+    /**
+     * Handle creates with a VIN that is already in the inventory (409 Conflict)
+     * @param ex the exception thrown for the duplicate VIN
+     * @return a response entity with the 409 error code details
+     */
+    @ExceptionHandler(VehicleAlreadyExistsException.class)
+    public ResponseEntity<Map<String, String>> handleVehicleAlreadyExistsException(VehicleAlreadyExistsException ex) {
+        alreadyExists.increment();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ALREADY_EXISTS_BODY);
+    }
+
+    /**
+     * Handle sales of vehicles that are already recorded as sold (409 Conflict)
+     * @param ex the exception thrown for the sold VIN
+     * @return a response entity with the 409 error code details
+     */
+    @ExceptionHandler(VehicleAlreadySoldException.class)
+    public ResponseEntity<Map<String, String>> handleVehicleAlreadySoldException(VehicleAlreadySoldException ex) {
+        alreadySold.increment();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ALREADY_SOLD_BODY);
+    }
+
+    /**
+     * Handle VINs that are not valid ISO 3779 VINs (400 Bad Request)
+     * @param ex the exception thrown for the invalid VIN
+     * @return a response entity with the 400 error code details
+     */
+    @ExceptionHandler(InvalidVinException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidVinException(InvalidVinException ex) {
+        invalidVin.increment();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(INVALID_VIN_BODY);
+    }
 
     /**
      * Handle validation errors (422 Unprocessable Entity)
@@ -20,6 +118,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
+        validationFailed.increment();
         Map<String, String> errors = new HashMap<>();
         for (FieldError fieldError : ex.getBindingResult().getFieldErrors()) {
             errors.put(fieldError.getField(), fieldError.getDefaultMessage());
@@ -34,11 +133,48 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        badRequest.increment();
         Map<String, String> error = new HashMap<>();
         error.put("error", ex.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
+    /**
+     * Handle conditional requests whose If-Match version is stale (412 Precondition Failed)
+     * @param ex the exception thrown containing the precondition details
+     * @return a response entity with the 412 error code details
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, String>> handlePreconditionFailedException(PreconditionFailedException ex) {
+        preconditionFailed.increment();
+        Map<String, String> error = new HashMap<>();
+        error.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+    }
+
+    /**
+     * Handle updates that lost a race with a concurrent update (409 Conflict)
+     * @param ex the exception thrown by the optimistic lock check
+     * @return a response entity with the 409 error code details
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        conflict.increment();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(CONCURRENT_MODIFICATION_BODY);
+    }
+
+    /**
+     * Handle writes rejected by a database constraint, such as a concurrent insert of the same VIN (409 Conflict).
+     * The body is fixed so that constraint names and SQL never reach the client.
+     * @param ex the exception thrown by the constraint check
+     * @return a response entity with the 409 error code details
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Map<String, String>> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        constraintViolation.increment();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(CONSTRAINT_VIOLATION_BODY);
+    }
+
     /**
      * Handle any other internal exceptions that arise (500 Internal Server Error)
      * @param ex the exception thrown containing the generic exception details
@@ -46,9 +182,15 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGenericException(Exception ex) {
+        internalError.increment();
         Map<String, String> error = new HashMap<>();
         error.put("error", "An unexpected error occurred");
         error.put("details", ex.getMessage());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
+
+    private static Counter errors(String type, MeterRegistry meterRegistry) {
+        return Counter.builder("vehicle.errors").tag("type", type)
+                .description("Error responses per error type").register(meterRegistry);
+    }
 }
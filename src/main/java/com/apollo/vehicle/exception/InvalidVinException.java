@@ -0,0 +1,26 @@
+package com.apollo.vehicle.exception;
+
+/**
+ * Thrown when a request carries a VIN that is not a valid ISO 3779 VIN. Like {@link VehicleNotFoundException}, it
+ * records no stack trace and only builds its message when asked for it.
+ */
+public class InvalidVinException extends RuntimeException {
+    private final String vin;
+
+    public InvalidVinException(String vin) {
+        super(null, null, false, false);
+        this.vin = vin;
+    }
+
+    /**
+     * @return the VIN that was rejected
+     */
+    public String getVin() {
+        return vin;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Invalid VIN " + vin;
+    }
+}
@@ -0,0 +1,10 @@
+package com.apollo.vehicle.exception;
+
+/**
+ * Thrown when a conditional request (If-Match) names a version that is not the current version of the vehicle
+ */
+public class PreconditionFailedException extends RuntimeException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,26 @@
+package com.apollo.vehicle.exception;
+
+/**
+ * Thrown when a vehicle is created with the VIN of a vehicle already in the inventory. Like
+ * {@link VehicleNotFoundException}, it records no stack trace and only builds its message when asked for it.
+ */
+public class VehicleAlreadyExistsException extends RuntimeException {
+    private final String vin;
+
+    public VehicleAlreadyExistsException(String vin) {
+        super(null, null, false, false);
+        this.vin = vin;
+    }
+
+    /**
+     * @return the VIN that is already in use
+     */
+    public String getVin() {
+        return vin;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Vehicle with VIN " + vin + " already exists";
+    }
+}
@@ -0,0 +1,26 @@
+package com.apollo.vehicle.exception;
+
+/**
+ * Thrown when a vehicle is sold whose VIN is already recorded as sold. Like {@link VehicleAlreadyExistsException},
+ * it records no stack trace and only builds its message when asked for it.
+ */
+public class VehicleAlreadySoldException extends RuntimeException {
+    private final String vin;
+
+    public VehicleAlreadySoldException(String vin) {
+        super(null, null, false, false);
+        this.vin = vin;
+    }
+
+    /**
+     * @return the VIN that is already recorded as sold
+     */
+    public String getVin() {
+        return vin;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Vehicle with VIN " + vin + " is already recorded as sold";
+    }
+}
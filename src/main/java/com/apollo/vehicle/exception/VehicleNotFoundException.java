@@ -0,0 +1,26 @@
+package com.apollo.vehicle.exception;
+
+/**
+ * Thrown when no vehicle has the requested VIN. Clients probe unknown VINs often, so the exception records no stack
+ * trace and only builds its message when asked for it.
+ */
+public class VehicleNotFoundException extends RuntimeException {
+    private final String vin;
+
+    public VehicleNotFoundException(String vin) {
+        super(null, null, false, false);
+        this.vin = vin;
+    }
+
+    /**
+     * @return the VIN that was not found
+     */
+    public String getVin() {
+        return vin;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Vehicle with VIN " + vin + " not found";
+    }
+}
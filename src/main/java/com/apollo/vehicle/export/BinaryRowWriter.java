@@ -0,0 +1,154 @@
+package com.apollo.vehicle.export;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes rows in a compact binary format. All numbers are big-endian.
+ * <pre>
+ * header     "VEXP" format-version:byte column-count:byte { type:byte name:text }*
+ * record     kind:byte length:int payload[length]
+ *   'D'      column-index:byte code:int value:text     (dictionary entry, sent before the first row using it)
+ *   'R'      one value per column, encoded as described by {@link ColumnType}
+ *   'E'      row-count:long                            (end of export; missing if the export was cut short)
+ * </pre>
+ * where text is a byte length:int followed by UTF-8 bytes. Dictionary codes are assigned per column from 0 and
+ * are only valid within one export. A null TEXT, DICTIONARY or MONEY value is written as the sentinel
+ * {@link #NULL_LENGTH}, {@link #NULL_CODE} or {@link #NULL_CENTS}, so one missing value does not end the stream.
+ */
+public class BinaryRowWriter implements RowWriter {
+    public static final byte[] MAGIC = {'V', 'E', 'X', 'P'};
+
+    // Version 2 added the null sentinels
+    public static final int FORMAT_VERSION = 2;
+
+    public static final byte DICTIONARY_RECORD = 'D';
+
+    public static final byte ROW_RECORD = 'R';
+
+    public static final byte END_RECORD = 'E';
+
+    public static final int NULL_LENGTH = -1;
+
+    public static final int NULL_CODE = -1;
+
+    public static final long NULL_CENTS = Long.MIN_VALUE;
+
+    private static final int VIN_LENGTH = 17;
+
+    private final List<ExportColumn> columns;
+
+    private final DataOutputStream out;
+
+    // Reused for every record so the length prefix can be written before the payload
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+    private final DataOutputStream record = new DataOutputStream(buffer);
+
+    private final List<Map<String, Integer>> dictionaries;
+
+    private long rowCount;
+
+    public BinaryRowWriter(ExportTable table, OutputStream out) throws IOException {
+        this.columns = table.columns();
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        this.dictionaries = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            dictionaries.add(new HashMap<>());
+        }
+        this.out.write(MAGIC);
+        this.out.writeByte(FORMAT_VERSION);
+        this.out.writeByte(columns.size());
+        for (ExportColumn column : columns) {
+            this.out.writeByte(column.type().ordinal());
+            writeText(this.out, column.name());
+        }
+    }
+
+    @Override
+    public void writeRow(ResultSet row) throws SQLException, IOException {
+        buffer.reset();
+        for (int i = 0; i < columns.size(); i++) {
+            switch (columns.get(i).type()) {
+                case VIN -> {
+                    byte[] vin = row.getString(i + 1).getBytes(StandardCharsets.US_ASCII);
+                    if (vin.length != VIN_LENGTH) {
+                        throw new IllegalStateException("VIN is not " + VIN_LENGTH + " characters");
+                    }
+                    record.write(vin);
+                }
+                case TEXT -> writeText(record, row.getString(i + 1));
+                case DICTIONARY -> record.writeInt(code(i, row.getString(i + 1)));
+                case INT -> record.writeInt(row.getInt(i + 1));
+                case MONEY -> {
+                    BigDecimal amount = row.getBigDecimal(i + 1);
+                    record.writeLong(amount == null ? NULL_CENTS : toCents(amount));
+                }
+                case LONG -> record.writeLong(row.getLong(i + 1));
+            }
+        }
+        writeRecord(ROW_RECORD);
+        rowCount++;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        buffer.reset();
+        record.writeLong(rowCount);
+        writeRecord(END_RECORD);
+        out.flush();
+    }
+
+    private int code(int column, String value) throws IOException {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Map<String, Integer> dictionary = dictionaries.get(column);
+        Integer code = dictionary.get(value);
+        if (code != null) {
+            return code;
+        }
+        code = dictionary.size();
+        dictionary.put(value, code);
+        // Dictionary entries go straight to the output, ahead of the row record still being built
+        out.writeByte(DICTIONARY_RECORD);
+        byte[] utf = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(1 + 4 + 4 + utf.length);
+        out.writeByte(column);
+        out.writeInt(code);
+        writeText(out, value);
+        return code;
+    }
+
+    private void writeRecord(byte kind) throws IOException {
+        out.writeByte(kind);
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+    }
+
+    private static void writeText(DataOutputStream target, String value) throws IOException {
+        if (value == null) {
+            target.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] utf = value.getBytes(StandardCharsets.UTF_8);
+        target.writeInt(utf.length);
+        target.write(utf);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+}
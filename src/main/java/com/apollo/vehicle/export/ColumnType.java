@@ -0,0 +1,21 @@
+package com.apollo.vehicle.export;
+
+/**
+ * How a column is encoded in the binary export format
+ */
+public enum ColumnType {
+    /** 17 ASCII bytes, no length prefix */
+    VIN,
+    /** int byte length followed by UTF-8 bytes, or a length of -1 and no bytes for null */
+    TEXT,
+    /**
+     * int code, or -1 for null; the value is sent once in a dictionary record before the first row that uses it
+     */
+    DICTIONARY,
+    /** int */
+    INT,
+    /** long amount in cents, or Long.MIN_VALUE for null */
+    MONEY,
+    /** long */
+    LONG
+}
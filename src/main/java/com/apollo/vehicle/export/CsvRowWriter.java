@@ -0,0 +1,95 @@
+package com.apollo.vehicle.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes rows as CSV with a header row of field names, optionally gzip-compressed. Text is quoted only when it
+ * contains a comma, quote or line break.
+ */
+public class CsvRowWriter implements RowWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<ExportColumn> columns;
+
+    // Null when the CSV is written uncompressed
+    private final GZIPOutputStream gzip;
+
+    private final Writer writer;
+
+    /**
+     * @param table the table being exported
+     * @param out the stream to write to
+     * @param compress whether to gzip-compress the CSV
+     */
+    public CsvRowWriter(ExportTable table, OutputStream out, boolean compress) throws IOException {
+        this.columns = table.columns();
+        this.gzip = compress ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        this.writer = new BufferedWriter(new OutputStreamWriter(compress ? gzip : out, StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(columns.get(i).name());
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void writeRow(ResultSet row) throws SQLException, IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            switch (columns.get(i).type()) {
+                case INT -> writer.write(Integer.toString(row.getInt(i + 1)));
+                case LONG -> writer.write(Long.toString(row.getLong(i + 1)));
+                case MONEY -> {
+                    BigDecimal amount = row.getBigDecimal(i + 1);
+                    if (amount != null) {
+                        writer.write(amount.toPlainString());
+                    }
+                }
+                default -> writeText(row.getString(i + 1));
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+        if (gzip != null) {
+            gzip.finish();
+            gzip.flush();
+        }
+    }
+
+    private void writeText(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
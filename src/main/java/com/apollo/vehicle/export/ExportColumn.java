@@ -0,0 +1,10 @@
+package com.apollo.vehicle.export;
+
+/**
+ * A column of an export
+ * @param column the SQL expression to read
+ * @param name the name of the field in the export, matching the JSON property
+ * @param type how the value is encoded in the binary format
+ */
+public record ExportColumn(String column, String name, ColumnType type) {
+}
@@ -0,0 +1,39 @@
+package com.apollo.vehicle.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The export file formats
+ */
+public enum ExportFormat {
+    /** RFC 4180 CSV with a header row, gzip-compressed when the client accepts it */
+    CSV,
+    /** length-prefixed binary records, see {@link BinaryRowWriter} */
+    BINARY;
+
+    /**
+     * Starts an export in this format
+     * @param table the table being exported
+     * @param out the stream to write to
+     * @param gzip whether to gzip-compress the output; only CSV is compressed
+     * @return a writer that encodes rows onto the stream
+     */
+    public RowWriter open(ExportTable table, OutputStream out, boolean gzip) throws IOException {
+        return this == CSV ? new CsvRowWriter(table, out, gzip) : new BinaryRowWriter(table, out);
+    }
+
+    /**
+     * @param format csv or binary, in any case
+     * @return the matching format
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public static ExportFormat fromParameter(String format) {
+        for (ExportFormat value : values()) {
+            if (value.name().equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format " + format);
+    }
+}
@@ -0,0 +1,57 @@
+package com.apollo.vehicle.export;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The tables that can be exported, and the columns each export contains. Rows are always exported in VIN order so
+ * an interrupted export can be resumed from the last VIN received.
+ */
+public enum ExportTable {
+    // Dictionary-encoded columns are decoded by joining the small attribute_value table
+    VEHICLES("vehicle v"
+            + " join attribute_value m on m.id = v.manufacturer_code"
+            + " join attribute_value f on f.id = v.fuel_type_code"
+            + " join attribute_value c on c.id = v.color_code"
+            + " join attribute_value g on g.id = v.category_code", "v.vin", List.of(
+            new ExportColumn("v.vin", "vin", ColumnType.VIN),
+            new ExportColumn("m.name", "manufacturerName", ColumnType.DICTIONARY),
+            new ExportColumn("v.description", "description", ColumnType.TEXT),
+            new ExportColumn("v.horse_power", "horsePower", ColumnType.INT),
+            new ExportColumn("v.model_name", "modelName", ColumnType.DICTIONARY),
+            new ExportColumn("v.model_year", "modelYear", ColumnType.INT),
+            new ExportColumn("v.purchase_price", "purchasePrice", ColumnType.MONEY),
+            new ExportColumn("f.name", "fuelType", ColumnType.DICTIONARY),
+            new ExportColumn("c.name", "color", ColumnType.DICTIONARY),
+            new ExportColumn("g.name", "category", ColumnType.DICTIONARY),
+            new ExportColumn("v.version", "version", ColumnType.LONG))),
+    SOLD_VEHICLES("sold_vehicle", "vin", List.of(
+            new ExportColumn("vin", "vin", ColumnType.VIN),
+            new ExportColumn("sale_price", "salePrice", ColumnType.MONEY),
+            new ExportColumn("transaction_type", "transactionType", ColumnType.DICTIONARY)));
+
+    private final String from;
+
+    private final String key;
+
+    private final List<ExportColumn> columns;
+
+    ExportTable(String from, String key, List<ExportColumn> columns) {
+        this.from = from;
+        this.key = key;
+        this.columns = columns;
+    }
+
+    public List<ExportColumn> columns() {
+        return columns;
+    }
+
+    /**
+     * @param inclusive whether the row with the starting VIN itself is included
+     * @return the SELECT of every column after (or from) the VIN bound to the only parameter, in VIN order
+     */
+    public String selectSql(boolean inclusive) {
+        return "select " + columns.stream().map(ExportColumn::column).collect(Collectors.joining(", "))
+                + " from " + from + " where " + key + (inclusive ? " >= " : " > ") + "? order by " + key;
+    }
+}
@@ -0,0 +1,22 @@
+package com.apollo.vehicle.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Encodes result set rows straight onto an export stream, without building an object per row
+ */
+public interface RowWriter {
+
+    /**
+     * Writes the current row of the result set
+     * @param row a result set positioned on the row to write, with the columns of the export table in order
+     */
+    void writeRow(ResultSet row) throws SQLException, IOException;
+
+    /**
+     * Writes any trailer and flushes the stream, leaving it open
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,102 @@
+package com.apollo.vehicle.ingest;
+
+import com.apollo.vehicle.entity.Vehicle;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses RFC 4180 CSV lines whose columns are named by a header row of Vehicle property names, in any order, as
+ * written by GET /vehicle/export. Quoted fields may contain commas and doubled quotes but not line breaks. Unknown
+ * columns, such as version, are ignored.
+ */
+public class CsvVehicleParser implements VehicleLineParser {
+
+    private final List<String> columns;
+
+    public CsvVehicleParser(String headerLine) {
+        this.columns = split(headerLine);
+        if (!columns.contains("vin")) {
+            throw new IllegalArgumentException("CSV header must contain a vin column");
+        }
+    }
+
+    @Override
+    public Vehicle parse(String line) {
+        List<String> fields = split(line);
+        if (fields.size() != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " fields but found " + fields.size());
+        }
+        Vehicle vehicle = new Vehicle();
+        for (int i = 0; i < fields.size(); i++) {
+            String value = fields.get(i);
+            if (value.isEmpty()) {
+                continue;
+            }
+            switch (columns.get(i)) {
+                case "vin" -> vehicle.setVin(value);
+                case "manufacturerName" -> vehicle.setManufacturerName(value);
+                case "description" -> vehicle.setDescription(value);
+                case "horsePower" -> vehicle.setHorsePower(parseInt("horsePower", value));
+                case "modelName" -> vehicle.setModelName(value);
+                case "modelYear" -> vehicle.setModelYear(parseInt("modelYear", value));
+                case "purchasePrice" -> vehicle.setPurchasePrice(parseDecimal(value));
+                case "fuelType" -> vehicle.setFuelType(value);
+                case "color" -> vehicle.setColor(value);
+                case "category" -> vehicle.setCategory(value);
+                default -> {
+                    // Not a writable vehicle property
+                }
+            }
+        }
+        return vehicle;
+    }
+
+    private static int parseInt(String column, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + ": not a number");
+        }
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("purchasePrice: not a number");
+        }
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,30 @@
+package com.apollo.vehicle.ingest;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The supported feed file formats, recognised by file extension
+ */
+public enum FeedFormat {
+    /** A header row of Vehicle property names, then one vehicle per line */
+    CSV,
+    /** One JSON vehicle per line */
+    NDJSON;
+
+    /**
+     * @param file the feed file
+     * @return the format of the file
+     * @throws IllegalArgumentException if the extension is not .csv, .ndjson or .jsonl
+     */
+    public static FeedFormat of(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        throw new IllegalArgumentException("Feed file must end with .csv, .ndjson or .jsonl");
+    }
+}
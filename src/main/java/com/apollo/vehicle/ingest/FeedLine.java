@@ -0,0 +1,10 @@
+package com.apollo.vehicle.ingest;
+
+/**
+ * One line of a feed file
+ * @param number the 1-based line number in the file
+ * @param endOffset the byte offset just past the line's terminator, where the next line starts
+ * @param text the line without its terminator
+ */
+public record FeedLine(long number, long endOffset, String text) {
+}
@@ -0,0 +1,109 @@
+package com.apollo.vehicle.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a UTF-8 feed file line by line through a {@link FileChannel}, tracking the byte offset of every line so a
+ * read can be resumed exactly where a previous one stopped. Lines end with \n or \r\n.
+ */
+public class FeedReader implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer;
+
+    private byte[] line = new byte[1024];
+
+    private int lineLength;
+
+    // Byte offset in the file of the next byte to be consumed from the buffer
+    private long offset;
+
+    private long lineNumber;
+
+    public FeedReader(Path file) throws IOException {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    FeedReader(Path file, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer = ByteBuffer.allocate(bufferSize).flip();
+    }
+
+    /**
+     * @return the size of the file in bytes
+     */
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Continues reading from a line boundary recorded by an earlier read
+     * @param lineEndOffset the {@link FeedLine#endOffset()} of the last line already processed
+     * @param lineNumber the number of that line
+     */
+    public void seek(long lineEndOffset, long lineNumber) throws IOException {
+        channel.position(lineEndOffset);
+        buffer.clear().flip();
+        this.offset = lineEndOffset;
+        this.lineNumber = lineNumber;
+        this.lineLength = 0;
+    }
+
+    /**
+     * @return the next line, or null at the end of the file
+     */
+    public FeedLine next() throws IOException {
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read <= 0) {
+                    return lineLength > 0 ? emit() : null;
+                }
+            }
+            byte[] bytes = buffer.array();
+            int start = buffer.position();
+            int end = buffer.limit();
+            for (int i = start; i < end; i++) {
+                if (bytes[i] == '\n') {
+                    append(bytes, start, i - start);
+                    buffer.position(i + 1);
+                    offset += i + 1 - start;
+                    return emit();
+                }
+            }
+            append(bytes, start, end - start);
+            buffer.position(end);
+            offset += end - start;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void append(byte[] bytes, int from, int length) {
+        if (lineLength + length > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + length));
+        }
+        System.arraycopy(bytes, from, line, lineLength, length);
+        lineLength += length;
+    }
+
+    private FeedLine emit() {
+        int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+        lineLength = 0;
+        return new FeedLine(++lineNumber, offset, new String(line, 0, length, StandardCharsets.UTF_8));
+    }
+}
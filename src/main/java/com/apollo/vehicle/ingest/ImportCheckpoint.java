@@ -0,0 +1,62 @@
+package com.apollo.vehicle.ingest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * The position up to which an import has been committed to the database, stored next to the feed file so an
+ * interrupted import can resume from it
+ * @param offset the byte offset just past the last committed line
+ * @param lineNumber the number of the last committed line
+ * @param rejectsSize the size of the reject file at that point, so rejects written after it can be discarded
+ * @param imported the number of vehicles imported so far
+ * @param rejected the number of lines rejected so far
+ */
+public record ImportCheckpoint(long offset, long lineNumber, long rejectsSize, long imported, long rejected) {
+
+    public static final ImportCheckpoint START = new ImportCheckpoint(0, 0, 0, 0, 0);
+
+    /**
+     * @param file the checkpoint file
+     * @return the saved checkpoint, or {@link #START} if there is none
+     */
+    public static ImportCheckpoint read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return START;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return new ImportCheckpoint(
+                Long.parseLong(properties.getProperty("offset")),
+                Long.parseLong(properties.getProperty("lineNumber")),
+                Long.parseLong(properties.getProperty("rejectsSize")),
+                Long.parseLong(properties.getProperty("imported")),
+                Long.parseLong(properties.getProperty("rejected")));
+    }
+
+    /**
+     * Replaces the checkpoint file atomically, so a crash leaves either the old or the new checkpoint
+     * @param file the checkpoint file
+     */
+    public void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("offset", Long.toString(offset));
+        properties.setProperty("lineNumber", Long.toString(lineNumber));
+        properties.setProperty("rejectsSize", Long.toString(rejectsSize));
+        properties.setProperty("imported", Long.toString(imported));
+        properties.setProperty("rejected", Long.toString(rejected));
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,118 @@
+package com.apollo.vehicle.ingest;
+
+import com.apollo.vehicle.dto.ImportStatus;
+import io.micrometer.core.instrument.Counter;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The progress of one run of a file import. Written by the import pipeline and read by status requests.
+ */
+public class ImportJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final String id;
+
+    private final Path file;
+
+    private final Counter importedCounter;
+
+    private final Counter rejectedCounter;
+
+    private final Instant startedAt = Instant.now();
+
+    private volatile State state = State.RUNNING;
+
+    private volatile boolean cancelRequested;
+
+    private volatile String error;
+
+    private volatile Instant finishedAt;
+
+    private volatile long totalBytes;
+
+    private volatile long startOffset;
+
+    private volatile long startLines;
+
+    private volatile long linesRead;
+
+    private volatile ImportCheckpoint committed = ImportCheckpoint.START;
+
+    public ImportJob(String id, Path file, Counter importedCounter, Counter rejectedCounter) {
+        this.id = id;
+        this.file = file;
+        this.importedCounter = importedCounter;
+        this.rejectedCounter = rejectedCounter;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    void started(long totalBytes, ImportCheckpoint resumedFrom) {
+        this.totalBytes = totalBytes;
+        this.startOffset = resumedFrom.offset();
+        this.startLines = resumedFrom.lineNumber();
+        this.linesRead = resumedFrom.lineNumber();
+        this.committed = resumedFrom;
+    }
+
+    void read(long lineNumber) {
+        linesRead = lineNumber;
+    }
+
+    void committed(ImportCheckpoint checkpoint, long imported, long rejected) {
+        committed = checkpoint;
+        importedCounter.increment(imported);
+        rejectedCounter.increment(rejected);
+    }
+
+    void finished(Throwable failure) {
+        finishedAt = Instant.now();
+        if (failure != null) {
+            error = failure.getMessage();
+            state = State.FAILED;
+        } else {
+            state = cancelRequested ? State.CANCELLED : State.COMPLETED;
+        }
+    }
+
+    /**
+     * @return a snapshot of the progress, with throughput measured since this run started
+     */
+    public ImportStatus toStatus() {
+        ImportCheckpoint checkpoint = committed;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double seconds = Math.max(Duration.between(startedAt, end).toMillis(), 1) / 1000.0;
+        long lines = checkpoint.lineNumber() - startLines;
+        double megabytes = (checkpoint.offset() - startOffset) / (1024.0 * 1024.0);
+        double percent = totalBytes == 0 ? 100.0 : 100.0 * checkpoint.offset() / totalBytes;
+        return new ImportStatus(id, file.getFileName().toString(), state.name(), totalBytes, checkpoint.offset(),
+                percent, linesRead, checkpoint.imported(), checkpoint.rejected(), lines / seconds,
+                megabytes / seconds, error);
+    }
+}
@@ -0,0 +1,262 @@
+package com.apollo.vehicle.ingest;
+
+import com.apollo.vehicle.entity.Vehicle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Imports one feed file in three stages connected by a bounded queue:
+ * <ol>
+ *     <li>the calling thread reads lines through a {@link FeedReader} and cuts them into batches,</li>
+ *     <li>the parse executor parses and validates batches in parallel against the constraints on {@link Vehicle},</li>
+ *     <li>a writer thread takes the batches in file order, appends rejected lines to the reject file, upserts the
+ *     valid vehicles and then records a checkpoint.</li>
+ * </ol>
+ * The queue holds at most {@code queueCapacity} batches, so a slow database stalls the reader instead of letting
+ * parsed vehicles pile up in memory. Because writes are upserts, lines replayed after resuming from a checkpoint
+ * simply overwrite the same vehicles.
+ */
+public class ImportPipeline {
+    private static final long POLL_MILLIS = 100;
+
+    private final ImportJob job;
+
+    private final boolean resume;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final Consumer<List<Vehicle>> writer;
+
+    private final Executor parseExecutor;
+
+    private final int batchSize;
+
+    private final int queueCapacity;
+
+    private final Path checkpointFile;
+
+    private final Path rejectFile;
+
+    private volatile Throwable writeFailure;
+
+    private volatile boolean writerStopped;
+
+    /**
+     * @param job the job that tracks this import's progress
+     * @param resume whether to continue from the file's checkpoint instead of starting over
+     * @param writer upserts a batch of validated vehicles with unique VINs in one transaction
+     * @param parseExecutor the executor that parses and validates batches
+     * @param batchSize the number of lines per batch and per transaction
+     * @param queueCapacity the number of batches that may be parsed ahead of the writer
+     */
+    public ImportPipeline(ImportJob job, boolean resume, Validator validator, ObjectMapper objectMapper,
+                          Consumer<List<Vehicle>> writer, Executor parseExecutor, int batchSize, int queueCapacity) {
+        this.job = job;
+        this.resume = resume;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.writer = writer;
+        this.parseExecutor = parseExecutor;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.checkpointFile = siblingOf(job.getFile(), ".checkpoint");
+        this.rejectFile = siblingOf(job.getFile(), ".rejects");
+    }
+
+    private static Path siblingOf(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    /**
+     * Runs the import to completion, failure or cancellation, recording the outcome on the job
+     */
+    public void run() {
+        Throwable failure = null;
+        try {
+            importFile();
+        } catch (Exception e) {
+            failure = e;
+        }
+        if (failure == null && writeFailure != null) {
+            failure = writeFailure;
+        }
+        job.finished(failure);
+    }
+
+    private void importFile() throws IOException, InterruptedException {
+        ImportCheckpoint start = resume ? ImportCheckpoint.read(checkpointFile) : ImportCheckpoint.START;
+        if (!resume) {
+            Files.deleteIfExists(checkpointFile);
+        }
+
+        try (FeedReader reader = new FeedReader(job.getFile());
+             FileChannel rejects = FileChannel.open(rejectFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop rejects written after the checkpoint; their lines are about to be read again
+            rejects.truncate(start.rejectsSize());
+            rejects.position(start.rejectsSize());
+            job.started(reader.size(), start);
+
+            VehicleLineParser parser;
+            if (FeedFormat.of(job.getFile()) == FeedFormat.CSV) {
+                FeedLine header = reader.next();
+                if (header == null) {
+                    return;
+                }
+                parser = new CsvVehicleParser(header.text());
+            } else {
+                parser = new NdjsonVehicleParser(objectMapper);
+            }
+            if (start.offset() > 0) {
+                reader.seek(start.offset(), start.lineNumber());
+            }
+
+            BlockingQueue<CompletableFuture<ParsedBatch>> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Writer rejectWriter = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(rejects),
+                    StandardCharsets.UTF_8));
+            Thread writerThread = Thread.ofVirtual().name("import-" + job.getId() + "-writer")
+                    .start(() -> writeBatches(queue, rejects, rejectWriter, start));
+
+            boolean ended = false;
+            try {
+                List<FeedLine> lines = new ArrayList<>(batchSize);
+                FeedLine line;
+                while (!stopping() && (line = reader.next()) != null) {
+                    job.read(line.number());
+                    lines.add(line);
+                    if (lines.size() == batchSize) {
+                        enqueue(queue, parse(parser, lines));
+                        lines = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!lines.isEmpty() && !stopping()) {
+                    enqueue(queue, parse(parser, lines));
+                }
+                enqueue(queue, CompletableFuture.completedFuture(ParsedBatch.END));
+                ended = true;
+            } finally {
+                // A failed read never enqueues END, so wake the writer instead of leaving it blocked on the queue
+                if (!ended) {
+                    writerThread.interrupt();
+                }
+                writerThread.join();
+            }
+        }
+    }
+
+    private CompletableFuture<ParsedBatch> parse(VehicleLineParser parser, List<FeedLine> lines) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<Vehicle> valid = new ArrayList<>(lines.size());
+            List<String> rejects = new ArrayList<>();
+            for (FeedLine line : lines) {
+                if (line.text().isBlank()) {
+                    continue;
+                }
+                try {
+                    Vehicle vehicle = parser.parse(line.text());
+                    Set<ConstraintViolation<Vehicle>> violations = validator.validate(vehicle);
+                    if (violations.isEmpty()) {
+                        valid.add(vehicle);
+                    } else {
+                        rejects.add(reject(line, violations.stream()
+                                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                                .sorted()
+                                .collect(Collectors.joining("; "))));
+                    }
+                } catch (IllegalArgumentException e) {
+                    rejects.add(reject(line, e.getMessage()));
+                }
+            }
+            FeedLine last = lines.get(lines.size() - 1);
+            return new ParsedBatch(valid, rejects, last.endOffset(), last.number());
+        }, parseExecutor);
+    }
+
+    private void writeBatches(BlockingQueue<CompletableFuture<ParsedBatch>> queue, FileChannel rejects,
+                              Writer rejectWriter, ImportCheckpoint start) {
+        long imported = start.imported();
+        long rejected = start.rejected();
+        try {
+            while (true) {
+                ParsedBatch batch = queue.take().get();
+                if (batch == ParsedBatch.END || job.isCancelRequested()) {
+                    return;
+                }
+                // Later lines win when a VIN appears twice in one batch, as they would across batches
+                Map<String, Vehicle> byVin = new LinkedHashMap<>();
+                batch.valid().forEach(vehicle -> byVin.put(vehicle.getVin(), vehicle));
+                if (!byVin.isEmpty()) {
+                    writer.accept(new ArrayList<>(byVin.values()));
+                }
+                for (String reject : batch.rejects()) {
+                    rejectWriter.write(reject);
+                }
+                rejectWriter.flush();
+
+                imported += batch.valid().size();
+                rejected += batch.rejects().size();
+                ImportCheckpoint checkpoint = new ImportCheckpoint(batch.endOffset(), batch.endLine(),
+                        rejects.position(), imported, rejected);
+                checkpoint.write(checkpointFile);
+                job.committed(checkpoint, batch.valid().size(), batch.rejects().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeFailure = e;
+        } catch (ExecutionException e) {
+            writeFailure = e.getCause();
+        } catch (Exception e) {
+            writeFailure = e;
+        } finally {
+            writerStopped = true;
+        }
+    }
+
+    private void enqueue(BlockingQueue<CompletableFuture<ParsedBatch>> queue, CompletableFuture<ParsedBatch> batch)
+            throws InterruptedException {
+        // Blocks while the writer is behind, but gives up once the writer has stopped
+        while (!queue.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (writerStopped) {
+                return;
+            }
+        }
+    }
+
+    private boolean stopping() {
+        return job.isCancelRequested() || writeFailure != null;
+    }
+
+    private static String reject(FeedLine line, String reason) {
+        return line.number() + "\t" + reason.replace('\t', ' ').replace('\n', ' ') + "\t" + line.text() + "\n";
+    }
+
+    private record ParsedBatch(List<Vehicle> valid, List<String> rejects, long endOffset, long endLine) {
+        static final ParsedBatch END = new ParsedBatch(List.of(), List.of(), -1, -1);
+    }
+}
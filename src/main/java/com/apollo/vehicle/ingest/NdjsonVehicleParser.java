@@ -0,0 +1,27 @@
+package com.apollo.vehicle.ingest;
+
+import com.apollo.vehicle.entity.Vehicle;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Parses one JSON vehicle per line, as written by GET /vehicle/stream
+ */
+public class NdjsonVehicleParser implements VehicleLineParser {
+
+    private final ObjectReader reader;
+
+    public NdjsonVehicleParser(ObjectMapper objectMapper) {
+        this.reader = objectMapper.readerFor(Vehicle.class);
+    }
+
+    @Override
+    public Vehicle parse(String line) {
+        try {
+            return reader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.apollo.vehicle.ingest;
+
+import com.apollo.vehicle.entity.Vehicle;
+
+/**
+ * Turns one line of a feed into a vehicle. Implementations must be safe to call from several threads at once.
+ */
+public interface VehicleLineParser {
+
+    /**
+     * @param line the text of the line
+     * @return the vehicle described by the line, not yet validated
+     * @throws IllegalArgumentException if the line cannot be parsed
+     */
+    Vehicle parse(String line);
+}
@@ -0,0 +1,47 @@
+package com.apollo.vehicle.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many SQL statements each request issued as the vehicle.request.queries distribution, tagged with the
+ * HTTP method and the matched URI pattern. Async handlers such as the NDJSON stream, the exports and the change feed
+ * are not recorded: their statements run on executor threads, which the per-thread count cannot see.
+ */
+public class QueryCountInterceptor implements HandlerInterceptor {
+    private final QueryCountingStatementInspector inspector;
+
+    private final MeterRegistry meterRegistry;
+
+    public QueryCountInterceptor(QueryCountingStatementInspector inspector, MeterRegistry meterRegistry) {
+        this.inspector = inspector;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        inspector.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // The first dispatch of an async request never completes here; only the async re-dispatch does
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("vehicle.request.queries")
+                .description("SQL statements issued per request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", pattern == null ? "UNKNOWN" : pattern.toString())
+                .register(meterRegistry)
+                .record(inspector.getCount());
+    }
+}
@@ -0,0 +1,31 @@
+package com.apollo.vehicle.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, so the number of queries behind each request
+ * can be recorded. A request that issues more statements than expected points at N+1 loading or redundant SELECTs.
+ */
+public class QueryCountingStatementInspector implements StatementInspector {
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Starts a new count for the current thread
+     */
+    public void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * @return the number of statements prepared on the current thread since the last reset
+     */
+    public int getCount() {
+        return COUNT.get()[0];
+    }
+}
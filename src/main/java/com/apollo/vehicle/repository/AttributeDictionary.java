@@ -0,0 +1,267 @@
+package com.apollo.vehicle.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory, bidirectional dictionary of the values of the low-cardinality vehicle attributes, backed by the
+ * attribute_value table. The whole table is loaded once the application is ready, and extended when a write brings
+ * a new value. Decoding always returns the same String instance for a value, so loaded vehicles share their copies.
+ * <p>
+ * A value that is not found reloads its attribute once, in case another instance added it, and is then remembered as
+ * missing for {@value #MISS_TTL_SECONDS} seconds, so repeated lookups of unknown values (e.g. search filters) are
+ * answered from memory.
+ * <p>
+ * Lookups go straight to the JDBC connection rather than through the persistence context, because they run from
+ * JPA converters and entity callbacks while Hibernate is reading or flushing. A new value is inserted on the
+ * connection of the write that needs it, so a write never holds a second pool connection, and is only shared with
+ * other threads once that write commits.
+ */
+@Component
+public class AttributeDictionary {
+    public static final String MANUFACTURER_NAME = "manufacturerName";
+
+    public static final String FUEL_TYPE = "fuelType";
+
+    public static final String COLOR = "color";
+
+    public static final String CATEGORY = "category";
+
+    // Code used for a value that is not in the dictionary; it never matches a row
+    public static final int UNKNOWN_CODE = -1;
+
+    private static final List<String> ATTRIBUTES = List.of(MANUFACTURER_NAME, FUEL_TYPE, COLOR, CATEGORY);
+
+    private static final long MISS_TTL_SECONDS = 10;
+
+    private static final int MAX_MISSES = 10_000;
+
+    private static final String INSERT = "insert into attribute_value (attribute, name) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<String, Entries> dictionaries = new ConcurrentHashMap<>();
+
+    public AttributeDictionary(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Loads every attribute's entries in one query, before anything else reads vehicles at startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void preload() {
+        jdbcTemplate.query("select attribute, id, name from attribute_value", (RowCallbackHandler) row ->
+                dictionaries.computeIfAbsent(row.getString(1), key -> new Entries()).put(row.getInt(2),
+                        row.getString(3)));
+        // Attributes without values yet are loaded too, so their first lookup does not query again
+        ATTRIBUTES.forEach(attribute -> dictionaries.computeIfAbsent(attribute, key -> new Entries()));
+    }
+
+    /**
+     * Encodes a value for a query. Never adds to the dictionary, so filtering on an unknown value is just a miss.
+     * @param attribute the attribute name
+     * @param value the value to encode
+     * @return the value's code, or {@link #UNKNOWN_CODE} if no vehicle has ever had the value
+     */
+    public int codeOf(String attribute, String value) {
+        Pending pending = pending(false);
+        Integer added = pending == null ? null : pending.codes.get(attribute + '\0' + value);
+        if (added != null) {
+            return added;
+        }
+        Entries entries = entries(attribute);
+        Integer code = entries.codes.get(value);
+        if (code == null && entries.misses.getIfPresent(value) == null) {
+            // Another instance may have added the value since we loaded the attribute
+            code = reload(attribute).codes.get(value);
+            if (code == null) {
+                entries.misses.put(value, Boolean.TRUE);
+            }
+        }
+        return code != null ? code : UNKNOWN_CODE;
+    }
+
+    /**
+     * Decodes a stored code
+     * @param attribute the attribute name
+     * @param code the stored code
+     * @return the shared instance of the value
+     * @throws IllegalStateException if the code is not in the dictionary
+     */
+    public String valueOf(String attribute, int code) {
+        Pending pending = pending(false);
+        String added = pending == null ? null : pending.values.get(attribute + '\0' + code);
+        if (added != null) {
+            return added;
+        }
+        String value = entries(attribute).values.get(code);
+        if (value == null) {
+            value = reload(attribute).values.get(code);
+        }
+        if (value == null) {
+            throw new IllegalStateException("Unknown " + attribute + " code " + code);
+        }
+        return value;
+    }
+
+    /**
+     * Makes sure a value about to be written has a code. A new value is inserted on the current transaction's
+     * connection, behind a savepoint so a concurrent insert of the same value does not abort the write, and other
+     * threads only see its code once the transaction commits. If the transaction rolls back, so does the value.
+     * @param attribute the attribute name
+     * @param value the value to be written, or null
+     */
+    public void register(String attribute, String value) {
+        if (value == null || codeOf(attribute, value) != UNKNOWN_CODE) {
+            return;
+        }
+        int code;
+        try {
+            code = insert(attribute, value);
+        } catch (DuplicateKeyException e) {
+            // Added concurrently by another request or instance, which has committed it
+            reload(attribute);
+            return;
+        }
+        Pending pending = pending(true);
+        if (pending != null) {
+            pending.put(attribute, code, value);
+        } else {
+            // Not in a transaction, so the insert has already committed
+            entries(attribute).put(code, value);
+        }
+    }
+
+    private int insert(String attribute, String value) {
+        return Objects.requireNonNull(jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, new String[]{"id"})) {
+                statement.setString(1, attribute);
+                statement.setString(2, value);
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    keys.next();
+                    return keys.getInt(1);
+                }
+            } catch (SQLException e) {
+                if (savepoint != null) {
+                    connection.rollback(savepoint);
+                }
+                throw e;
+            }
+        }));
+    }
+
+    /**
+     * @param create whether to start tracking the values added by the current transaction
+     * @return the values added by the current transaction, or null if there is none or it has added nothing
+     */
+    private Pending pending(boolean create) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+        if (pending == null && create) {
+            pending = new Pending();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private Entries entries(String attribute) {
+        Entries entries = dictionaries.get(attribute);
+        return entries != null ? entries : reload(attribute);
+    }
+
+    private Entries reload(String attribute) {
+        Entries entries = dictionaries.computeIfAbsent(attribute, key -> new Entries());
+        // The query sees what the current transaction has added, which must not be shared before it commits
+        Pending pending = pending(false);
+        jdbcTemplate.query("select id, name from attribute_value where attribute = ?", (RowCallbackHandler) row -> {
+            int code = row.getInt(1);
+            if (pending == null || !pending.values.containsKey(attribute + '\0' + code)) {
+                entries.put(code, row.getString(2));
+            }
+        }, attribute);
+        return entries;
+    }
+
+    /**
+     * Values the current transaction has added, keyed by attribute and value or code, shared once it commits
+     */
+    private final class Pending implements TransactionSynchronization {
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        private final Map<String, String> values = new HashMap<>();
+
+        private final List<Added> added = new ArrayList<>();
+
+        void put(String attribute, int code, String value) {
+            codes.put(attribute + '\0' + value, code);
+            values.put(attribute + '\0' + code, value);
+            added.add(new Added(attribute, code, value));
+        }
+
+        @Override
+        public void afterCommit() {
+            // No query here: the finished transaction is still bound to the thread
+            for (Added entry : added) {
+                dictionaries.computeIfAbsent(entry.attribute(), key -> new Entries()).put(entry.code(), entry.value());
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(AttributeDictionary.this);
+        }
+    }
+
+    private record Added(String attribute, int code, String value) {
+    }
+
+    private static final class Entries {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+        private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+        // Values recently looked up and not found
+        private final Cache<String, Boolean> misses = Caffeine.newBuilder()
+                .maximumSize(MAX_MISSES)
+                .expireAfterWrite(Duration.ofSeconds(MISS_TTL_SECONDS))
+                .build();
+
+        void put(int code, String value) {
+            // Keep the first instance of a value so every vehicle shares it
+            String shared = values.computeIfAbsent(code, key -> value);
+            codes.putIfAbsent(shared, code);
+            misses.invalidate(shared);
+        }
+    }
+}
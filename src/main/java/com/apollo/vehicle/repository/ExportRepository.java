@@ -0,0 +1,44 @@
+package com.apollo.vehicle.repository;
+
+import com.apollo.vehicle.export.ExportTable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Reads whole tables for export with plain JDBC, bypassing the persistence context
+ */
+@Repository
+public class ExportRepository {
+    // Rows the driver fetches per round trip; large enough to amortize latency, small enough to bound memory
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Passes every row of a table after the starting VIN to the handler, in VIN order, as the driver reads them
+     * through a forward-only, read-only cursor. Must run inside a transaction so drivers such as PostgreSQL stream
+     * instead of buffering the whole result.
+     * @param table the table to read
+     * @param fromVin the VIN to start from (an empty string for the whole table)
+     * @param inclusive whether the row with the starting VIN itself is included
+     * @param handler the handler receiving each row
+     */
+    public void streamRows(ExportTable table, String fromVin, boolean inclusive, RowCallbackHandler handler) {
+        String sql = table.selectSql(inclusive);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setString(1, fromVin);
+            return statement;
+        }, handler);
+    }
+}
@@ -1,8 +1,25 @@
 package com.apollo.vehicle.repository;
 
 import com.apollo.vehicle.entity.SoldVehicle;
-import com.apollo.vehicle.entity.Vehicle;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
+@Repository
 public interface SoldVehicleRepository extends JpaRepository<SoldVehicle, String> {
+
+    /**
+     * Finds VINs that are recorded as sold but are still in the vehicle inventory. Runs as a single semi-join on the
+     * two primary keys, seeking past the given VIN so results can be paged without OFFSET.
+     * @param vin the last VIN of the previous page (an empty string for the first page)
+     * @param limit the maximum number of VINs to return
+     * @return the VINs present in both tables, ordered by VIN
+     */
+    @Query("select s.vin from SoldVehicle s where s.vin > :vin "
+            + "and exists (select v.vin from Vehicle v where v.vin = s.vin) order by s.vin")
+    List<String> findVinsStillInInventory(@Param("vin") String vin, Limit limit);
 }
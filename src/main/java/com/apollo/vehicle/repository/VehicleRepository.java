@@ -1,9 +1,83 @@
 package com.apollo.vehicle.repository;
 
+import com.apollo.vehicle.dto.VehicleFacts;
 import com.apollo.vehicle.entity.Vehicle;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface VehicleRepository extends JpaRepository<Vehicle, String> {
+public interface VehicleRepository extends JpaRepository<Vehicle, String>, JpaSpecificationExecutor<Vehicle>,
+        VehicleRepositoryCustom {
+
+    /**
+     * Keyset query for the next page of vehicles after the given VIN, using the primary key index instead of OFFSET
+     * @param vin the last VIN of the previous page (an empty string for the first page)
+     * @param limit the maximum number of vehicles to return
+     * @return the vehicles ordered by VIN
+     */
+    List<Vehicle> findByVinGreaterThanOrderByVinAsc(String vin, Limit limit);
+
+    /**
+     * Streams every vehicle ordered by VIN with a forward-only cursor. Must be consumed inside a transaction
+     * and closed afterwards.
+     * @return a stream over all vehicles
+     */
+    @Query("select v from Vehicle v order by v.vin")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Vehicle> streamAllByOrderByVin();
+
+    /**
+     * Keyset query for the next page of VINs after the given VIN, reading only the primary key index
+     * @param vin the last VIN of the previous page (an empty string for the first page)
+     * @param limit the maximum number of VINs to return
+     * @return the VINs in order
+     */
+    @Query("select v.vin from Vehicle v where v.vin > :vin order by v.vin")
+    List<String> findVinsAfter(@Param("vin") String vin, Limit limit);
+
+    /**
+     * Set-based existence check for many VINs in a single query
+     * @param vins the VINs to check
+     * @return the subset of the VINs that already exist
+     */
+    @Query("select v.vin from Vehicle v where v.vin in :vins")
+    List<String> findExistingVins(@Param("vins") Collection<String> vins);
+
+    /**
+     * Reads only the aggregated fields and the version of a vehicle
+     * @param vin the VIN of the vehicle
+     * @return the vehicle's facts, if found
+     */
+    @Query("select new com.apollo.vehicle.dto.VehicleFacts(v.manufacturerName, v.category, v.fuelType, v.modelYear,"
+            + " v.purchasePrice, v.horsePower, v.version) from Vehicle v where v.vin = :vin")
+    Optional<VehicleFacts> findFactsByVin(@Param("vin") String vin);
+
+    /**
+     * Deletes a vehicle with a single DELETE statement, without loading it, if it is still at the given version
+     * @param vin the VIN of the vehicle to delete
+     * @param version the version the vehicle was read at
+     * @return the number of rows deleted (0 if the VIN does not exist or the vehicle has been modified since)
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Vehicle v where v.vin = :vin and v.version = :version")
+    int deleteByVinAndVersion(@Param("vin") String vin, @Param("version") Long version);
+
 }
@@ -0,0 +1,67 @@
+package com.apollo.vehicle.repository;
+
+import com.apollo.vehicle.dto.GroupAggregate;
+import com.apollo.vehicle.dto.VehicleFacts;
+import com.apollo.vehicle.dto.VehicleField;
+import com.apollo.vehicle.dto.VehiclePatch;
+import com.apollo.vehicle.entity.Vehicle;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vehicle queries that are built dynamically with the Criteria API rather than derived by Spring Data
+ */
+public interface VehicleRepositoryCustom {
+
+    /**
+     * Applies a sparse update as a single UPDATE statement that sets only the fields present in the patch and bumps
+     * the version. No entity is loaded. Must run inside a transaction.
+     * @param vin the VIN of the vehicle to update
+     * @param patch the fields to set
+     * @param expectedVersion if not null, the update only applies when the row is at this version
+     * @return the number of rows updated (0 if the VIN does not exist or the version did not match)
+     */
+    int patch(String vin, VehiclePatch patch, Long expectedVersion);
+
+    /**
+     * Deletes vehicles with a single DELETE statement in its own transaction that also returns the aggregated fields
+     * of the rows it deleted (RETURNING on PostgreSQL, OLD TABLE on H2), so nothing has to be read beforehand and
+     * VINs that did not exist, or were deleted concurrently, are simply absent from the result
+     * @param vins the VINs of the vehicles to delete
+     * @return the facts of each vehicle that was deleted, by VIN
+     */
+    Map<String, VehicleFacts> deleteReturningFacts(Collection<String> vins);
+
+    /**
+     * Selects only the VINs of the first vehicles matching a specification, in VIN order
+     * @param spec the filter to apply
+     * @param limit the maximum number of VINs to return
+     * @return the matching VINs
+     */
+    List<String> findVins(Specification<Vehicle> spec, int limit);
+
+    /**
+     * Selects only the requested columns of the vehicles matching a specification. The rows are read as tuples of
+     * scalars, so no entity is instantiated, managed by the persistence context or snapshotted for dirty checking.
+     * Joins the current transaction, or runs in a read-only one of its own.
+     * @param spec the filter to apply, or null for every vehicle
+     * @param fields the columns to select
+     * @param pageable the rows to return and their order; unpaged for every matching row
+     * @return the values of the requested fields of each vehicle by attribute name, in field order
+     */
+    List<Map<String, Object>> findFields(Specification<Vehicle> spec, Set<VehicleField> fields, Pageable pageable);
+
+    /**
+     * Computes the count and purchase price / horse power statistics of vehicles grouped by an attribute, with a
+     * single GROUP BY query
+     * @param attribute the attribute to group by
+     * @param value if not null, only the group with this value is computed
+     * @return one aggregate per group
+     */
+    List<GroupAggregate> aggregateBy(String attribute, Object value);
+}
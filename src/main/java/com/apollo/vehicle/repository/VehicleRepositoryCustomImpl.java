@@ -0,0 +1,194 @@
+package com.apollo.vehicle.repository;
+
+import com.apollo.vehicle.dto.GroupAggregate;
+import com.apollo.vehicle.dto.VehicleFacts;
+import com.apollo.vehicle.dto.VehicleField;
+import com.apollo.vehicle.dto.VehiclePatch;
+import com.apollo.vehicle.entity.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class VehicleRepositoryCustomImpl implements VehicleRepositoryCustom {
+
+    private static final String RETURNED_COLUMNS =
+            "vin, manufacturer_code, category_code, fuel_type_code, model_year, purchase_price, horse_power, version";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AttributeDictionary attributeDictionary;
+
+    VehicleRepositoryCustomImpl(AttributeDictionary attributeDictionary) {
+        this.attributeDictionary = attributeDictionary;
+    }
+
+    @Override
+    public int patch(String vin, VehiclePatch patch, Long expectedVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Vehicle> update = cb.createCriteriaUpdate(Vehicle.class);
+        Root<Vehicle> root = update.from(Vehicle.class);
+
+        // Bulk updates skip entity callbacks, so make sure new dictionary values have codes before converting them
+        attributeDictionary.register(AttributeDictionary.MANUFACTURER_NAME, patch.manufacturerName());
+        attributeDictionary.register(AttributeDictionary.FUEL_TYPE, patch.fuelType());
+        attributeDictionary.register(AttributeDictionary.COLOR, patch.color());
+        attributeDictionary.register(AttributeDictionary.CATEGORY, patch.category());
+
+        setIfPresent(update, root, "manufacturerName", patch.manufacturerName());
+        setIfPresent(update, root, "description", patch.description());
+        setIfPresent(update, root, "horsePower", patch.horsePower());
+        setIfPresent(update, root, "modelName", patch.modelName());
+        setIfPresent(update, root, "modelYear", patch.modelYear());
+        setIfPresent(update, root, "purchasePrice", patch.purchasePrice());
+        setIfPresent(update, root, "fuelType", patch.fuelType());
+        setIfPresent(update, root, "color", patch.color());
+        setIfPresent(update, root, "category", patch.category());
+
+        // Bulk updates bypass Hibernate's versioning, so bump the optimistic lock version explicitly
+        Path<Long> version = root.get("version");
+        update.set(version, cb.sum(version, 1L));
+
+        Predicate where = cb.equal(root.get("vin"), vin);
+        if (expectedVersion != null) {
+            where = cb.and(where, cb.equal(version, expectedVersion));
+        }
+        update.where(where);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public Map<String, VehicleFacts> deleteReturningFacts(Collection<String> vins) {
+        if (vins.isEmpty()) {
+            return Map.of();
+        }
+        Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+        String sql;
+        if (dialect instanceof PostgreSQLDialect) {
+            sql = "delete from vehicle where vin in (:vins) returning " + RETURNED_COLUMNS;
+        } else if (dialect instanceof H2Dialect) {
+            sql = "select " + RETURNED_COLUMNS + " from old table (delete from vehicle where vin in (:vins))";
+        } else {
+            throw new IllegalStateException("Deleting with returned rows is not supported on " + dialect);
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = entityManager.createNativeQuery(sql).setParameter("vins", vins).getResultList();
+        Map<String, VehicleFacts> deleted = HashMap.newHashMap(rows.size());
+        for (Object[] row : rows) {
+            deleted.put((String) row[0], new VehicleFacts(
+                    attributeDictionary.valueOf(AttributeDictionary.MANUFACTURER_NAME, ((Number) row[1]).intValue()),
+                    attributeDictionary.valueOf(AttributeDictionary.CATEGORY, ((Number) row[2]).intValue()),
+                    attributeDictionary.valueOf(AttributeDictionary.FUEL_TYPE, ((Number) row[3]).intValue()),
+                    ((Number) row[4]).intValue(), (BigDecimal) row[5], ((Number) row[6]).intValue(),
+                    ((Number) row[7]).longValue()));
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<String> findVins(Specification<Vehicle> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<String> query = cb.createQuery(String.class);
+        Root<Vehicle> root = query.from(Vehicle.class);
+        query.select(root.<String>get("vin")).orderBy(cb.asc(root.get("vin")));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> findFields(Specification<Vehicle> spec, Set<VehicleField> fields,
+                                                Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Vehicle> root = query.from(Vehicle.class);
+        List<VehicleField> selected = List.copyOf(fields);
+        List<Selection<?>> columns = new ArrayList<>(selected.size());
+        for (VehicleField field : selected) {
+            columns.add(root.get(field.attribute()));
+        }
+        query.multiselect(columns);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (pageable.getSort().isSorted()) {
+            // Otherwise keep any order set by the specification
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<Tuple> rows = typedQuery.getResultList();
+        List<Map<String, Object>> projections = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> projection = LinkedHashMap.newLinkedHashMap(selected.size());
+            for (int i = 0; i < selected.size(); i++) {
+                projection.put(selected.get(i).attribute(), row.get(i));
+            }
+            projections.add(projection);
+        }
+        return projections;
+    }
+
+    @Override
+    public List<GroupAggregate> aggregateBy(String attribute, Object value) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Vehicle> root = query.from(Vehicle.class);
+        Path<Object> key = root.get(attribute);
+        Path<BigDecimal> price = root.get("purchasePrice");
+        Path<Integer> horsePower = root.get("horsePower");
+        query.multiselect(key, cb.count(root), cb.sum(price), cb.min(price), cb.max(price),
+                cb.sumAsLong(horsePower), cb.min(horsePower), cb.max(horsePower));
+        if (value != null) {
+            query.where(cb.equal(key, value));
+        }
+        query.groupBy(key);
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(row -> GroupAggregate.of(row.get(0), row.get(1, Long.class),
+                        row.get(2, BigDecimal.class), row.get(3, BigDecimal.class), row.get(4, BigDecimal.class),
+                        row.get(5, Long.class), row.get(6, Integer.class), row.get(7, Integer.class)))
+                .toList();
+    }
+
+    private static <Y> void setIfPresent(CriteriaUpdate<Vehicle> update, Root<Vehicle> root, String attribute, Y value) {
+        if (value != null) {
+            update.set(root.<Y>get(attribute), value);
+        }
+    }
+}
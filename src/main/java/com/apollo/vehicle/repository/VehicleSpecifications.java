@@ -0,0 +1,119 @@
+package com.apollo.vehicle.repository;
+
+import com.apollo.vehicle.dto.VehicleSearchCriteria;
+import com.apollo.vehicle.entity.AttributeValue;
+import com.apollo.vehicle.entity.Vehicle;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import org.hibernate.query.criteria.JpaEntityJoin;
+import org.hibernate.query.criteria.JpaRoot;
+import org.hibernate.query.sqm.tree.SqmJoinType;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Criteria building blocks for vehicle queries. Every filter is an equality or range predicate on a bare column
+ * so it can be answered by the composite indexes declared on {@link Vehicle}.
+ */
+public final class VehicleSpecifications {
+
+    // Attributes stored as attribute_value codes, which are in insertion order rather than alphabetical order
+    private static final Set<String> DICTIONARY_ATTRIBUTES = Set.of(AttributeDictionary.MANUFACTURER_NAME,
+            AttributeDictionary.FUEL_TYPE, AttributeDictionary.COLOR, AttributeDictionary.CATEGORY);
+
+    private VehicleSpecifications() {
+    }
+
+    /**
+     * Combines every filter that is set on the search criteria
+     * @param criteria the search criteria
+     * @return a specification matching all of the set filters
+     */
+    public static Specification<Vehicle> matching(VehicleSearchCriteria criteria) {
+        return Specification.allOf(
+                attributeEquals("manufacturerName", criteria.manufacturerName()),
+                attributeEquals("category", criteria.category()),
+                attributeEquals("fuelType", criteria.fuelType()),
+                attributeEquals("color", criteria.color()),
+                modelYearBetween(criteria.minModelYear(), criteria.maxModelYear()),
+                purchasePriceBetween(criteria.minPrice(), criteria.maxPrice())
+        );
+    }
+
+    public static Specification<Vehicle> vinEquals(String vin) {
+        return (root, query, cb) -> cb.equal(root.get("vin"), vin);
+    }
+
+    public static Specification<Vehicle> vinAfter(String vin) {
+        return (root, query, cb) -> cb.greaterThan(root.get("vin"), vin);
+    }
+
+    public static Specification<Vehicle> attributeEquals(String attribute, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
+    }
+
+    public static Specification<Vehicle> modelYearBetween(Integer min, Integer max) {
+        return range("modelYear", min, max);
+    }
+
+    public static Specification<Vehicle> modelYearBefore(Integer year) {
+        if (year == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThan(root.get("modelYear"), year);
+    }
+
+    public static Specification<Vehicle> purchasePriceBetween(BigDecimal min, BigDecimal max) {
+        return range("purchasePrice", min, max);
+    }
+
+    /**
+     * Orders the selected vehicles. Dictionary-encoded attributes are sorted by name, through a join on
+     * attribute_value, rather than by their stored codes. Count queries are left unordered.
+     * @param sort the sort order
+     * @return a specification that only orders the query
+     */
+    public static Specification<Vehicle> orderedBy(Sort sort) {
+        return (root, query, cb) -> {
+            if (sort.isUnsorted() || Long.class.equals(query.getResultType())) {
+                return null;
+            }
+            List<Order> orders = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                Expression<?> key = root.get(order.getProperty());
+                if (DICTIONARY_ATTRIBUTES.contains(order.getProperty())) {
+                    JpaEntityJoin<AttributeValue> value = ((JpaRoot<Vehicle>) root)
+                            .join(AttributeValue.class, SqmJoinType.LEFT);
+                    value.on(cb.equal(value.get("id"), key.as(Integer.class)));
+                    key = value.get("name");
+                }
+                orders.add(order.isAscending() ? cb.asc(key) : cb.desc(key));
+            }
+            query.orderBy(orders);
+            return null;
+        };
+    }
+
+    private static <Y extends Comparable<? super Y>> Specification<Vehicle> range(String attribute, Y min, Y max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (min == null) {
+                return cb.lessThanOrEqualTo(root.get(attribute), max);
+            }
+            if (max == null) {
+                return cb.greaterThanOrEqualTo(root.get(attribute), min);
+            }
+            return cb.between(root.get(attribute), min, max);
+        };
+    }
+}
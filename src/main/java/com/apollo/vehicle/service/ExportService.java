@@ -0,0 +1,48 @@
+package com.apollo.vehicle.service;
+
+import com.apollo.vehicle.config.ReadFromReplica;
+import com.apollo.vehicle.export.ExportFormat;
+import com.apollo.vehicle.export.ExportTable;
+import com.apollo.vehicle.export.RowWriter;
+import com.apollo.vehicle.repository.ExportRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+@Service
+public class ExportService {
+
+    private final ExportRepository exportRepository;
+
+    public ExportService(ExportRepository exportRepository) {
+        this.exportRepository = exportRepository;
+    }
+
+    /**
+     * Streams a table to the output in VIN order, encoding each row as it is read from the database. No entities
+     * are created and nothing is held in memory beyond the driver's fetch buffer.
+     * @param table the table to export
+     * @param format the file format to write
+     * @param fromVin the VIN to resume from, or null for the whole table
+     * @param inclusive whether the row with the starting VIN itself is included
+     * @param gzip whether to gzip-compress a CSV export
+     * @param out the stream to write to
+     */
+    @ReadFromReplica
+    @Transactional(readOnly = true)
+    public void export(ExportTable table, ExportFormat format, String fromVin, boolean inclusive, boolean gzip,
+                       OutputStream out) throws IOException {
+        RowWriter writer = format.open(table, out, gzip);
+        exportRepository.streamRows(table, fromVin == null ? "" : fromVin, inclusive, row -> {
+            try {
+                writer.writeRow(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.finish();
+    }
+}
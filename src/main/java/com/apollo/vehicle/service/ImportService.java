@@ -0,0 +1,144 @@
+package com.apollo.vehicle.service;
+
+import com.apollo.vehicle.dto.ImportRequest;
+import com.apollo.vehicle.dto.ImportStatus;
+import com.apollo.vehicle.ingest.FeedFormat;
+import com.apollo.vehicle.ingest.ImportJob;
+import com.apollo.vehicle.ingest.ImportPipeline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+public class ImportService {
+    // Lines per batch; each batch is validated as a unit and upserted in one transaction
+    private static final int BATCH_SIZE = 500;
+
+    private final VehicleService vehicleService;
+
+    private final Validator validator;
+
+    private final ObjectMapper objectMapper;
+
+    private final Path importDirectory;
+
+    private final int queueCapacity;
+
+    private final ExecutorService parseExecutor;
+
+    private final Counter importedCounter;
+
+    private final Counter rejectedCounter;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public ImportService(VehicleService vehicleService, Validator validator, ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${vehicle.import.directory:imports}") String importDirectory,
+                         @Value("${vehicle.import.parse-threads:0}") int parseThreads) {
+        this.vehicleService = vehicleService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.importDirectory = Path.of(importDirectory).toAbsolutePath().normalize();
+        int threads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        // Parsing and validation are CPU bound, so they get a fixed pool; two batches per thread keeps it busy
+        this.parseExecutor = Executors.newFixedThreadPool(threads);
+        this.queueCapacity = threads * 2;
+        this.importedCounter = Counter.builder("vehicle.import.rows").tag("outcome", "imported")
+                .description("Feed lines imported").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("vehicle.import.rows").tag("outcome", "rejected")
+                .description("Feed lines written to the reject file").register(meterRegistry);
+    }
+
+    /**
+     * Starts importing a feed file in the background. Lines are upserted in batches, invalid lines go to
+     * &lt;file&gt;.rejects and the last committed position is kept in &lt;file&gt;.checkpoint.
+     * @param request the file, relative to vehicle.import.directory, and whether to resume from its checkpoint
+     * @return the status of the new import
+     * @throws IllegalArgumentException if the file is outside the import directory, missing, of an unsupported
+     * format or already being imported
+     */
+    public ImportStatus startImport(ImportRequest request) {
+        if (request.file() == null || request.file().isBlank()) {
+            throw new IllegalArgumentException("file is required");
+        }
+        Path file = importDirectory.resolve(request.file()).normalize();
+        if (!file.startsWith(importDirectory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Feed file " + request.file() + " not found");
+        }
+        FeedFormat.of(file);
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file, importedCounter, rejectedCounter);
+        synchronized (jobs) {
+            boolean running = jobs.values().stream()
+                    .anyMatch(other -> other.getFile().equals(file) && other.getState() == ImportJob.State.RUNNING);
+            if (running) {
+                throw new IllegalArgumentException("Feed file " + request.file() + " is already being imported");
+            }
+            jobs.put(job.getId(), job);
+        }
+        ImportPipeline pipeline = new ImportPipeline(job, request.resume(), validator, objectMapper,
+                vehicleService::importVehicles, parseExecutor, BATCH_SIZE, queueCapacity);
+        Thread.ofVirtual().name("import-" + job.getId() + "-reader").start(pipeline::run);
+        return job.toStatus();
+    }
+
+    /**
+     * @param id the id of an import
+     * @return the progress and throughput of the import
+     * @throws IllegalArgumentException if there is no import with the id
+     */
+    public ImportStatus getImport(String id) {
+        return findJob(id).toStatus();
+    }
+
+    /**
+     * @return the progress of every import since startup, most recent first
+     */
+    public List<ImportStatus> getImports() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(ImportJob::getStartedAt).reversed())
+                .map(ImportJob::toStatus)
+                .toList();
+    }
+
+    /**
+     * Stops an import after the batch being written; it can be resumed later from its checkpoint
+     * @param id the id of an import
+     * @return the status of the import
+     * @throws IllegalArgumentException if there is no import with the id
+     */
+    public ImportStatus cancelImport(String id) {
+        ImportJob job = findJob(id);
+        job.cancel();
+        return job.toStatus();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobs.values().forEach(ImportJob::cancel);
+        parseExecutor.shutdown();
+    }
+
+    private ImportJob findJob(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new IllegalArgumentException("Import " + id + " not found");
+        }
+        return job;
+    }
+}
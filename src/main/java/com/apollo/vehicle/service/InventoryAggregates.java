@@ -0,0 +1,287 @@
+package com.apollo.vehicle.service;
+
+import com.apollo.vehicle.dto.AggregateDimension;
+import com.apollo.vehicle.dto.GroupAggregate;
+import com.apollo.vehicle.dto.VehicleFacts;
+import com.apollo.vehicle.dto.VehiclePatch;
+import com.apollo.vehicle.repository.VehicleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory count, sum, min and max of purchase price and horse power per manufacturer, category, fuel type and
+ * model year. Built from one GROUP BY query per dimension at startup, then kept current by applying each committed
+ * write, so reading the aggregates costs O(groups) rather than O(rows).
+ * <p>
+ * Sums and counts are maintained exactly. Removing the vehicle that holds a group's min or max leaves the bound
+ * unknown, so the group is marked stale and recomputed with a single-group query the next time it is read.
+ * A patch is applied without reading the vehicle first, so the group it left is unknown: the dimensions it can
+ * affect are marked dirty instead and regrouped by a background task, which coalesces the patches that commit
+ * while it runs. Rebuilds run under a lock rather than a monitor so they do not pin virtual threads.
+ * <p>
+ * A full rebuild that races with a write committing at the same moment can miss or double count that write, so the
+ * rollups are also rebuilt every vehicle.aggregates.rebuild-interval.
+ */
+@Component
+public class InventoryAggregates {
+
+    private final VehicleRepository vehicleRepository;
+
+    private final Map<AggregateDimension, ConcurrentHashMap<Object, Rollup>> rollups =
+            new EnumMap<>(AggregateDimension.class);
+
+    private final Executor executor;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // Dimensions whose rollups a patch has invalidated, waiting for the background regroup
+    private final Set<AggregateDimension> dirty = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean regroupScheduled = new AtomicBoolean();
+
+    private volatile boolean built;
+
+    @Autowired
+    public InventoryAggregates(VehicleRepository vehicleRepository) {
+        this(vehicleRepository, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    InventoryAggregates(VehicleRepository vehicleRepository, Executor executor) {
+        this.vehicleRepository = vehicleRepository;
+        this.executor = executor;
+        for (AggregateDimension dimension : AggregateDimension.values()) {
+            rollups.put(dimension, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Retrieves the aggregates of every group in a dimension, ordered by group key
+     * @param dimension the attribute the vehicles are grouped by
+     * @return one aggregate per group
+     */
+    public List<GroupAggregate> getAggregates(AggregateDimension dimension) {
+        if (!built) {
+            build();
+        }
+        ConcurrentHashMap<Object, Rollup> groups = rollups.get(dimension);
+        List<GroupAggregate> result = new ArrayList<>(groups.size());
+        groups.forEach((key, rollup) -> {
+            GroupAggregate aggregate = rollup.stale() ? refresh(dimension, key, rollup) : rollup.toAggregate(key);
+            if (aggregate != null) {
+                result.add(aggregate);
+            }
+        });
+        result.sort(Comparator.comparing(GroupAggregate::key, InventoryAggregates::compareKeys));
+        return result;
+    }
+
+    /**
+     * Applies a write to the rollups once the surrounding transaction commits, or immediately if there is none
+     * @param removed the facts of vehicles as they were before the write (deleted or updated vehicles)
+     * @param added the facts of vehicles as they are after the write (created or updated vehicles)
+     */
+    public void record(Collection<VehicleFacts> removed, Collection<VehicleFacts> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> apply(removed, added));
+    }
+
+    /**
+     * Marks the dimensions a patch can affect dirty once the surrounding transaction commits, or immediately if
+     * there is none, and schedules a background regroup of them. Until it finishes, those dimensions do not
+     * reflect the patch.
+     * @param patch the partial update that was applied without reading the vehicle
+     */
+    public void invalidate(VehiclePatch patch) {
+        Set<AggregateDimension> dimensions = EnumSet.noneOf(AggregateDimension.class);
+        for (AggregateDimension dimension : AggregateDimension.values()) {
+            if (dimension.changedBy(patch)) {
+                dimensions.add(dimension);
+            }
+        }
+        if (dimensions.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            dirty.addAll(dimensions);
+            if (regroupScheduled.compareAndSet(false, true)) {
+                executor.execute(this::regroup);
+            }
+        });
+    }
+
+    /**
+     * Recomputes every rollup from the database with one GROUP BY query per dimension
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${vehicle.aggregates.rebuild-interval:PT15M}",
+            initialDelayString = "${vehicle.aggregates.rebuild-interval:PT15M}")
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            rebuild(EnumSet.allOf(AggregateDimension.class));
+            built = true;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void build() {
+        rebuildLock.lock();
+        try {
+            // Requests that arrive before the startup build wait for it instead of each running their own
+            if (!built) {
+                rebuild(EnumSet.allOf(AggregateDimension.class));
+                built = true;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void regroup() {
+        // Cleared first, so a patch that commits after the dirty set is drained schedules another pass
+        regroupScheduled.set(false);
+        rebuildLock.lock();
+        try {
+            Set<AggregateDimension> dimensions = EnumSet.noneOf(AggregateDimension.class);
+            for (AggregateDimension dimension : AggregateDimension.values()) {
+                if (dirty.remove(dimension)) {
+                    dimensions.add(dimension);
+                }
+            }
+            try {
+                rebuild(dimensions);
+            } catch (RuntimeException e) {
+                // Left dirty for the next patch or the periodic rebuild to retry
+                dirty.addAll(dimensions);
+                throw e;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    // Callers hold rebuildLock
+    private void rebuild(Set<AggregateDimension> dimensions) {
+        for (AggregateDimension dimension : dimensions) {
+            dirty.remove(dimension);
+            Map<Object, Rollup> fresh = new ConcurrentHashMap<>();
+            for (GroupAggregate aggregate : vehicleRepository.aggregateBy(dimension.attribute(), null)) {
+                fresh.put(aggregate.key(), Rollup.of(aggregate));
+            }
+            ConcurrentHashMap<Object, Rollup> groups = rollups.get(dimension);
+            groups.keySet().retainAll(fresh.keySet());
+            groups.putAll(fresh);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void apply(Collection<VehicleFacts> removed, Collection<VehicleFacts> added) {
+        for (AggregateDimension dimension : AggregateDimension.values()) {
+            ConcurrentHashMap<Object, Rollup> groups = rollups.get(dimension);
+            for (VehicleFacts facts : removed) {
+                groups.computeIfPresent(dimension.keyOf(facts), (key, rollup) -> rollup.minus(facts));
+            }
+            for (VehicleFacts facts : added) {
+                groups.merge(dimension.keyOf(facts), Rollup.of(facts), Rollup::plus);
+            }
+        }
+    }
+
+    private GroupAggregate refresh(AggregateDimension dimension, Object key, Rollup stale) {
+        ConcurrentHashMap<Object, Rollup> groups = rollups.get(dimension);
+        List<GroupAggregate> rows = vehicleRepository.aggregateBy(dimension.attribute(), key);
+        if (rows.isEmpty()) {
+            groups.remove(key, stale);
+            return null;
+        }
+        // Only replace the stale rollup if no write has been applied to the group while the query ran
+        GroupAggregate aggregate = rows.get(0);
+        groups.replace(key, stale, Rollup.of(aggregate));
+        return aggregate;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareKeys(Object a, Object b) {
+        return ((Comparable) a).compareTo(b);
+    }
+
+    /**
+     * Immutable running totals of one group
+     */
+    private record Rollup(long count, BigDecimal priceSum, BigDecimal priceMin, BigDecimal priceMax,
+                          long horsePowerSum, int horsePowerMin, int horsePowerMax, boolean stale) {
+
+        static Rollup of(VehicleFacts facts) {
+            return new Rollup(1, facts.purchasePrice(), facts.purchasePrice(), facts.purchasePrice(),
+                    facts.horsePower(), facts.horsePower(), facts.horsePower(), false);
+        }
+
+        static Rollup of(GroupAggregate aggregate) {
+            return new Rollup(aggregate.count(), aggregate.purchasePriceSum(), aggregate.purchasePriceMin(),
+                    aggregate.purchasePriceMax(), aggregate.horsePowerSum(), aggregate.horsePowerMin(),
+                    aggregate.horsePowerMax(), false);
+        }
+
+        Rollup plus(Rollup other) {
+            return new Rollup(count + other.count, priceSum.add(other.priceSum),
+                    priceMin.min(other.priceMin), priceMax.max(other.priceMax),
+                    horsePowerSum + other.horsePowerSum, Math.min(horsePowerMin, other.horsePowerMin),
+                    Math.max(horsePowerMax, other.horsePowerMax), stale || other.stale);
+        }
+
+        /**
+         * @return the rollup without the vehicle, or null if it was the last one in the group
+         */
+        Rollup minus(VehicleFacts facts) {
+            if (count <= 1) {
+                return null;
+            }
+            BigDecimal price = facts.purchasePrice();
+            int horsePower = facts.horsePower();
+            boolean boundRemoved = price.compareTo(priceMin) == 0 || price.compareTo(priceMax) == 0
+                    || horsePower == horsePowerMin || horsePower == horsePowerMax;
+            return new Rollup(count - 1, priceSum.subtract(price), priceMin, priceMax,
+                    horsePowerSum - horsePower, horsePowerMin, horsePowerMax, stale || boundRemoved);
+        }
+
+        GroupAggregate toAggregate(Object key) {
+            return GroupAggregate.of(key, count, priceSum, priceMin, priceMax, horsePowerSum, horsePowerMin,
+                    horsePowerMax);
+        }
+    }
+}
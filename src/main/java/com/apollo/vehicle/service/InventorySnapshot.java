@@ -0,0 +1,535 @@
+package com.apollo.vehicle.service;
+
+import com.apollo.vehicle.dto.SnapshotStatistics;
+import com.apollo.vehicle.dto.VehicleSearchCriteria;
+import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.repository.VehicleRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Optional read model that keeps the whole inventory in memory, for read-heavy deployments
+ * (vehicle.snapshot.enabled=true). The vehicles are detached copies held in an immutable snapshot with a VIN index,
+ * exact-match indexes on manufacturer and category, and sorted indexes on model year and purchase price. Readers
+ * take the current snapshot from a volatile field and never lock.
+ * <p>
+ * The database stays the system of record. After each committed write the changed VINs are read back and a new
+ * snapshot is derived from the current one and swapped in; concurrent writers are coalesced into one update. An
+ * update copies the VIN map and merges the changes into the VIN-ordered array, and copies only the secondary index
+ * groups the changed vehicles leave or join, so a write costs a linear copy rather than a full re-sort.
+ * <p>
+ * Writes made through other instances are only picked up by the full reload, which runs at startup and every
+ * vehicle.snapshot.reload-interval.
+ */
+@Component
+public class InventorySnapshot {
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    // Rough heap sizes with compressed oops, used to report the memory use per vehicle
+    private static final long VEHICLE_BYTES = 64;
+    private static final long STRING_BYTES = 24;
+    private static final long ARRAY_HEADER_BYTES = 16;
+    private static final long BIG_DECIMAL_BYTES = 40;
+    private static final long LONG_BYTES = 16;
+    // A VIN map entry, the VIN-ordered array slot and one slot in each of the four secondary indexes
+    private static final long INDEX_BYTES = 64;
+
+    private static final Comparator<Vehicle> BY_VIN = Comparator.comparing(Vehicle::getVin);
+
+    private final VehicleRepository vehicleRepository;
+
+    // Reads changed vehicles back after a commit, when the finished transaction is still bound to the thread
+    private final TransactionTemplate readAfterCommit;
+
+    @Value("${vehicle.snapshot.enabled:false}")
+    private boolean enabled;
+
+    private final Set<String> pendingVins = new HashSet<>();
+
+    // Serializes loads and updates; a lock rather than synchronized so database reads do not pin virtual threads
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // Serializes full reloads, which read the table without holding the write lock
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    // VINs changed while a reload reads the table, re-read once it swaps in; null when no reload runs
+    private Set<String> changedDuringReload;
+
+    // Null until the first load, during which reads go to the database
+    private volatile Indexes indexes;
+
+    public InventorySnapshot(VehicleRepository vehicleRepository, MeterRegistry meterRegistry,
+                             PlatformTransactionManager transactionManager) {
+        this.vehicleRepository = vehicleRepository;
+        this.readAfterCommit = new TransactionTemplate(transactionManager);
+        this.readAfterCommit.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readAfterCommit.setReadOnly(true);
+        Gauge.builder("vehicle.snapshot.vehicles", this, snapshot -> snapshot.current().vin.size())
+                .description("Vehicles in the in-memory inventory snapshot").register(meterRegistry);
+        Gauge.builder("vehicle.snapshot.bytes", this, snapshot -> snapshot.current().estimatedBytes)
+                .description("Estimated heap used by the in-memory inventory snapshot").baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true if reads should be served from the snapshot
+     */
+    public boolean isReady() {
+        return enabled && indexes != null;
+    }
+
+    /**
+     * @return every vehicle ordered by VIN
+     */
+    public List<Vehicle> getAll() {
+        return current().ordered;
+    }
+
+    /**
+     * @param vin the VIN of the vehicle
+     * @return the vehicle, if it is in the inventory
+     */
+    public Optional<Vehicle> get(String vin) {
+        return Optional.ofNullable(current().vin.get(vin));
+    }
+
+    /**
+     * Answers a search from the most selective index that applies, filtering the candidates on the other criteria
+     * @param criteria the filters to apply, any of which may be null
+     * @param pageable the page number, page size and sort order; only vin, manufacturerName, modelYear,
+     *                 purchasePrice, horsePower and category can be sorted on
+     * @return the matching page of vehicles
+     */
+    public Page<Vehicle> search(VehicleSearchCriteria criteria, Pageable pageable) {
+        Indexes snapshot = current();
+        List<Vehicle> matches = new ArrayList<>();
+        for (List<Vehicle> group : snapshot.candidates(criteria)) {
+            for (Vehicle vehicle : group) {
+                if (matches(criteria, vehicle)) {
+                    matches.add(vehicle);
+                }
+            }
+        }
+        matches.sort(comparator(pageable.getSort()));
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        return new PageImpl<>(matches.subList(from, to), pageable, matches.size());
+    }
+
+    /**
+     * @return the number of vehicles held and the estimated memory they use
+     */
+    public SnapshotStatistics getStatistics() {
+        Indexes snapshot = current();
+        long count = snapshot.vin.size();
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        return new SnapshotStatistics(enabled, count, snapshot.estimatedBytes,
+                count == 0 ? 0 : snapshot.estimatedBytes / count, maxHeap, (double) snapshot.estimatedBytes / maxHeap);
+    }
+
+    /**
+     * Re-reads vehicles from the database into a new snapshot once the surrounding transaction commits, or
+     * immediately if there is none. VINs that are no longer in the database are dropped.
+     * @param vins the VINs of the vehicles that were created, updated or deleted
+     */
+    public void refresh(Collection<String> vins) {
+        if (!enabled || vins.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readAfterCommit.executeWithoutResult(status -> enqueue(vins));
+                }
+            });
+        } else {
+            enqueue(vins);
+        }
+    }
+
+    /**
+     * Loads every vehicle from the database in keyset pages and swaps in a new snapshot. The pages are read without
+     * the write lock, so writes keep updating the current snapshot meanwhile and are read again after the swap.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${vehicle.snapshot.reload-interval:PT15M}",
+            initialDelayString = "${vehicle.snapshot.reload-interval:PT15M}")
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        reloadLock.lock();
+        try {
+            writeLock.lock();
+            try {
+                changedDuringReload = new HashSet<>();
+            } finally {
+                writeLock.unlock();
+            }
+            List<Vehicle> vehicles = null;
+            try {
+                vehicles = loadAll();
+            } finally {
+                writeLock.lock();
+                try {
+                    if (vehicles != null) {
+                        indexes = Indexes.of(vehicles);
+                        // Their pages may have been read before they changed
+                        synchronized (pendingVins) {
+                            pendingVins.addAll(changedDuringReload);
+                        }
+                    }
+                    changedDuringReload = null;
+                    applyPending();
+                } finally {
+                    writeLock.unlock();
+                }
+            }
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private List<Vehicle> loadAll() {
+        List<Vehicle> vehicles = new ArrayList<>();
+        String after = "";
+        List<Vehicle> page;
+        do {
+            page = vehicleRepository.findByVinGreaterThanOrderByVinAsc(after, Limit.of(LOAD_PAGE_SIZE));
+            page.forEach(vehicle -> vehicles.add(vehicle.copy()));
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getVin();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+        return vehicles;
+    }
+
+    private void enqueue(Collection<String> vins) {
+        synchronized (pendingVins) {
+            pendingVins.addAll(vins);
+        }
+        writeLock.lock();
+        try {
+            applyPending();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Called with the write lock held
+    private void applyPending() {
+        Indexes snapshot = indexes;
+        if (snapshot == null) {
+            // Not loaded yet; the load applies pending VINs when it finishes
+            return;
+        }
+        List<String> vins;
+        synchronized (pendingVins) {
+            if (pendingVins.isEmpty()) {
+                // Another writer already read our changes back
+                return;
+            }
+            vins = new ArrayList<>(pendingVins);
+            pendingVins.clear();
+        }
+        if (changedDuringReload != null) {
+            changedDuringReload.addAll(vins);
+        }
+        Map<String, Vehicle> changed = new HashMap<>();
+        vins.forEach(vin -> changed.put(vin, null));
+        for (int from = 0; from < vins.size(); from += LOAD_PAGE_SIZE) {
+            List<String> chunk = vins.subList(from, Math.min(from + LOAD_PAGE_SIZE, vins.size()));
+            vehicleRepository.findAllById(chunk).forEach(vehicle -> changed.put(vehicle.getVin(), vehicle.copy()));
+        }
+        indexes = snapshot.with(changed);
+    }
+
+    private Indexes current() {
+        Indexes snapshot = indexes;
+        return snapshot != null ? snapshot : Indexes.EMPTY;
+    }
+
+    private static boolean matches(VehicleSearchCriteria criteria, Vehicle vehicle) {
+        return equalsIfSet(criteria.manufacturerName(), vehicle.getManufacturerName())
+                && equalsIfSet(criteria.category(), vehicle.getCategory())
+                && equalsIfSet(criteria.fuelType(), vehicle.getFuelType())
+                && equalsIfSet(criteria.color(), vehicle.getColor())
+                && (criteria.minModelYear() == null || vehicle.getModelYear() >= criteria.minModelYear())
+                && (criteria.maxModelYear() == null || vehicle.getModelYear() <= criteria.maxModelYear())
+                && (criteria.minPrice() == null || vehicle.getPurchasePrice().compareTo(criteria.minPrice()) >= 0)
+                && (criteria.maxPrice() == null || vehicle.getPurchasePrice().compareTo(criteria.maxPrice()) <= 0);
+    }
+
+    // Blank filters are not applied, as in VehicleSpecifications
+    private static boolean equalsIfSet(String filter, String value) {
+        return filter == null || filter.isBlank() || filter.equals(value);
+    }
+
+    private static Comparator<Vehicle> comparator(Sort sort) {
+        Comparator<Vehicle> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<Vehicle> next = switch (order.getProperty()) {
+                case "vin" -> Comparator.comparing(Vehicle::getVin);
+                case "manufacturerName" -> Comparator.comparing(Vehicle::getManufacturerName);
+                case "category" -> Comparator.comparing(Vehicle::getCategory);
+                case "modelYear" -> Comparator.comparingInt(Vehicle::getModelYear);
+                case "purchasePrice" -> Comparator.comparing(Vehicle::getPurchasePrice);
+                case "horsePower" -> Comparator.comparingInt(Vehicle::getHorsePower);
+                default -> throw new IllegalArgumentException("Cannot sort by " + order.getProperty());
+            };
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator != null ? comparator : BY_VIN;
+    }
+
+    private static long estimateBytes(Vehicle vehicle) {
+        // The dictionary-encoded attributes are shared instances and are not counted per vehicle
+        return VEHICLE_BYTES + stringBytes(vehicle.getVin()) + stringBytes(vehicle.getDescription())
+                + stringBytes(vehicle.getModelName()) + BIG_DECIMAL_BYTES + LONG_BYTES + INDEX_BYTES;
+    }
+
+    private static long stringBytes(String value) {
+        return value == null ? 0 : STRING_BYTES + ((ARRAY_HEADER_BYTES + value.length() + 7) & ~7L);
+    }
+
+    /**
+     * One immutable snapshot of the inventory and its indexes
+     */
+    private static final class Indexes {
+        static final Indexes EMPTY = of(List.of());
+
+        final Map<String, Vehicle> vin;
+
+        final List<Vehicle> ordered;
+
+        final Map<String, List<Vehicle>> manufacturerName;
+
+        final Map<String, List<Vehicle>> category;
+
+        final NavigableMap<Integer, List<Vehicle>> modelYear;
+
+        final NavigableMap<BigDecimal, List<Vehicle>> purchasePrice;
+
+        final long estimatedBytes;
+
+        private Indexes(Map<String, Vehicle> vin, List<Vehicle> ordered, Map<String, List<Vehicle>> manufacturerName,
+                        Map<String, List<Vehicle>> category, NavigableMap<Integer, List<Vehicle>> modelYear,
+                        NavigableMap<BigDecimal, List<Vehicle>> purchasePrice, long estimatedBytes) {
+            this.vin = vin;
+            this.ordered = ordered;
+            this.manufacturerName = manufacturerName;
+            this.category = category;
+            this.modelYear = modelYear;
+            this.purchasePrice = purchasePrice;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        static Indexes of(Collection<Vehicle> vehicles) {
+            Vehicle[] ordered = vehicles.toArray(new Vehicle[0]);
+            Arrays.sort(ordered, BY_VIN);
+            Map<String, Vehicle> byVin = new HashMap<>();
+            long bytes = 0;
+            for (Vehicle vehicle : ordered) {
+                byVin.put(vehicle.getVin(), vehicle);
+                bytes += estimateBytes(vehicle);
+            }
+            List<Vehicle> all = List.of(ordered);
+            return new Indexes(Map.copyOf(byVin), all,
+                    group(all, Vehicle::getManufacturerName, new HashMap<>()),
+                    group(all, Vehicle::getCategory, new HashMap<>()),
+                    group(all, Vehicle::getModelYear, new TreeMap<>()),
+                    group(all, Vehicle::getPurchasePrice, new TreeMap<>()),
+                    bytes);
+        }
+
+        /**
+         * @param changed the new state of each changed VIN, or null for a VIN that was deleted
+         * @return a new snapshot with the changes applied
+         */
+        Indexes with(Map<String, Vehicle> changed) {
+            // Never modified once the new snapshot is published
+            Map<String, Vehicle> nextVin = new HashMap<>(vin);
+            List<Vehicle> removed = new ArrayList<>();
+            List<Vehicle> added = new ArrayList<>();
+            long bytes = estimatedBytes;
+            for (Map.Entry<String, Vehicle> entry : changed.entrySet()) {
+                Vehicle vehicle = entry.getValue();
+                Vehicle previous = vehicle == null
+                        ? nextVin.remove(entry.getKey())
+                        : nextVin.put(entry.getKey(), vehicle);
+                if (previous != null) {
+                    removed.add(previous);
+                    bytes -= estimateBytes(previous);
+                }
+                if (vehicle != null) {
+                    added.add(vehicle);
+                    bytes += estimateBytes(vehicle);
+                }
+            }
+            added.sort(BY_VIN);
+            Set<String> changedVins = changed.keySet();
+            return new Indexes(nextVin, merge(ordered, changedVins, added),
+                    regroup(manufacturerName, HashMap::new, Vehicle::getManufacturerName, changedVins, removed, added),
+                    regroup(category, HashMap::new, Vehicle::getCategory, changedVins, removed, added),
+                    regroup(modelYear, TreeMap::new, Vehicle::getModelYear, changedVins, removed, added),
+                    regroup(purchasePrice, TreeMap::new, Vehicle::getPurchasePrice, changedVins, removed, added),
+                    bytes);
+        }
+
+        /**
+         * @return the index groups that hold every vehicle the criteria can match, from the most selective index
+         */
+        List<List<Vehicle>> candidates(VehicleSearchCriteria criteria) {
+            List<List<Vehicle>> best = List.of(ordered);
+            long bestSize = ordered.size();
+            if (criteria.manufacturerName() != null && !criteria.manufacturerName().isBlank()) {
+                List<Vehicle> group = manufacturerName.getOrDefault(criteria.manufacturerName(), List.of());
+                if (group.size() < bestSize) {
+                    best = List.of(group);
+                    bestSize = group.size();
+                }
+            }
+            if (criteria.category() != null && !criteria.category().isBlank()) {
+                List<Vehicle> group = category.getOrDefault(criteria.category(), List.of());
+                if (group.size() < bestSize) {
+                    best = List.of(group);
+                    bestSize = group.size();
+                }
+            }
+            if (criteria.minModelYear() != null || criteria.maxModelYear() != null) {
+                Collection<List<Vehicle>> groups = range(modelYear, criteria.minModelYear(), criteria.maxModelYear());
+                long size = groups.stream().mapToLong(List::size).sum();
+                if (size < bestSize) {
+                    best = new ArrayList<>(groups);
+                    bestSize = size;
+                }
+            }
+            if (criteria.minPrice() != null || criteria.maxPrice() != null) {
+                Collection<List<Vehicle>> groups = range(purchasePrice, criteria.minPrice(), criteria.maxPrice());
+                long size = groups.stream().mapToLong(List::size).sum();
+                if (size < bestSize) {
+                    best = new ArrayList<>(groups);
+                }
+            }
+            return best;
+        }
+
+        private static <K> Collection<List<Vehicle>> range(NavigableMap<K, List<Vehicle>> index, K min, K max) {
+            NavigableMap<K, List<Vehicle>> view = index;
+            if (min != null) {
+                view = view.tailMap(min, true);
+            }
+            if (max != null) {
+                view = view.headMap(max, true);
+            }
+            return view.values();
+        }
+
+        /**
+         * Merges the changed vehicles into a VIN-ordered list in one pass
+         * @param ordered the current vehicles ordered by VIN
+         * @param changedVins the VINs whose current entries are replaced or dropped
+         * @param added the new state of the changed vehicles that still exist, ordered by VIN
+         * @return the new VIN-ordered list
+         */
+        private static List<Vehicle> merge(List<Vehicle> ordered, Set<String> changedVins, List<Vehicle> added) {
+            List<Vehicle> merged = new ArrayList<>(ordered.size() + added.size());
+            int next = 0;
+            for (Vehicle vehicle : ordered) {
+                if (changedVins.contains(vehicle.getVin())) {
+                    continue;
+                }
+                while (next < added.size() && BY_VIN.compare(added.get(next), vehicle) < 0) {
+                    merged.add(added.get(next++));
+                }
+                merged.add(vehicle);
+            }
+            merged.addAll(added.subList(next, added.size()));
+            return List.copyOf(merged);
+        }
+
+        /**
+         * Copies an index, rebuilding only the groups the changed vehicles leave or join
+         * @param index the current index
+         * @param factory creates an empty index of the same kind, so sorted indexes merge keys that compare equal
+         * @param key the indexed attribute
+         * @param changedVins the VINs whose current entries are replaced or dropped
+         * @param removed the previous state of the changed vehicles
+         * @param added the new state of the changed vehicles that still exist, ordered by VIN
+         * @return the new index
+         */
+        private static <K, M extends Map<K, List<Vehicle>>> M regroup(M index, Supplier<M> factory,
+                                                                       Function<Vehicle, K> key,
+                                                                       Set<String> changedVins,
+                                                                       List<Vehicle> removed, List<Vehicle> added) {
+            M affected = factory.get();
+            removed.forEach(vehicle -> affected.computeIfAbsent(key.apply(vehicle), k -> new ArrayList<>()));
+            added.forEach(vehicle -> affected.computeIfAbsent(key.apply(vehicle), k -> new ArrayList<>()).add(vehicle));
+            M next = factory.get();
+            next.putAll(index);
+            affected.forEach((groupKey, joining) -> {
+                List<Vehicle> group = next.getOrDefault(groupKey, List.of());
+                List<Vehicle> updated = new ArrayList<>(group.size() + joining.size());
+                for (Vehicle vehicle : group) {
+                    if (!changedVins.contains(vehicle.getVin())) {
+                        updated.add(vehicle);
+                    }
+                }
+                updated.addAll(joining);
+                updated.sort(BY_VIN);
+                if (updated.isEmpty()) {
+                    next.remove(groupKey);
+                } else {
+                    next.put(groupKey, List.copyOf(updated));
+                }
+            });
+            return next;
+        }
+
+        private static <K, M extends Map<K, List<Vehicle>>> M group(List<Vehicle> vehicles,
+                                                                     Function<Vehicle, K> key, M index) {
+            // Grouping in the index itself lets the sorted indexes merge keys that compare equal, like 1.0 and 1.00
+            for (Vehicle vehicle : vehicles) {
+                index.computeIfAbsent(key.apply(vehicle), k -> new ArrayList<>()).add(vehicle);
+            }
+            index.replaceAll((k, group) -> List.copyOf(group));
+            return index;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.apollo.vehicle.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Counter that {@link VehicleService} moves forward after every committed write to the inventory, once the VIN cache
+ * and snapshot have caught up. Anything derived from a read is still current as long as the counter has not moved
+ * since the read started. Caches of single vehicles listen for the VINs each write touched instead, so a write only
+ * invalidates what it changed.
+ */
+@Component
+public class InventoryVersion {
+    private final AtomicLong version = new AtomicLong();
+
+    private final List<Consumer<Collection<String>>> listeners = new CopyOnWriteArrayList<>();
+
+    // System.nanoTime() of the last increment; starts far enough in the past to be outside any window
+    private volatile long changedAtNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+
+    /**
+     * @return the current version; read it before reading the data derived from it
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Moves the version forward after a write that may have changed any vehicle. Call it only after the write has
+     * committed.
+     */
+    public void increment() {
+        increment(null);
+    }
+
+    /**
+     * Moves the version forward, then tells the listeners which vehicles changed. Call it only after the write has
+     * committed.
+     * @param vins the VINs of the vehicles the write changed, or null if it may have changed any of them
+     */
+    public void increment(Collection<String> vins) {
+        changedAtNanos = System.nanoTime();
+        version.incrementAndGet();
+        // After the increment, so a read that started before it either sees the new version or is evicted here
+        for (Consumer<Collection<String>> listener : listeners) {
+            listener.accept(vins);
+        }
+    }
+
+    /**
+     * @param listener called after every increment with the VINs that changed, or null if any may have
+     */
+    public void addListener(Consumer<Collection<String>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param window how far back to look
+     * @return true if the version moved within the window
+     */
+    public boolean changedWithin(Duration window) {
+        return System.nanoTime() - changedAtNanos < window.toNanos();
+    }
+}
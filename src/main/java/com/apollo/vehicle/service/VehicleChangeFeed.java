@@ -0,0 +1,303 @@
+package com.apollo.vehicle.service;
+
+import com.apollo.vehicle.dto.ChangeType;
+import com.apollo.vehicle.dto.VehicleChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Server-sent event feed of committed inventory changes, so consumers no longer poll GET /vehicle to find out what
+ * changed. {@link VehicleService} publishes after commit, once caches have caught up, so a consumer that reads a
+ * vehicle on receiving its event sees the change.
+ * <p>
+ * The last vehicle.changes.buffer-size events are kept in a ring buffer, each serialized once, and every subscriber
+ * is only a cursor into it, so fan-out costs no per-subscriber queue. Publishing never waits for a subscriber: it
+ * wakes the subscribers, and each one is drained on its own virtual thread. A subscriber that falls more than the
+ * whole buffer behind is dropped. A client that reconnects with a Last-Event-ID still in the buffer resumes where it
+ * left off; otherwise it first gets a reset event, telling it to read the inventory again.
+ * <p>
+ * Event ids are the sequence prefixed with an id of this feed, random per instance and run, so an id issued before a
+ * restart or by another instance is never mistaken for a position in this feed and always leads to a reset.
+ */
+@Component
+public class VehicleChangeFeed {
+    static final String RESET_EVENT = "reset";
+
+    private static final int DRAIN_BATCH_SIZE = 256;
+
+    private final String feedId = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+
+    private final ObjectMapper objectMapper;
+
+    private final Executor executor;
+
+    private final Clock clock;
+
+    private final long timeoutMillis;
+
+    private final AtomicReferenceArray<Published> ring;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final Counter dropped;
+
+    // Sequence of the last published event, 0 before the first; written only under the lock of this feed
+    private volatile long head;
+
+    @Autowired
+    public VehicleChangeFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${vehicle.changes.buffer-size:10000}") int bufferSize,
+                             @Value("${vehicle.changes.timeout:PT30M}") Duration timeout) {
+        this(objectMapper, meterRegistry, bufferSize, timeout, Executors.newVirtualThreadPerTaskExecutor(),
+                Clock.systemUTC());
+    }
+
+    VehicleChangeFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry, int bufferSize, Duration timeout,
+                      Executor executor, Clock clock) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("vehicle.changes.buffer-size must be positive");
+        }
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.clock = clock;
+        this.timeoutMillis = timeout.toMillis();
+        this.ring = new AtomicReferenceArray<>(bufferSize);
+        this.dropped = Counter.builder("vehicle.changes.dropped")
+                .description("Change feed subscribers dropped for falling behind the buffer").register(meterRegistry);
+        Gauge.builder("vehicle.changes.subscribers", subscribers, Set::size)
+                .description("Open change feed subscriptions").register(meterRegistry);
+    }
+
+    /**
+     * Publishes one event per VIN and wakes the subscribers. Call it only after the change has committed.
+     * @param type what happened to the vehicles
+     * @param vins the VINs of the vehicles
+     */
+    public void publish(ChangeType type, Collection<String> vins) {
+        if (vins.isEmpty()) {
+            return;
+        }
+        Instant committedAt = clock.instant();
+        synchronized (this) {
+            for (String vin : vins) {
+                long sequence = head + 1;
+                VehicleChangeEvent event = new VehicleChangeEvent(sequence, type, vin, committedAt);
+                ring.set(index(sequence), new Published(sequence, type.eventName(), serialize(event)));
+                // Written after the slot, so a reader that sees the new head also sees the event
+                head = sequence;
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.signal();
+        }
+    }
+
+    /**
+     * Opens a subscription that starts after the given event
+     * @param lastEventId the id of the last event the client received, or null to receive only new events
+     * @return the emitter streaming the events
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        subscribe(lastEventId, emitter);
+        return emitter;
+    }
+
+    void subscribe(String lastEventId, SseEmitter emitter) {
+        long current = head;
+        long cursor = current;
+        boolean reset = false;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            // Ids of another feed, above the head or below the buffer are not positions in this buffer
+            long sequence = sequenceOf(lastEventId.trim());
+            reset = sequence < 0 || sequence > current || sequence < current - ring.length();
+            if (!reset) {
+                cursor = sequence;
+            }
+        }
+        Subscriber subscriber = new Subscriber(emitter, cursor, reset);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.signal();
+    }
+
+    /**
+     * Sends a comment to every subscriber, so connections that have gone away are noticed and released
+     */
+    @Scheduled(fixedDelayString = "${vehicle.changes.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeat = true;
+            subscriber.signal();
+        }
+    }
+
+    /**
+     * @return the number of open subscriptions
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Reads the events after a sequence number without locking
+     * @param after the sequence of the last event already read
+     * @param max the maximum number of events to return
+     * @return the events in order, or null if some of them have already been overwritten
+     */
+    private List<Published> readAfter(long after, int max) {
+        long last = Math.min(head, after + max);
+        List<Published> events = new ArrayList<>((int) Math.max(0, last - after));
+        for (long sequence = after + 1; sequence <= last; sequence++) {
+            Published event = ring.get(index(sequence));
+            if (event == null || event.sequence() != sequence) {
+                return null;
+            }
+            events.add(event);
+        }
+        return events;
+    }
+
+    /**
+     * @param sequence the sequence of an event
+     * @return the id of the server-sent event
+     */
+    String eventId(long sequence) {
+        return feedId + "-" + sequence;
+    }
+
+    // The sequence of an event id issued by this feed, or -1
+    private long sequenceOf(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !eventId.substring(0, separator).equals(feedId)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % ring.length());
+    }
+
+    private String serialize(VehicleChangeEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Published(long sequence, String name, String data) {
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        // Sequence of the last event sent; written only by the draining thread
+        private volatile long cursor;
+
+        private volatile boolean reset;
+
+        private volatile boolean heartbeat;
+
+        private Subscriber(SseEmitter emitter, long cursor, boolean reset) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+            this.reset = reset;
+        }
+
+        /**
+         * Starts a drain unless one is already running. Never blocks, so it is safe on a writer's thread.
+         */
+        private void signal() {
+            if (head - cursor > ring.length()) {
+                drop();
+            } else if (draining.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                if (reset) {
+                    emitter.send(SseEmitter.event().id(eventId(cursor)).name(RESET_EVENT).data(eventId(cursor)));
+                    reset = false;
+                }
+                boolean sent = false;
+                while (true) {
+                    List<Published> events = readAfter(cursor, DRAIN_BATCH_SIZE);
+                    if (events == null) {
+                        // The next events have been overwritten: this subscriber is too slow for the buffer
+                        drop();
+                        return;
+                    }
+                    if (events.isEmpty()) {
+                        break;
+                    }
+                    for (Published event : events) {
+                        emitter.send(SseEmitter.event().id(eventId(event.sequence())).name(event.name())
+                                .data(event.data()));
+                        cursor = event.sequence();
+                    }
+                    sent = true;
+                }
+                if (heartbeat) {
+                    heartbeat = false;
+                    if (!sent) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client has gone away or the emitter has completed
+                subscribers.remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event published after the last read found nothing to drain, and its signal was ignored
+            if (head > cursor) {
+                signal();
+            }
+        }
+
+        private void drop() {
+            if (subscribers.remove(this)) {
+                dropped.increment();
+                // Completing waits for a send in progress, so it must not run on the publishing thread
+                executor.execute(emitter::complete);
+            }
+        }
+    }
+}
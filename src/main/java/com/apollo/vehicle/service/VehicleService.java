@@ -1,55 +1,442 @@
 package com.apollo.vehicle.service;
 
+import com.apollo.vehicle.config.CacheConfig;
+import com.apollo.vehicle.config.ReadFromReplica;
+import com.apollo.vehicle.dto.AggregateDimension;
+import com.apollo.vehicle.dto.BatchItemError;
+import com.apollo.vehicle.dto.BatchResult;
+import com.apollo.vehicle.dto.BulkDeleteRequest;
+import com.apollo.vehicle.dto.BulkDeleteResult;
+import com.apollo.vehicle.dto.CacheStatistics;
+import com.apollo.vehicle.dto.ChangeType;
+import com.apollo.vehicle.dto.CursorPage;
+import com.apollo.vehicle.dto.GroupAggregate;
+import com.apollo.vehicle.dto.SaleRequest;
+import com.apollo.vehicle.dto.SnapshotStatistics;
+import com.apollo.vehicle.dto.VehicleFacts;
+import com.apollo.vehicle.dto.VehicleField;
+import com.apollo.vehicle.dto.VehicleLookupResult;
+import com.apollo.vehicle.dto.VehiclePatch;
+import com.apollo.vehicle.dto.VehicleSearchCriteria;
 import com.apollo.vehicle.entity.SoldVehicle;
 import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.exception.InvalidVinException;
+import com.apollo.vehicle.exception.PreconditionFailedException;
+import com.apollo.vehicle.exception.VehicleAlreadyExistsException;
+import com.apollo.vehicle.exception.VehicleAlreadySoldException;
+import com.apollo.vehicle.exception.VehicleNotFoundException;
 import com.apollo.vehicle.repository.SoldVehicleRepository;
 import com.apollo.vehicle.repository.VehicleRepository;
+import com.apollo.vehicle.repository.VehicleSpecifications;
+import com.apollo.vehicle.validation.VinValidator;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "vehicle.service", description = "Time spent in VehicleService methods")
 public class VehicleService {
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final int MAX_BATCH_SIZE = 10_000;
+
+    public static final int MAX_LOOKUP_SIZE = 5000;
+
+    // Matches hibernate.jdbc.batch_size so each flush sends full JDBC batches
+    private static final int WRITE_CHUNK_SIZE = 500;
+
+    // Sortable columns; each leads or follows an indexed filter column so sorts stay cheap. Dictionary-encoded
+    // attributes are sorted by name through a join on attribute_value, see VehicleSpecifications.orderedBy
+    private static final Set<String> SORTABLE_PROPERTIES =
+            Set.of("vin", "manufacturerName", "modelYear", "purchasePrice", "horsePower", "category");
+
+    // Rows per DELETE statement in a bulk delete; each chunk commits on its own so locks are held briefly
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    // Keeps IN (...) lists well under the bind-parameter limits of H2 and Postgres
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     private final VehicleRepository vehicleRepository;
 
     private final SoldVehicleRepository soldVehicleRepository;
 
-    public VehicleService(VehicleRepository vehicleRepository, SoldVehicleRepository soldVehicleRepository) {
+    private final EntityManager entityManager;
+
+    private final Validator validator;
+
+    private final CacheManager cacheManager;
+
+    private final InventoryAggregates inventoryAggregates;
+
+    private final VinBloomFilter vinBloomFilter;
+
+    private final InventorySnapshot inventorySnapshot;
+
+    private final InventoryVersion inventoryVersion;
+
+    private final VehicleChangeFeed changeFeed;
+
+    // Attempts for an unconditional update that loses an optimistic-lock race; 1 disables the retry
+    @Value("${vehicle.update.max-attempts:3}")
+    private int maxUpdateAttempts = 3;
+
+    public VehicleService(VehicleRepository vehicleRepository, SoldVehicleRepository soldVehicleRepository,
+                          EntityManager entityManager, Validator validator, CacheManager cacheManager,
+                          InventoryAggregates inventoryAggregates, VinBloomFilter vinBloomFilter,
+                          InventorySnapshot inventorySnapshot, InventoryVersion inventoryVersion,
+                          VehicleChangeFeed changeFeed) {
         this.vehicleRepository = vehicleRepository;
         this.soldVehicleRepository = soldVehicleRepository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.cacheManager = cacheManager;
+        this.inventoryAggregates = inventoryAggregates;
+        this.vinBloomFilter = vinBloomFilter;
+        this.inventorySnapshot = inventorySnapshot;
+        this.inventoryVersion = inventoryVersion;
+        this.changeFeed = changeFeed;
     }
 
     /**
-     * Retrieves all vehicles from the database
+     * Retrieves all vehicles from the in-memory snapshot if it is enabled, otherwise from the database
      * @return a list of all vehicles
      */
+    @ReadFromReplica(shared = true)
     public List<Vehicle> getAllVehicles() {
+        if (inventorySnapshot.isReady()) {
+            return inventorySnapshot.getAll();
+        }
         return vehicleRepository.findAll();
     }
 
     /**
-     * Retrieves a specific vehicles by its VIN from the database
+     * Retrieves only the requested fields of all vehicles, ordered by VIN
+     * @param fields the fields to retrieve
+     * @return the values of the requested fields of each vehicle by attribute name
+     */
+    @ReadFromReplica
+    public List<Map<String, Object>> getAllVehicles(Set<VehicleField> fields) {
+        if (inventorySnapshot.isReady()) {
+            return inventorySnapshot.getAll().stream().map(vehicle -> VehicleField.project(vehicle, fields)).toList();
+        }
+        return vehicleRepository.findFields(null, fields, Pageable.unpaged(Sort.by("vin")));
+    }
+
+    /**
+     * Retrieves one page of vehicles ordered by VIN, seeking past the cursor instead of scanning an offset
+     * @param cursor the opaque cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of vehicles on the page
+     * @return the page of vehicles and the cursor for the next page, if there is one
+     * @throws IllegalArgumentException if the limit is out of range or the cursor is malformed
+     */
+    @ReadFromReplica
+    public CursorPage<Vehicle> getVehiclePage(String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // Fetch one extra row so we know whether another page follows without a count query
+        List<Vehicle> vehicles = vehicleRepository.findByVinGreaterThanOrderByVinAsc(decodeCursor(cursor), Limit.of(limit + 1));
+        if (vehicles.size() <= limit) {
+            return new CursorPage<>(vehicles, null);
+        }
+        List<Vehicle> page = vehicles.subList(0, limit);
+        return new CursorPage<>(page, encodeCursor(page.get(limit - 1).getVin()));
+    }
+
+    /**
+     * Retrieves only the requested fields of one page of vehicles ordered by VIN
+     * @param cursor the opaque cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of vehicles on the page
+     * @param fields the fields to retrieve
+     * @return the page of field values and the cursor for the next page, if there is one
+     * @throws IllegalArgumentException if the limit is out of range or the cursor is malformed
+     */
+    @ReadFromReplica
+    public CursorPage<Map<String, Object>> getVehiclePage(String cursor, int limit, Set<VehicleField> fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<Map<String, Object>> vehicles = vehicleRepository.findFields(VehicleSpecifications.vinAfter(
+                decodeCursor(cursor)), fields, PageRequest.of(0, limit + 1, Sort.by("vin")));
+        if (vehicles.size() <= limit) {
+            return new CursorPage<>(vehicles, null);
+        }
+        List<Map<String, Object>> page = vehicles.subList(0, limit);
+        return new CursorPage<>(page, encodeCursor((String) page.get(limit - 1).get(VehicleField.VIN.attribute())));
+    }
+
+    /**
+     * Searches vehicles by any combination of manufacturer, model year range, category, fuel type, color and
+     * purchase price range
+     * @param criteria the filters to apply, any of which may be null
+     * @param pageable the page number, page size and sort order
+     * @return the matching page of vehicles
+     * @throws IllegalArgumentException if a range is inverted or the sort is on an unsupported property
+     */
+    @Transactional(readOnly = true)
+    @ReadFromReplica
+    public Page<Vehicle> searchVehicles(VehicleSearchCriteria criteria, Pageable pageable) {
+        PageRequest request = searchRequest(criteria, pageable);
+        if (inventorySnapshot.isReady()) {
+            return inventorySnapshot.search(criteria, request);
+        }
+        return vehicleRepository.findAll(sorted(criteria, request), unsorted(request));
+    }
+
+    /**
+     * Searches vehicles like {@link #searchVehicles(VehicleSearchCriteria, Pageable)}, retrieving only the requested
+     * fields
+     * @param criteria the filters to apply, any of which may be null
+     * @param pageable the page number, page size and sort order
+     * @param fields the fields to retrieve
+     * @return the matching page of field values
+     * @throws IllegalArgumentException if a range is inverted or the sort is on an unsupported property
+     */
+    @Transactional(readOnly = true)
+    @ReadFromReplica
+    public Page<Map<String, Object>> searchVehicles(VehicleSearchCriteria criteria, Pageable pageable,
+                                                    Set<VehicleField> fields) {
+        PageRequest request = searchRequest(criteria, pageable);
+        if (inventorySnapshot.isReady()) {
+            return inventorySnapshot.search(criteria, request).map(vehicle -> VehicleField.project(vehicle, fields));
+        }
+        Specification<Vehicle> spec = sorted(criteria, request);
+        return PageableExecutionUtils.getPage(vehicleRepository.findFields(spec, fields, unsorted(request)), request,
+                () -> vehicleRepository.count(spec));
+    }
+
+    // The sort is applied by the specification, so dictionary-encoded attributes can be sorted by name
+    private static Specification<Vehicle> sorted(VehicleSearchCriteria criteria, PageRequest request) {
+        return VehicleSpecifications.matching(criteria).and(VehicleSpecifications.orderedBy(request.getSort()));
+    }
+
+    private static PageRequest unsorted(PageRequest request) {
+        return PageRequest.of(request.getPageNumber(), request.getPageSize());
+    }
+
+    /**
+     * Checks the search criteria and sort, and adds the VIN as the final sort key
+     * @param criteria the filters to apply
+     * @param pageable the requested page and sort
+     * @return the page to read
+     * @throws IllegalArgumentException if a range is inverted or the sort is on an unsupported property
+     */
+    private static PageRequest searchRequest(VehicleSearchCriteria criteria, Pageable pageable) {
+        if (criteria.minModelYear() != null && criteria.maxModelYear() != null
+                && criteria.minModelYear() > criteria.maxModelYear()) {
+            throw new IllegalArgumentException("minModelYear cannot be greater than maxModelYear");
+        }
+        if (criteria.minPrice() != null && criteria.maxPrice() != null
+                && criteria.minPrice().compareTo(criteria.maxPrice()) > 0) {
+            throw new IllegalArgumentException("minPrice cannot be greater than maxPrice");
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot sort by " + order.getProperty());
+            }
+        }
+        // Always break ties on the VIN so pages are stable
+        Sort sort = pageable.getSort().getOrderFor("vin") == null
+                ? pageable.getSort().and(Sort.by("vin"))
+                : pageable.getSort();
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    /**
+     * Streams every vehicle ordered by VIN to the consumer as rows are read, detaching each one afterwards
+     * so the persistence context does not grow with the size of the table
+     * @param consumer the consumer receiving each vehicle
+     */
+    @Transactional(readOnly = true)
+    @ReadFromReplica
+    public void streamAllVehicles(Consumer<Vehicle> consumer) {
+        try (Stream<Vehicle> vehicles = vehicleRepository.streamAllByOrderByVin()) {
+            vehicles.forEach(vehicle -> {
+                consumer.accept(vehicle);
+                entityManager.detach(vehicle);
+            });
+        }
+    }
+
+    /**
+     * Retrieves a specific vehicles by its VIN from the in-memory snapshot if it is enabled, otherwise from the
+     * database
      * @param vin the VIN of the vehicle to be retrieved
      * @return the vehicle, if found
-     * @throws IllegalArgumentException if the vehicle is not found
+     * @throws InvalidVinException if the VIN is invalid
+     * @throws VehicleNotFoundException if the vehicle is not found
      */
+    @ReadFromReplica(vins = "vin")
+    @Cacheable(cacheNames = CacheConfig.VEHICLES_CACHE, key = "#vin")
     public Vehicle getVehicleByVin(String vin) {
+        if (inventorySnapshot.isReady()) {
+            VinValidator.requireValid(vin);
+            return inventorySnapshot.get(vin)
+                    .orElseThrow(() -> new VehicleNotFoundException(vin));
+        }
+        return loadVehicle(vin);
+    }
+
+    /**
+     * Retrieves only the requested fields of a vehicle, from the VIN cache or the in-memory snapshot if either has
+     * it, otherwise from the database
+     * @param vin the VIN of the vehicle to be retrieved
+     * @param fields the fields to retrieve
+     * @return the values of the requested fields by attribute name
+     * @throws InvalidVinException if the VIN is invalid
+     * @throws VehicleNotFoundException if the vehicle is not found
+     */
+    @ReadFromReplica(vins = "vin")
+    public Map<String, Object> getVehicleByVin(String vin, Set<VehicleField> fields) {
+        if (!mightExist(vin)) {
+            throw new VehicleNotFoundException(vin);
+        }
+        Cache cache = cacheManager.getCache(CacheConfig.VEHICLES_CACHE);
+        Vehicle cached = cache == null ? null : cache.get(vin, Vehicle.class);
+        if (cached != null) {
+            return VehicleField.project(cached, fields);
+        }
+        if (inventorySnapshot.isReady()) {
+            return inventorySnapshot.get(vin).map(vehicle -> VehicleField.project(vehicle, fields))
+                    .orElseThrow(() -> new VehicleNotFoundException(vin));
+        }
+        List<Map<String, Object>> rows = vehicleRepository.findFields(VehicleSpecifications.vinEquals(vin), fields,
+                Pageable.unpaged());
+        if (rows.isEmpty()) {
+            throw new VehicleNotFoundException(vin);
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * Retrieves many vehicles by VIN at once. Each VIN is answered from the Bloom filter, the VIN cache or the
+     * in-memory snapshot if possible, and the rest are read with chunked IN (...) queries and added to the VIN cache.
+     * @param vins the VINs to look up; duplicates are looked up once
+     * @return the vehicles found, and the VINs that are invalid or not in the inventory, both in request order
+     * @throws IllegalArgumentException if there are more than {@link #MAX_LOOKUP_SIZE} VINs
+     */
+    @ReadFromReplica(vins = "vins")
+    public VehicleLookupResult lookupVehicles(List<String> vins) {
+        if (vins == null || vins.isEmpty()) {
+            return new VehicleLookupResult(List.of(), List.of());
+        }
+        if (vins.size() > MAX_LOOKUP_SIZE) {
+            throw new IllegalArgumentException("Lookup cannot contain more than " + MAX_LOOKUP_SIZE + " VINs");
+        }
+        Set<String> requested = new LinkedHashSet<>(vins);
+        Map<String, Vehicle> found = HashMap.newHashMap(requested.size());
+        List<String> toLoad = new ArrayList<>();
+        Cache cache = cacheManager.getCache(CacheConfig.VEHICLES_CACHE);
+        boolean fromSnapshot = inventorySnapshot.isReady();
+        for (String vin : requested) {
+            if (vin == null || !VinValidator.isValid(vin) || !vinBloomFilter.mightContain(vin)) {
+                continue;
+            }
+            Vehicle cached = cache == null ? null : cache.get(vin, Vehicle.class);
+            if (cached != null) {
+                found.put(vin, cached);
+            } else if (fromSnapshot) {
+                inventorySnapshot.get(vin).ifPresent(vehicle -> found.put(vin, vehicle));
+            } else {
+                toLoad.add(vin);
+            }
+        }
+        for (int from = 0; from < toLoad.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = toLoad.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, toLoad.size()));
+            for (Vehicle vehicle : vehicleRepository.findAllById(chunk)) {
+                found.put(vehicle.getVin(), vehicle);
+                if (cache != null) {
+                    cache.put(vehicle.getVin(), vehicle);
+                }
+            }
+        }
+
+        List<Vehicle> vehicles = new ArrayList<>(found.size());
+        List<String> missing = new ArrayList<>();
+        for (String vin : requested) {
+            Vehicle vehicle = found.get(vin);
+            if (vehicle != null) {
+                vehicles.add(vehicle);
+            } else {
+                missing.add(vin);
+            }
+        }
+        return new VehicleLookupResult(vehicles, missing);
+    }
+
+    /**
+     * Reads a vehicle from the database as a managed entity that may be modified and saved
+     * @param vin the VIN of the vehicle to be read
+     * @return the vehicle, if found
+     * @throws InvalidVinException if the VIN is invalid
+     * @throws VehicleNotFoundException if the vehicle is not found
+     */
+    private Vehicle loadVehicle(String vin) {
+        if (!mightExist(vin)) {
+            throw new VehicleNotFoundException(vin);
+        }
         return vehicleRepository.findById(vin)
-                .orElseThrow(() -> new IllegalArgumentException("Vehicle with VIN " + vin + " not found"));
+                .orElseThrow(() -> new VehicleNotFoundException(vin));
     }
 
     /**
      * Creates a vehicle and saves it in the database
      * @param vehicle the vehicle to be created
      * @return the created vehicle
-     * @throws IllegalArgumentException if a vehicle with the same VIN already exists in the database
+     * @throws InvalidVinException if the VIN is invalid
+     * @throws VehicleAlreadyExistsException if a vehicle with the same VIN already exists in the database
      */
     public Vehicle createVehicle(Vehicle vehicle) {
+        VinValidator.requireValid(vehicle.getVin());
+        // Another instance may have written the VIN, so the database and not the filter decides
         if (vehicleRepository.existsById(vehicle.getVin())) {
-            throw new IllegalArgumentException("Vehicle with VIN " + vehicle.getVin() + " already exists.");
+            throw new VehicleAlreadyExistsException(vehicle.getVin());
         }
-        return vehicleRepository.save(vehicle);
+        // Added before the insert so lookups never miss the new row, and again after it commits for a running rebuild
+        vinBloomFilter.add(vehicle.getVin());
+        Vehicle created = vehicleRepository.save(vehicle);
+        vinBloomFilter.add(created.getVin());
+        inventoryAggregates.record(List.of(), List.of(VehicleFacts.of(created)));
+        inventorySnapshot.refresh(List.of(created.getVin()));
+        publishWrite(ChangeType.CREATED, List.of(created.getVin()));
+        return created;
     }
 
     /**
@@ -58,50 +445,488 @@ public class VehicleService {
      * @param updatedVehicle the updated vehicle data
      * @return the updated vehicle
      */
+    @CachePut(cacheNames = CacheConfig.VEHICLES_CACHE, key = "#vin")
     public Vehicle updateVehicle(String vin, Vehicle updatedVehicle) {
-        Vehicle existingVehicle = getVehicleByVin(vin);
+        return updateVehicle(vin, updatedVehicle, null);
+    }
+
+    /**
+     * Updates an existing vehicle by its VIN with optimistic concurrency control. The write only succeeds if nobody
+     * else has updated the vehicle since it was read. An unconditional update only sets the fields it carries, so
+     * it is re-read and reapplied (up to vehicle.update.max-attempts times) when it loses a race. A conditional
+     * update is never retried.
+     * @param vin the VIN of the vehicle to be updated
+     * @param updatedVehicle the updated vehicle data
+     * @param expectedVersion the version the client last saw (from If-Match), or null for an unconditional update
+     * @return the updated vehicle
+     * @throws VehicleNotFoundException if the vehicle is not found
+     * @throws PreconditionFailedException if the current version is not the expected version
+     * @throws OptimisticLockingFailureException if a concurrent update won and the update was not retried
+     */
+    @CachePut(cacheNames = CacheConfig.VEHICLES_CACHE, key = "#vin")
+    public Vehicle updateVehicle(String vin, Vehicle updatedVehicle, Long expectedVersion) {
+        for (int attempt = 1; ; attempt++) {
+            Vehicle existingVehicle = loadVehicle(vin);
+            if (expectedVersion != null && !expectedVersion.equals(existingVehicle.getVersion())) {
+                throw new PreconditionFailedException("Vehicle with VIN " + vin + " has been modified");
+            }
+            VehicleFacts before = VehicleFacts.of(existingVehicle);
+            applyUpdates(existingVehicle, updatedVehicle);
+            try {
+                Vehicle saved = vehicleRepository.save(existingVehicle);
+                inventoryAggregates.record(List.of(before), List.of(VehicleFacts.of(saved)));
+                inventorySnapshot.refresh(List.of(vin));
+                publishWrite(ChangeType.UPDATED, List.of(vin));
+                return saved;
+            } catch (OptimisticLockingFailureException e) {
+                if (expectedVersion != null || attempt >= maxUpdateAttempts) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies a partial update to a vehicle with a single UPDATE statement that only sets the fields in the patch,
+     * without loading the vehicle first. A patch that changes an aggregated field marks the aggregate dimensions it
+     * can affect dirty, and they are regrouped in the background once it commits.
+     * @param vin the VIN of the vehicle to be patched
+     * @param patch the fields to change
+     * @param expectedVersion the version the client last saw (from If-Match), or null for an unconditional patch
+     * @return the number of rows updated
+     * @throws IllegalArgumentException if the patch is empty
+     * @throws InvalidVinException if the VIN is invalid
+     * @throws VehicleNotFoundException if the vehicle is not found
+     * @throws PreconditionFailedException if the vehicle exists but is not at the expected version
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.VEHICLES_CACHE, key = "#vin")
+    public int patchVehicle(String vin, VehiclePatch patch, Long expectedVersion) {
+        if (patch.isEmpty()) {
+            throw new IllegalArgumentException("Patch must set at least one field");
+        }
+        if (!mightExist(vin)) {
+            throw new VehicleNotFoundException(vin);
+        }
+        // Read back once the patch commits; nothing is refreshed if it rolls back
+        inventorySnapshot.refresh(List.of(vin));
+        publishWrite(ChangeType.UPDATED, List.of(vin));
+        int updated = vehicleRepository.patch(vin, patch, expectedVersion);
+        if (updated == 0) {
+            // Only the failure path pays for a second statement, to tell a stale version from a missing VIN
+            if (expectedVersion != null && vehicleRepository.existsById(vin)) {
+                throw new PreconditionFailedException("Vehicle with VIN " + vin + " has been modified");
+            }
+            throw new VehicleNotFoundException(vin);
+        }
+        inventoryAggregates.invalidate(patch);
+        return updated;
+    }
 
-        Optional.ofNullable(updatedVehicle.getManufacturerName()).ifPresent(existingVehicle::setManufacturerName);
-        Optional.ofNullable(updatedVehicle.getDescription()).ifPresent(existingVehicle::setDescription);
+    /**
+     * Creates many vehicles in one transaction. Every vehicle is validated in a single pass, existing VINs are found
+     * with set-based queries, and inserts are flushed in JDBC batches. Invalid or conflicting vehicles are reported
+     * per item and do not stop the rest of the batch. Once it commits, only the VINs it wrote are evicted from the
+     * VIN cache.
+     * @param vehicles the vehicles to be created
+     * @param upsert whether vehicles whose VIN already exists should be overwritten instead of rejected
+     * @return the number of vehicles created and updated, and the errors for any rejected vehicles
+     * @throws IllegalArgumentException if the batch is larger than {@link #MAX_BATCH_SIZE}
+     */
+    @Transactional
+    public BatchResult createVehicles(List<Vehicle> vehicles, boolean upsert) {
+        if (vehicles.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch cannot contain more than " + MAX_BATCH_SIZE + " vehicles");
+        }
 
-        if (updatedVehicle.getHorsePower() > 0) { // Check for valid primitive value
-            existingVehicle.setHorsePower(updatedVehicle.getHorsePower());
+        List<BatchItemError> errors = new ArrayList<>();
+        Map<String, Integer> indexByVin = new HashMap<>();
+        List<Vehicle> valid = new ArrayList<>(vehicles.size());
+        for (int i = 0; i < vehicles.size(); i++) {
+            Vehicle vehicle = vehicles.get(i);
+            if (vehicle == null) {
+                errors.add(new BatchItemError(i, null, "Vehicle cannot be null"));
+                continue;
+            }
+            Set<ConstraintViolation<Vehicle>> violations = validator.validate(vehicle);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                        .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                errors.add(new BatchItemError(i, vehicle.getVin(), message));
+            } else if (indexByVin.putIfAbsent(vehicle.getVin(), i) != null) {
+                errors.add(new BatchItemError(i, vehicle.getVin(), "Duplicate VIN in batch"));
+            } else {
+                valid.add(vehicle);
+            }
         }
 
-        Optional.ofNullable(updatedVehicle.getModelName()).ifPresent(existingVehicle::setModelName);
+        return saveValidated(vehicles.size(), valid, indexByVin, upsert, errors);
+    }
+
+    /**
+     * Upserts vehicles that have already been validated and have unique VINs, in one transaction, with the same
+     * set-based lookups and JDBC batching as {@link #createVehicles}. Used by the file import, which validates in
+     * its own parallel stage.
+     * @param vehicles the validated vehicles
+     * @return the number of vehicles created and updated
+     */
+    @Transactional
+    public BatchResult importVehicles(List<Vehicle> vehicles) {
+        // indexByVin is only needed to report conflicts, which an upsert never has
+        return saveValidated(vehicles.size(), vehicles, Map.of(), true, new ArrayList<>());
+    }
 
-        if (updatedVehicle.getModelYear() > 0) { // Check for valid primitive value
-            existingVehicle.setModelYear(updatedVehicle.getModelYear());
+    private BatchResult saveValidated(int received, List<Vehicle> valid, Map<String, Integer> indexByVin,
+                                      boolean upsert, List<BatchItemError> errors) {
+        // Every VIN is looked up: another instance may have written VINs this instance's filter has never seen
+        List<String> vins = valid.stream().map(Vehicle::getVin).toList();
+        Map<String, Vehicle> existing = new HashMap<>();
+        Set<String> existingVins = new HashSet<>();
+        for (int from = 0; from < vins.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = vins.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, vins.size()));
+            if (upsert) {
+                vehicleRepository.findAllById(chunk).forEach(vehicle -> existing.put(vehicle.getVin(), vehicle));
+            } else {
+                existingVins.addAll(vehicleRepository.findExistingVins(chunk));
+            }
         }
 
-        Optional.ofNullable(updatedVehicle.getPurchasePrice()).ifPresent(existingVehicle::setPurchasePrice);
-        Optional.ofNullable(updatedVehicle.getFuelType()).ifPresent(existingVehicle::setFuelType);
+        List<String> updated = new ArrayList<>();
+        List<Vehicle> toInsert = new ArrayList<>(valid.size());
+        List<VehicleFacts> removedFacts = new ArrayList<>();
+        List<VehicleFacts> addedFacts = new ArrayList<>(valid.size());
+        for (Vehicle vehicle : valid) {
+            Vehicle current = existing.get(vehicle.getVin());
+            if (current != null) {
+                removedFacts.add(VehicleFacts.of(current));
+                applyUpdates(current, vehicle); // managed entity, written by dirty checking on flush
+                addedFacts.add(VehicleFacts.of(current));
+                updated.add(vehicle.getVin());
+            } else if (existingVins.contains(vehicle.getVin())) {
+                errors.add(new BatchItemError(indexByVin.get(vehicle.getVin()), vehicle.getVin(),
+                        "Vehicle with VIN " + vehicle.getVin() + " already exists."));
+            } else {
+                toInsert.add(vehicle);
+                addedFacts.add(VehicleFacts.of(vehicle));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
 
-        Optional.ofNullable(updatedVehicle.getColor()).ifPresent(existingVehicle::setColor);
-        Optional.ofNullable(updatedVehicle.getCategory()).ifPresent(existingVehicle::setCategory);
+        vinBloomFilter.addAll(toInsert.stream().map(Vehicle::getVin).toList());
+        for (int i = 0; i < toInsert.size(); i++) {
+            entityManager.persist(toInsert.get(i));
+            if ((i + 1) % WRITE_CHUNK_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        inventoryAggregates.record(removedFacts, addedFacts);
+        List<String> inserted = toInsert.stream().map(Vehicle::getVin).toList();
+        List<String> written = new ArrayList<>(inserted);
+        written.addAll(updated);
+        inventorySnapshot.refresh(written);
+        publishWrite(ChangeType.CREATED, inserted);
+        publishWrite(ChangeType.UPDATED, updated);
 
-        return vehicleRepository.save(existingVehicle);
+        errors.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        return new BatchResult(received, toInsert.size(), updated.size(), errors);
     }
 
     /**
-     * Deletes a vehicle in the database by its VIN
+     * Deletes a vehicle in the database by its VIN with a single DELETE statement that returns the aggregated fields
+     * of the row it removed, so the inventory aggregates subtract exactly what was deleted without reading it first.
      * @param vin the VIN, if found, of the vehicle to be deleted
-     * @throws IllegalArgumentException if the VIN does not correspond to a vehicle in the database
+     * @throws InvalidVinException if the VIN is invalid
+     * @throws VehicleNotFoundException if the VIN does not correspond to a vehicle in the database
      */
+    @CacheEvict(cacheNames = CacheConfig.VEHICLES_CACHE, key = "#vin")
     public void deleteVehicle(String vin) {
-        if (!vehicleRepository.existsById(vin)) {
-            throw new IllegalArgumentException("Vehicle with VIN " + vin + " not found.");
+        if (!mightExist(vin)) {
+            throw new VehicleNotFoundException(vin);
+        }
+        Map<String, VehicleFacts> deleted = vehicleRepository.deleteReturningFacts(List.of(vin));
+        if (deleted.isEmpty()) {
+            throw new VehicleNotFoundException(vin);
+        }
+        inventoryAggregates.record(deleted.values(), List.of());
+        inventorySnapshot.refresh(List.of(vin));
+        publishWrite(ChangeType.DELETED, List.of(vin));
+    }
+
+    /**
+     * Sells a vehicle: records the sale and removes the vehicle from the inventory in one transaction. The DELETE is
+     * guarded by the version that was read, like {@link #deleteVehicle}, so a concurrent update fails the sale.
+     * @param vin the VIN of the vehicle to sell
+     * @param sale the sale price and transaction type
+     * @return the recorded sale
+     * @throws VehicleAlreadySoldException if the vehicle is already recorded as sold
+     * @throws InvalidVinException if the VIN is invalid
+     * @throws VehicleNotFoundException if the vehicle is not found
+     * @throws OptimisticLockingFailureException if the vehicle was changed while it was being sold
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.VEHICLES_CACHE, key = "#vin")
+    public SoldVehicle sellVehicle(String vin, SaleRequest sale) {
+        if (!mightExist(vin)) {
+            throw new VehicleNotFoundException(vin);
+        }
+        VehicleFacts facts = vehicleRepository.findFactsByVin(vin)
+                .orElseThrow(() -> new VehicleNotFoundException(vin));
+        if (soldVehicleRepository.existsById(vin)) {
+            throw new VehicleAlreadySoldException(vin);
         }
-        vehicleRepository.deleteById(vin);
+        SoldVehicle sold = soldVehicleRepository.save(new SoldVehicle(vin, sale.salePrice(), sale.transactionType()));
+        if (vehicleRepository.deleteByVinAndVersion(vin, facts.version()) == 0) {
+            throw new OptimisticLockingFailureException("Vehicle with VIN " + vin + " was changed while being sold");
+        }
+        inventoryAggregates.record(List.of(facts), List.of());
+        inventorySnapshot.refresh(List.of(vin));
+        publishWrite(ChangeType.SOLD, List.of(vin));
+        return sold;
+    }
+
+    /**
+     * Deletes many vehicles, either by VIN or by criteria. The work is split into chunks of set-based DELETE
+     * statements that each commit on their own, so a large de-fleeting job never holds locks on all of its rows at
+     * once. A failure part way through leaves the chunks already committed deleted. Each chunk's DELETE returns the
+     * rows it removed, which are subtracted from the inventory aggregates and evicted from the cache.
+     * @param request the VINs, or the modelYearBefore/category criteria, of the vehicles to delete
+     * @return the number of vehicles deleted and the number of chunks it took
+     * @throws IllegalArgumentException if the request gives neither or both VINs and criteria
+     */
+    public BulkDeleteResult deleteVehicles(BulkDeleteRequest request) {
+        boolean byVin = request.vins() != null && !request.vins().isEmpty();
+        boolean byCriteria = request.modelYearBefore() != null
+                || (request.category() != null && !request.category().isBlank());
+        if (byVin == byCriteria) {
+            throw new IllegalArgumentException("Specify either vins or criteria (modelYearBefore, category)");
+        }
+        return deleteInChunks(request, byVin);
+    }
+
+    private BulkDeleteResult deleteInChunks(BulkDeleteRequest request, boolean byVin) {
+        int deleted = 0;
+        int chunks = 0;
+        if (byVin) {
+            List<String> vins = request.vins().stream().distinct().toList();
+            for (int from = 0; from < vins.size(); from += DELETE_CHUNK_SIZE) {
+                int to = Math.min(from + DELETE_CHUNK_SIZE, vins.size());
+                deleted += deleteChunk(vins.subList(from, to));
+                chunks++;
+            }
+            return new BulkDeleteResult(deleted, chunks);
+        }
+
+        Specification<Vehicle> criteria = Specification.allOf(
+                VehicleSpecifications.modelYearBefore(request.modelYearBefore()),
+                VehicleSpecifications.attributeEquals("category", request.category()));
+        List<String> chunk;
+        do {
+            // Deleted rows no longer match, so each pass simply takes the first matching chunk
+            chunk = vehicleRepository.findVins(criteria, DELETE_CHUNK_SIZE);
+            if (!chunk.isEmpty()) {
+                deleted += deleteChunk(chunk);
+                chunks++;
+            }
+        } while (chunk.size() == DELETE_CHUNK_SIZE);
+        return new BulkDeleteResult(deleted, chunks);
+    }
+
+    /**
+     * Deletes one chunk and announces only the vehicles the DELETE actually removed, so the change feed never
+     * reports a VIN that did not exist or that a concurrent request deleted first
+     * @return the number of vehicles deleted
+     */
+    private int deleteChunk(List<String> vins) {
+        Map<String, VehicleFacts> deleted = vehicleRepository.deleteReturningFacts(vins);
+        if (!deleted.isEmpty()) {
+            inventoryAggregates.record(deleted.values(), List.of());
+            inventorySnapshot.refresh(deleted.keySet());
+            publishWrite(ChangeType.DELETED, deleted.keySet());
+        }
+        return deleted.size();
+    }
+
+    /**
+     * Retrieves the inventory aggregates of every group in a dimension from the in-memory rollups
+     * @param dimension the attribute the vehicles are grouped by
+     * @return the count and purchase price / horse power statistics of each group, ordered by group key
+     */
+    public List<GroupAggregate> getAggregates(AggregateDimension dimension) {
+        return inventoryAggregates.getAggregates(dimension);
+    }
+
+    /**
+     * Retrieves the inventory aggregates of every dimension from the in-memory rollups
+     * @return the aggregates of each group, by dimension attribute
+     */
+    public Map<String, List<GroupAggregate>> getAllAggregates() {
+        Map<String, List<GroupAggregate>> result = new LinkedHashMap<>();
+        for (AggregateDimension dimension : AggregateDimension.values()) {
+            result.put(dimension.attribute(), inventoryAggregates.getAggregates(dimension));
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the number of vehicles in the in-memory snapshot and the heap they are estimated to use
+     * @return the snapshot statistics, all zero if the snapshot is disabled
+     */
+    public SnapshotStatistics getSnapshotStats() {
+        return inventorySnapshot.getStatistics();
     }
 
+    /**
+     * Subscribes to committed inventory changes
+     * @param lastEventId the id of the last change event the client received, or null for only new changes
+     * @return the emitter streaming the changes as server-sent events
+     */
+    public SseEmitter subscribeToChanges(String lastEventId) {
+        return changeFeed.subscribe(lastEventId);
+    }
 
     /**
      * Retrieves all sold vehicles from the database
      * @return a list of all sold vehicles
      */
+    @ReadFromReplica
     public List<SoldVehicle> getAllSoldVehicles() {
         return soldVehicleRepository.findAll();
     }
-}
 
+    /**
+     * Retrieves one page of VINs that appear both in the inventory and in the sold vehicles, computed in the database
+     * @param cursor the opaque cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of VINs on the page
+     * @return the page of VINs and the cursor for the next page, if there is one
+     * @throws IllegalArgumentException if the limit is out of range or the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    @ReadFromReplica
+    public CursorPage<String> getSoldVinsStillInInventory(String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<String> vins = soldVehicleRepository.findVinsStillInInventory(decodeCursor(cursor), Limit.of(limit + 1));
+        if (vins.size() <= limit) {
+            return new CursorPage<>(vins, null);
+        }
+        List<String> page = vins.subList(0, limit);
+        return new CursorPage<>(page, encodeCursor(page.get(limit - 1)));
+    }
+
+    /**
+     * Retrieves the hit, miss and eviction counters of the VIN cache
+     * @return the cache statistics, all zero if the cache is disabled
+     */
+    public CacheStatistics getCacheStats() {
+        Cache cache = cacheManager.getCache(CacheConfig.VEHICLES_CACHE);
+        if (!(cache instanceof CaffeineCache caffeineCache)) {
+            return new CacheStatistics(0, 0, 0, 0.0, 0);
+        }
+        com.github.benmanes.caffeine.cache.stats.CacheStats stats = caffeineCache.getNativeCache().stats();
+        return new CacheStatistics(caffeineCache.getNativeCache().estimatedSize(), stats.hitCount(),
+                stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+
+    /**
+     * Publishes a write once it has committed, or immediately if there is no transaction. The VINs are evicted from
+     * the VIN cache first, because its annotations only evict once the method returns, then the inventory version
+     * moves on, so nothing read at the new version can come from a stale cache entry, and only then is the change
+     * announced on the change feed.
+     * @param type the change to announce on the change feed, or null to announce nothing
+     * @param vins the VINs written, or null if any vehicle may have changed
+     */
+    private void publishWrite(ChangeType type, Collection<String> vins) {
+        if (vins != null && vins.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyWrite(type, vins);
+                }
+            });
+        } else {
+            applyWrite(type, vins);
+        }
+    }
+
+    private void applyWrite(ChangeType type, Collection<String> vins) {
+        evictAndIncrement(vins);
+        if (type != null && vins != null) {
+            changeFeed.publish(type, vins);
+        }
+    }
+
+    private void evictAndIncrement(Collection<String> vins) {
+        Cache cache = cacheManager.getCache(CacheConfig.VEHICLES_CACHE);
+        if (cache != null) {
+            if (vins == null) {
+                cache.clear();
+            } else {
+                vins.forEach(cache::evict);
+            }
+        }
+        inventoryVersion.increment(vins);
+    }
+
+    /**
+     * Checks a VIN from a request before any query is run
+     * @param vin the VIN from the request
+     * @return false if the VIN is definitely not in the inventory, true if it has to be looked up
+     * @throws InvalidVinException if the VIN is not a valid ISO 3779 VIN
+     */
+    private boolean mightExist(String vin) {
+        VinValidator.requireValid(vin);
+        return vinBloomFilter.mightContain(vin);
+    }
+
+    /**
+     * Copies the fields that are set on the updates onto the target vehicle
+     * @param target the vehicle to be modified
+     * @param updates the vehicle data to copy from
+     */
+    private static void applyUpdates(Vehicle target, Vehicle updates) {
+        Optional.ofNullable(updates.getManufacturerName()).ifPresent(target::setManufacturerName);
+        Optional.ofNullable(updates.getDescription()).ifPresent(target::setDescription);
+
+        if (updates.getHorsePower() > 0) { // Check for valid primitive value
+            target.setHorsePower(updates.getHorsePower());
+        }
+
+        Optional.ofNullable(updates.getModelName()).ifPresent(target::setModelName);
+
+        if (updates.getModelYear() > 0) { // Check for valid primitive value
+            target.setModelYear(updates.getModelYear());
+        }
+
+        Optional.ofNullable(updates.getPurchasePrice()).ifPresent(target::setPurchasePrice);
+        Optional.ofNullable(updates.getFuelType()).ifPresent(target::setFuelType);
+
+        Optional.ofNullable(updates.getColor()).ifPresent(target::setColor);
+        Optional.ofNullable(updates.getCategory()).ifPresent(target::setCategory);
+    }
+
+    static String encodeCursor(String vin) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(vin.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return "";
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.apollo.vehicle.service;
+
+import com.apollo.vehicle.repository.VehicleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory Bloom filter of the VINs in the inventory, so lookups of VINs that cannot exist are answered without a
+ * query. A negative answer is definite; a positive answer may be a false positive (about
+ * vehicle.vin-filter.false-positive-rate) and still goes to the database.
+ * <p>
+ * VINs are added before their rows are written and again once the write commits, so the filter never misses a VIN
+ * that is visible in the database, even while it is being rebuilt. Deleted VINs cannot be removed from a Bloom filter;
+ * they only cost extra false positives until the next rebuild, which runs at startup and every
+ * vehicle.vin-filter.rebuild-interval and also resizes the filter to the inventory.
+ * <p>
+ * The filter only sees the writes of its own instance, so it is off unless vehicle.vin-filter.enabled is set, which
+ * is only correct when a single instance writes to the database. While it is off every VIN might exist. Creates and
+ * upserts never trust a negative answer and always check the database.
+ */
+@Component
+public class VinBloomFilter {
+    private static final int REBUILD_PAGE_SIZE = 10_000;
+
+    private final VehicleRepository vehicleRepository;
+
+    private final Counter skippedLookups;
+
+    // Orders the swaps of concurrent rebuilds; a lock rather than synchronized so virtual threads are never pinned
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    @Value("${vehicle.vin-filter.enabled:false}")
+    private boolean enabled;
+
+    // Capacity of the filter when the inventory is smaller; a rebuild sizes it for twice the inventory otherwise
+    @Value("${vehicle.vin-filter.expected-vins:1000000}")
+    private long expectedVins = 1_000_000;
+
+    @Value("${vehicle.vin-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate = 0.01;
+
+    // Null until the first rebuild, during which every VIN might exist
+    private volatile Bits current;
+
+    // The filters being rebuilt, which writes must also reach
+    private final List<Bits> building = new CopyOnWriteArrayList<>();
+
+    // Guarded by rebuildLock
+    private long startedRebuilds;
+
+    // Guarded by rebuildLock
+    private long installedRebuild;
+
+    public VinBloomFilter(VehicleRepository vehicleRepository, MeterRegistry meterRegistry) {
+        this.vehicleRepository = vehicleRepository;
+        this.skippedLookups = Counter.builder("vehicle.vin.filter.negatives")
+                .description("VIN lookups answered as not found without a query").register(meterRegistry);
+    }
+
+    /**
+     * @param vin a valid VIN
+     * @return false if the VIN is definitely not in the inventory, true if it might be
+     */
+    public boolean mightContain(String vin) {
+        Bits bits = current;
+        if (bits == null || bits.mightContain(vin)) {
+            return true;
+        }
+        skippedLookups.increment();
+        return false;
+    }
+
+    /**
+     * Adds a VIN to the filter. Call it before the vehicle is written, and again after the write commits if it is
+     * not part of a transaction that {@link #addAll} can hook into.
+     * @param vin the VIN of a vehicle about to be, or just, inserted
+     */
+    public void add(String vin) {
+        // Reach the filters being built first: one that finishes in between is already current
+        for (Bits pending : building) {
+            pending.add(vin);
+        }
+        Bits bits = current;
+        if (bits != null) {
+            bits.add(vin);
+        }
+    }
+
+    /**
+     * Adds VINs of vehicles about to be inserted now, and again once the surrounding transaction commits so a
+     * rebuild that scanned the table before the commit still gets them
+     * @param vins the VINs of the vehicles about to be inserted
+     */
+    public void addAll(Collection<String> vins) {
+        if (vins.isEmpty()) {
+            return;
+        }
+        vins.forEach(this::add);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    vins.forEach(VinBloomFilter.this::add);
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds a new filter from every VIN in the database, read in keyset pages, and swaps it in. The pages are read
+     * without holding the lock, which only orders the swaps so an older rebuild never replaces a newer one.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${vehicle.vin-filter.rebuild-interval:PT1H}",
+            initialDelayString = "${vehicle.vin-filter.rebuild-interval:PT1H}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        Bits fresh = new Bits(Math.max(expectedVins, vehicleRepository.count() * 2), falsePositiveRate);
+        long generation;
+        rebuildLock.lock();
+        try {
+            generation = ++startedRebuilds;
+            building.add(fresh);
+        } finally {
+            rebuildLock.unlock();
+        }
+        try {
+            String after = "";
+            List<String> page;
+            do {
+                page = vehicleRepository.findVinsAfter(after, Limit.of(REBUILD_PAGE_SIZE));
+                page.forEach(fresh::add);
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1);
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+            rebuildLock.lock();
+            try {
+                if (generation > installedRebuild) {
+                    installedRebuild = generation;
+                    current = fresh;
+                }
+            } finally {
+                rebuildLock.unlock();
+            }
+        } finally {
+            // Only after the swap, so a VIN added in between reaches the new filter either way
+            building.remove(fresh);
+        }
+    }
+
+    /**
+     * A fixed-size bit set probed at k positions derived from two 64-bit hashes of the VIN. Setting and testing bits
+     * is lock-free and allocates nothing.
+     */
+    private static final class Bits {
+        private final AtomicLongArray words;
+
+        private final long size;
+
+        private final int hashes;
+
+        Bits(long expectedInsertions, double falsePositiveRate) {
+            if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+                throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+            }
+            long n = Math.max(1, expectedInsertions);
+            long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray(Math.toIntExact((bits + 63) / 64));
+            this.size = words.length() * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+        }
+
+        void add(String vin) {
+            long h1 = hash(vin);
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long index = Math.floorMod(h1 + i * h2, size);
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                if ((words.get(word) & mask) == 0) {
+                    words.accumulateAndGet(word, mask, (a, b) -> a | b);
+                }
+            }
+        }
+
+        boolean mightContain(String vin) {
+            long h1 = hash(vin);
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long index = Math.floorMod(h1 + i * h2, size);
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a over the characters, finished with the MurmurHash3 mixer to spread the bits
+        private static long hash(String vin) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < vin.length(); i++) {
+                h ^= vin.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
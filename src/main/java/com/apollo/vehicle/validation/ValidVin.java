@@ -0,0 +1,25 @@
+package com.apollo.vehicle.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The annotated string must be a valid ISO 3779 VIN, check digit included. Null is considered valid.
+ */
+@Documented
+@Constraint(validatedBy = ValidVinValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER, ElementType.RECORD_COMPONENT})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidVin {
+    String message() default "VIN must be 17 characters of 0-9 and A-Z except I, O and Q, with a valid check digit";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
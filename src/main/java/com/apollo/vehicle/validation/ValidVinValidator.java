@@ -0,0 +1,12 @@
+package com.apollo.vehicle.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class ValidVinValidator implements ConstraintValidator<ValidVin, CharSequence> {
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || VinValidator.isValid(value);
+    }
+}
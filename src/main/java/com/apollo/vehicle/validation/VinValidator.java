@@ -0,0 +1,69 @@
+package com.apollo.vehicle.validation;
+
+import com.apollo.vehicle.exception.InvalidVinException;
+
+import java.util.Arrays;
+
+/**
+ * Checks VINs against ISO 3779: 17 characters of 0-9 and A-Z except I, O and Q, with the check digit in position 9
+ * computed as in North America (transliterated values, weighted, modulo 11, 10 written as X). Works on the
+ * characters in place with static lookup tables, so validating a VIN allocates nothing.
+ */
+public final class VinValidator {
+    public static final int LENGTH = 17;
+
+    private static final int CHECK_DIGIT_POSITION = 8;
+
+    private static final int[] WEIGHTS = {8, 7, 6, 5, 4, 3, 2, 10, 0, 9, 8, 7, 6, 5, 4, 3, 2};
+
+    // Transliterated value of each ASCII character, or -1 if the character cannot appear in a VIN
+    private static final int[] VALUES = new int[128];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for (char c = '0'; c <= '9'; c++) {
+            VALUES[c] = c - '0';
+        }
+        String letters = "ABCDEFGHJKLMNPRSTUVWXYZ";
+        String values = "12345678123457923456789";
+        for (int i = 0; i < letters.length(); i++) {
+            VALUES[letters.charAt(i)] = values.charAt(i) - '0';
+        }
+    }
+
+    private VinValidator() {
+    }
+
+    /**
+     * @param vin the VIN to check, may be null
+     * @return true if the VIN has a valid length, character set and check digit
+     */
+    public static boolean isValid(CharSequence vin) {
+        if (vin == null || vin.length() != LENGTH) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = vin.charAt(i);
+            if (c >= VALUES.length || VALUES[c] < 0) {
+                return false;
+            }
+            sum += VALUES[c] * WEIGHTS[i];
+        }
+        int remainder = sum % 11;
+        char checkDigit = vin.charAt(CHECK_DIGIT_POSITION);
+        return remainder == 10 ? checkDigit == 'X' : checkDigit == '0' + remainder;
+    }
+
+    /**
+     * @param vin the VIN to check
+     * @return the VIN, if it is valid
+     * @throws InvalidVinException if the VIN is not a valid ISO 3779 VIN
+     */
+    public static String requireValid(String vin) {
+        if (!isValid(vin)) {
+            throw new InvalidVinException(vin);
+        }
+        return vin;
+    }
+}
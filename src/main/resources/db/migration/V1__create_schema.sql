@@ -0,0 +1,37 @@
+-- Schema owned by Flyway; Hibernate only validates it against the entities (spring.jpa.hibernate.ddl-auto=validate)
+
+create table attribute_value (
+    id integer generated by default as identity primary key,
+    attribute varchar(32) not null,
+    name varchar(255) not null,
+    constraint uk_attribute_value unique (attribute, name)
+);
+
+-- The *_code columns hold attribute_value ids
+create table vehicle (
+    vin varchar(17) not null primary key,
+    manufacturer_code integer not null,
+    description varchar(255) not null,
+    horse_power integer not null,
+    model_name varchar(255) not null,
+    model_year integer not null,
+    purchase_price numeric(10, 2) not null,
+    fuel_type_code integer not null,
+    color_code integer not null,
+    category_code integer not null,
+    version bigint not null
+);
+
+create index idx_vehicle_manufacturer_year on vehicle (manufacturer_code, model_year);
+create index idx_vehicle_category_fuel_year on vehicle (category_code, fuel_type_code, model_year);
+create index idx_vehicle_year_price on vehicle (model_year, purchase_price);
+create index idx_vehicle_price on vehicle (purchase_price);
+create index idx_vehicle_color on vehicle (color_code);
+
+create table sold_vehicle (
+    vin varchar(17) not null primary key,
+    sale_price numeric(10, 2) not null,
+    transaction_type varchar(255) not null
+);
+
+create index idx_sold_vehicle_transaction_type on sold_vehicle (transaction_type);
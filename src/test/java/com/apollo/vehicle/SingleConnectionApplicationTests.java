@@ -0,0 +1,71 @@
+package com.apollo.vehicle;
+
+import com.apollo.vehicle.dto.VehiclePatch;
+import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.repository.AttributeDictionary;
+import com.apollo.vehicle.repository.VehicleRepository;
+import com.apollo.vehicle.service.VehicleService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// With one pooled connection, a write that needed a second one for new dictionary values would time out. Flyway
+// migrates over its own connection, and the database is separate from the other tests'.
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:single-connection;DB_CLOSE_DELAY=-1",
+		"spring.flyway.url=jdbc:h2:mem:single-connection;DB_CLOSE_DELAY=-1",
+		"spring.flyway.user=sa",
+		"spring.datasource.hikari.maximum-pool-size=1",
+		"spring.datasource.hikari.connection-timeout=2000"
+})
+class SingleConnectionApplicationTests {
+
+	@Autowired
+	private VehicleService vehicleService;
+
+	@Autowired
+	private VehicleRepository vehicleRepository;
+
+	@Autowired
+	private AttributeDictionary attributeDictionary;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void testWritesWithNewDictionaryValuesNeedOneConnection() {
+		// The upsert reads the existing rows first, so its connection is held when the new values are added
+		vehicleService.createVehicles(List.of(vehicle("5YJSA1E24MF000001", "Rivian", "Teal")), true);
+		vehicleService.patchVehicle("5YJSA1E24MF000001",
+				new VehiclePatch("Lucid", null, null, null, null, null, null, "Saffron", null), null);
+
+		Vehicle patched = vehicleService.getVehicleByVin("5YJSA1E24MF000001");
+		assertThat(patched.getManufacturerName()).isEqualTo("Lucid");
+		assertThat(patched.getColor()).isEqualTo("Saffron");
+	}
+
+	@Test
+	void testDictionaryValuesOfRolledBackWriteAreDiscarded() {
+		transactionTemplate.executeWithoutResult(status -> {
+			vehicleRepository.saveAndFlush(vehicle("JTDKB20U493000001", "Polestar", "Mauve"));
+			status.setRollbackOnly();
+		});
+
+		assertThat(attributeDictionary.codeOf(AttributeDictionary.COLOR, "Mauve"))
+				.isEqualTo(AttributeDictionary.UNKNOWN_CODE);
+		vehicleService.createVehicle(vehicle("JTDKB20U493000001", "Polestar", "Mauve"));
+		assertThat(vehicleService.getVehicleByVin("JTDKB20U493000001").getColor()).isEqualTo("Mauve");
+	}
+
+	private static Vehicle vehicle(String vin, String manufacturerName, String color) {
+		return new Vehicle(vin, manufacturerName, "Mid-Size", 150, "Model", 2022, new BigDecimal("30000.00"),
+				"Electric", color, "Sedan");
+	}
+
+}
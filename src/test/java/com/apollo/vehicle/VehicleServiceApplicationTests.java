@@ -1,13 +1,77 @@
 package com.apollo.vehicle;
 
+import com.apollo.vehicle.dto.VehicleFacts;
+import com.apollo.vehicle.dto.VehicleSearchCriteria;
+import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.repository.VehicleRepository;
+import com.apollo.vehicle.service.VehicleService;
+import org.flywaydb.core.Flyway;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
 class VehicleServiceApplicationTests {
 
+	@Autowired
+	private VehicleService vehicleService;
+
+	@Autowired
+	private VehicleRepository vehicleRepository;
+
+	@Autowired
+	private Flyway flyway;
+
 	@Test
 	void contextLoads() {
+		// With ddl-auto=validate the context only starts if the migrated schema matches the entities
+		assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("1");
+	}
+
+	@Test
+	void testDictionaryEncodedVehiclesRoundTripAndSortByName() {
+		// Created out of alphabetical order, so the dictionary codes are too
+		vehicleService.createVehicle(vehicle("5YJSA1E24MF000001", "Tesla"));
+		vehicleService.createVehicle(vehicle("1HGCM82633A004352", "Honda"));
+		vehicleService.createVehicle(vehicle("JTDKB20U493000001", "Audi"));
+
+		assertThat(vehicleService.getVehicleByVin("1HGCM82633A004352").getManufacturerName()).isEqualTo("Honda");
+		VehicleSearchCriteria criteria = new VehicleSearchCriteria(null, null, null, "Sedan", null, null, null, null);
+		assertThat(vehicleService.searchVehicles(criteria, PageRequest.of(0, 10, Sort.by("manufacturerName")))
+				.map(Vehicle::getManufacturerName).getContent())
+				.containsExactly("Audi", "Honda", "Tesla");
+		assertThat(vehicleService.searchVehicles(criteria,
+						PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "manufacturerName")))
+				.map(Vehicle::getManufacturerName).getContent())
+				.containsExactly("Tesla", "Honda");
+	}
+
+	@Test
+	void testDeleteReturnsFactsOfDeletedVehiclesOnly() {
+		vehicleService.createVehicle(vehicle("1M8GDM9AXKP042788", "BMW"));
+
+		Map<String, VehicleFacts> deleted =
+				vehicleRepository.deleteReturningFacts(List.of("1M8GDM9AXKP042788", "1M8GDM9AXKP042789"));
+
+		assertThat(deleted).containsOnlyKeys("1M8GDM9AXKP042788");
+		VehicleFacts facts = deleted.get("1M8GDM9AXKP042788");
+		assertThat(facts.manufacturerName()).isEqualTo("BMW");
+		assertThat(facts.category()).isEqualTo("Sedan");
+		assertThat(facts.purchasePrice()).isEqualByComparingTo("30000.00");
+		assertThat(vehicleRepository.existsById("1M8GDM9AXKP042788")).isFalse();
+	}
+
+	private static Vehicle vehicle(String vin, String manufacturerName) {
+		return new Vehicle(vin, manufacturerName, "Mid-Size", 150, "Model", 2022, new BigDecimal("30000.00"),
+				"Gasoline", "Blue", "Sedan");
 	}
 
 }
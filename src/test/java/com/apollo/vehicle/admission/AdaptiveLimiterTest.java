@@ -0,0 +1,125 @@
+package com.apollo.vehicle.admission;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testReadsCanUseCapacityReservedFromWritesAndScans() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 10, 10, 0.2);
+        for (int i = 0; i < 8; i++) {
+            assertThat(limiter.acquire(RequestPriority.WRITE, Duration.ZERO))
+                    .isEqualTo(AdaptiveLimiter.Admission.ADMITTED);
+        }
+
+        assertThat(limiter.acquire(RequestPriority.SCAN, Duration.ZERO)).isEqualTo(AdaptiveLimiter.Admission.TIMED_OUT);
+        assertThat(limiter.acquire(RequestPriority.READ, Duration.ZERO)).isEqualTo(AdaptiveLimiter.Admission.ADMITTED);
+        assertThat(limiter.getInFlight()).isEqualTo(9);
+        assertThat(limiter.getQueued()).isZero();
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 0, 0);
+        limiter.acquire(RequestPriority.READ, Duration.ZERO);
+
+        assertThat(limiter.acquire(RequestPriority.READ, Duration.ofSeconds(5)))
+                .isEqualTo(AdaptiveLimiter.Admission.QUEUE_FULL);
+    }
+
+    @Test
+    void testFreedSlotGoesToHighestPriorityWaiter() throws InterruptedException {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 10, 0);
+        limiter.acquire(RequestPriority.READ, Duration.ZERO);
+        CompletableFuture<AdaptiveLimiter.Admission> scan = CompletableFuture.supplyAsync(
+                () -> limiter.acquire(RequestPriority.SCAN, Duration.ofSeconds(10)), executor);
+        awaitQueued(limiter, 1);
+        CompletableFuture<AdaptiveLimiter.Admission> read = CompletableFuture.supplyAsync(
+                () -> limiter.acquire(RequestPriority.READ, Duration.ofSeconds(10)), executor);
+        awaitQueued(limiter, 2);
+
+        limiter.release(RequestPriority.READ, FAST, true);
+
+        assertThat(read.join()).isEqualTo(AdaptiveLimiter.Admission.ADMITTED);
+        assertThat(scan).isNotDone();
+
+        limiter.release(RequestPriority.READ, FAST, true);
+
+        assertThat(scan.join()).isEqualTo(AdaptiveLimiter.Admission.ADMITTED);
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyIsSteady() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 4, 200, 10, 0);
+        for (int i = 0; i < 15; i++) {
+            limiter.acquire(RequestPriority.READ, Duration.ZERO);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(limiter.acquire(RequestPriority.READ, Duration.ZERO))
+                    .isEqualTo(AdaptiveLimiter.Admission.ADMITTED);
+            limiter.release(RequestPriority.READ, FAST, true);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 4, 200, 10, 0);
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire(RequestPriority.READ, Duration.ZERO);
+        }
+        limiter.release(RequestPriority.READ, FAST, true);
+
+        for (int i = 0; i < 9; i++) {
+            limiter.release(RequestPriority.READ, SLOW, true);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(16);
+    }
+
+    @Test
+    void testSlowScansDoNotShrinkLimitForFastReads() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(20, 4, 200, 10, 0);
+        for (int i = 0; i < 15; i++) {
+            limiter.acquire(RequestPriority.READ, Duration.ZERO);
+        }
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(RequestPriority.READ, Duration.ZERO);
+            limiter.release(RequestPriority.READ, FAST, true);
+            limiter.acquire(RequestPriority.SCAN, Duration.ZERO);
+            limiter.release(RequestPriority.SCAN, SLOW, true);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+    }
+
+    private static void awaitQueued(AdaptiveLimiter limiter, int queued) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getQueued() < queued && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(limiter.getQueued()).isEqualTo(queued);
+    }
+}
@@ -0,0 +1,81 @@
+package com.apollo.vehicle.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdmissionControlFilterTest {
+
+    private AdaptiveLimiter limiter;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new AdaptiveLimiter(1, 1, 1, 0, 0);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new AdmissionControlFilter(limiter, Map.of(RequestPriority.READ, Duration.ZERO,
+                RequestPriority.WRITE, Duration.ZERO, RequestPriority.SCAN, Duration.ZERO),
+                Duration.ofMillis(1500), meterRegistry);
+    }
+
+    @Test
+    void testAdmittedRequestReleasesItsSlot() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/vehicle/1HGCM82633A004352"),
+                new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void testRejectsWithServiceUnavailableWhenOverLimit() throws Exception {
+        limiter.acquire(RequestPriority.READ, Duration.ZERO);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/vehicle/search"), response, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(response.getContentAsString()).isEqualTo("{\"error\":\"Service is overloaded, retry later\"}");
+        assertThat(meterRegistry.get("vehicle.admission.rejected").tag("priority", "scan")
+                .tag("reason", "queue_full").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testStreamsBypassAdmission() throws Exception {
+        limiter.acquire(RequestPriority.READ, Duration.ZERO);
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/vehicle/changes"), new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    void testClassifiesRequests() {
+        assertThat(RequestPriority.of(new MockHttpServletRequest("GET", "/vehicle/1HGCM82633A004352")))
+                .isEqualTo(RequestPriority.READ);
+        assertThat(RequestPriority.of(new MockHttpServletRequest("GET", "/vehicle/")))
+                .isEqualTo(RequestPriority.SCAN);
+        assertThat(RequestPriority.of(new MockHttpServletRequest("DELETE", "/vehicle/1HGCM82633A004352")))
+                .isEqualTo(RequestPriority.WRITE);
+        assertThat(RequestPriority.of(new MockHttpServletRequest("POST", "/vehicle/lookup")))
+                .isEqualTo(RequestPriority.SCAN);
+        assertThat(RequestPriority.of(new MockHttpServletRequest("GET", "/vehicle/export/csv"))).isNull();
+    }
+}
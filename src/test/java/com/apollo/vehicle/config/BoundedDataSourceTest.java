@@ -0,0 +1,57 @@
+package com.apollo.vehicle.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class BoundedDataSourceTest {
+
+    private DataSource target;
+
+    private BoundedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        dataSource = new BoundedDataSource(target, 1, Duration.ofMillis(50));
+    }
+
+    @Test
+    void testFailsFastWhenAllPermitsAreHeld() throws Exception {
+        Connection held = dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        verify(target, times(1)).getConnection();
+        held.close();
+    }
+
+    @Test
+    void testClosingConnectionReleasesPermitOnce() throws Exception {
+        Connection first = dataSource.getConnection();
+        first.close();
+        first.close();
+
+        Connection second = dataSource.getConnection();
+        assertThat(second).isNotNull();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+    }
+
+    @Test
+    void testPermitReleasedWhenPoolFails() throws Exception {
+        when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool exhausted"))
+                .thenAnswer(invocation -> mock(Connection.class));
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertThat(dataSource.getConnection()).isNotNull();
+    }
+}
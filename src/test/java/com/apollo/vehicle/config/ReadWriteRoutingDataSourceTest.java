@@ -0,0 +1,138 @@
+package com.apollo.vehicle.config;
+
+import com.apollo.vehicle.service.InventoryVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primary;
+
+    private EmbeddedDatabase replica1;
+
+    private EmbeddedDatabase replica2;
+
+    private InventoryVersion inventoryVersion;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readOnly;
+
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica1 = database("replica-1");
+        replica2 = database("replica-2");
+        inventoryVersion = new InventoryVersion();
+        meterRegistry = new SimpleMeterRegistry();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(
+                primary, List.of(replica1, replica2), inventoryVersion, Duration.ofMinutes(1), meterRegistry));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        primary.shutdown();
+        replica1.shutdown();
+        replica2.shutdown();
+    }
+
+    @Test
+    void testReplicaReadsAreBalancedAcrossReplicas() {
+        List<String> routes = ReadRouting.readFromReplica(() ->
+                List.of(route(readOnly), route(readOnly), route(readOnly)));
+
+        assertThat(routes).containsExactly("replica-1", "replica-2", "replica-1");
+        assertThat(meterRegistry.get("vehicle.datasource.connections").tag("route", "replica").counter().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void testReadOnlyTransactionOutsideReplicaReadUsesPrimary() {
+        assertThat(route(readOnly)).isEqualTo("primary");
+    }
+
+    @Test
+    void testReadWriteTransactionUsesPrimary() {
+        assertThat(ReadRouting.readFromReplica(() -> route(readWrite))).isEqualTo("primary");
+    }
+
+    @Test
+    void testReadsStayOnPrimaryAfterWriteOfUnknownVehicles() {
+        inventoryVersion.increment();
+
+        assertThat(ReadRouting.readFromReplica(() -> route(readOnly))).isEqualTo("primary");
+    }
+
+    @Test
+    void testOnlyReadsOfRecentlyWrittenVinsStayOnPrimary() {
+        inventoryVersion.increment(List.of("1HGCM82633A004352"));
+
+        assertThat(routeReading(List.of("1HGCM82633A004352"), false)).isEqualTo("primary");
+        assertThat(routeReading(List.of("1M8GDM9AXKP042788", "1HGCM82633A004352"), false)).isEqualTo("primary");
+        assertThat(routeReading(List.of("1M8GDM9AXKP042788"), false)).startsWith("replica");
+        assertThat(ReadRouting.readFromReplica(() -> route(readOnly))).startsWith("replica");
+    }
+
+    @Test
+    void testSharedReadStaysOnPrimaryAfterAnyWrite() {
+        inventoryVersion.increment(List.of("1HGCM82633A004352"));
+
+        assertThat(routeReading(List.of(), true)).isEqualTo("primary");
+    }
+
+    @Test
+    void testClientPinnedToPrimaryAfterItsWrite() {
+        Boolean previous = ReadRouting.pinToPrimary();
+        try {
+            assertThat(ReadRouting.readFromReplica(() -> route(readOnly))).isEqualTo("primary");
+        } finally {
+            ReadRouting.unpin(previous);
+        }
+        assertThat(ReadRouting.readFromReplica(() -> route(readOnly))).startsWith("replica");
+    }
+
+    private String routeReading(Collection<String> vins, boolean shared) {
+        ReadRouting.ReplicaRead previous = ReadRouting.allowReplica(vins, shared);
+        try {
+            return route(readOnly);
+        } finally {
+            ReadRouting.restore(previous);
+        }
+    }
+
+    private String route(TransactionTemplate transaction) {
+        return transaction.execute(status -> jdbcTemplate.queryForObject("select name from route", String.class));
+    }
+
+    private static EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true).build();
+        new JdbcTemplate(database).execute("create table route (name varchar(20))");
+        new JdbcTemplate(database).update("insert into route values (?)", name);
+        return database;
+    }
+}
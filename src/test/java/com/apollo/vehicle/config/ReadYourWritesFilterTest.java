@@ -0,0 +1,77 @@
+package com.apollo.vehicle.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReadYourWritesFilterTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T10:00:00Z");
+
+    private final ReadYourWritesFilter filter =
+            new ReadYourWritesFilter(Duration.ofSeconds(2), Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void testWriteSetsCookieExpiringWithWindow() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("PATCH", "/vehicle/1HGCM82633A004352"), response,
+                (req, res) -> { });
+
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE))
+                .startsWith(ReadYourWritesFilter.COOKIE_NAME + "=" + NOW.toEpochMilli())
+                .contains("Max-Age=2");
+    }
+
+    @Test
+    void testReadWithinWindowOfOwnWriteIsPinnedToPrimary() throws Exception {
+        assertThat(replicaAllowed(NOW.toEpochMilli() - 1000)).isFalse();
+    }
+
+    @Test
+    void testReadAfterWindowOrWithoutWriteMayUseReplica() throws Exception {
+        assertThat(replicaAllowed(NOW.toEpochMilli() - 2000)).isTrue();
+        assertThat(replicaAllowed(null)).isTrue();
+    }
+
+    private boolean replicaAllowed(Long lastWrite) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/vehicle/1HGCM82633A004352");
+        if (lastWrite != null) {
+            request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, Long.toString(lastWrite)));
+        }
+        AtomicBoolean allowed = new AtomicBoolean();
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            ReadRouting.ReplicaRead previous = ReadRouting.allowReplica(List.of(), false);
+            try {
+                allowed.set(ReadRouting.eligibleRead() != null);
+            } finally {
+                ReadRouting.restore(previous);
+            }
+        });
+        return allowed.get();
+    }
+}
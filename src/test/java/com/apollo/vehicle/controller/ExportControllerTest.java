@@ -0,0 +1,89 @@
+package com.apollo.vehicle.controller;
+
+import com.apollo.vehicle.export.ExportFormat;
+import com.apollo.vehicle.export.ExportTable;
+import com.apollo.vehicle.service.ExportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ExportController.class)
+@AutoConfigureMockMvc
+@Import(SimpleMeterRegistry.class)
+public class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ExportService exportService;
+
+    @Test
+    void testExportIsGzippedWhenAccepted() throws Exception {
+        MvcResult result = mockMvc.perform(get("/vehicle/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE));
+        verify(exportService).export(eq(ExportTable.VEHICLES), eq(ExportFormat.CSV), eq(null), eq(false), eq(true),
+                any());
+    }
+
+    @Test
+    void testExportIsPlainWithoutAcceptEncoding() throws Exception {
+        MvcResult result = mockMvc.perform(get("/vehicle/export/sold"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        verify(exportService).export(eq(ExportTable.SOLD_VEHICLES), eq(ExportFormat.CSV), eq(null), eq(false),
+                eq(false), any());
+    }
+
+    @Test
+    void testExportRangeIsPartialContent() throws Exception {
+        MvcResult result = mockMvc.perform(get("/vehicle/export")
+                        .header(HttpHeaders.RANGE, "vin=1HGCM82633A004352-")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "vin 1HGCM82633A004352-"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "vin"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        verify(exportService).export(eq(ExportTable.VEHICLES), eq(ExportFormat.CSV), eq("1HGCM82633A004352"),
+                eq(true), eq(false), any());
+    }
+
+    @Test
+    void testExportRejectsAfterTogetherWithRange() throws Exception {
+        mockMvc.perform(get("/vehicle/export")
+                        .param("after", "1HGCM82633A004352")
+                        .header(HttpHeaders.RANGE, "vin=1HGCM82633A004352-"))
+                .andExpect(status().isBadRequest());
+    }
+}
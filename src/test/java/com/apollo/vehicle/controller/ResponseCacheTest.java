@@ -0,0 +1,67 @@
+package com.apollo.vehicle.controller;
+
+import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.service.InventoryVersion;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseCacheTest {
+
+    private final Vehicle vehicle = new Vehicle("1HGCM82633A004352", "Toyota", "SUV", 150, "Camry", 2020,
+            new BigDecimal("25000.00"), "Gasoline", "Red", "SUV");
+
+    @Test
+    void testResponsesAreKeptUntilTheyExpire() {
+        ResponseCache responseCache = responseCache(Duration.ofMinutes(10));
+        AtomicInteger loads = new AtomicInteger();
+
+        responseCache.getVehicle(vehicle.getVin(), vin -> load(loads));
+        responseCache.getVehicle(vehicle.getVin(), vin -> load(loads));
+        responseCache.getAllVehicles(() -> List.of(load(loads)));
+        responseCache.getAllVehicles(() -> List.of(load(loads)));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void testExpiredResponsesAreReloadedWithoutALocalWrite() {
+        // Writes made through another instance never reach this instance's InventoryVersion
+        ResponseCache responseCache = responseCache(Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+
+        responseCache.getVehicle(vehicle.getVin(), vin -> load(loads));
+        responseCache.getVehicle(vehicle.getVin(), vin -> load(loads));
+        responseCache.getAllVehicles(() -> List.of(load(loads)));
+        responseCache.getAllVehicles(() -> List.of(load(loads)));
+
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void testListETagChangesWithTheBody() {
+        ResponseCache responseCache = responseCache(Duration.ZERO);
+
+        String before = responseCache.getAllVehicles(() -> List.of(vehicle)).etag();
+        vehicle.setColor("Blue");
+        String after = responseCache.getAllVehicles(() -> List.of(vehicle)).etag();
+
+        assertThat(after).isNotEqualTo(before);
+    }
+
+    private Vehicle load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return vehicle;
+    }
+
+    private static ResponseCache responseCache(Duration expireAfterWrite) {
+        return new ResponseCache(new ObjectMapper().findAndRegisterModules(), new InventoryVersion(), 100, 1024,
+                expireAfterWrite);
+    }
+}
@@ -1,28 +1,69 @@
 package com.apollo.vehicle.controller;
 
 import com.apollo.vehicle.controller.VehicleController;
+import com.apollo.vehicle.dto.AggregateDimension;
+import com.apollo.vehicle.dto.BatchItemError;
+import com.apollo.vehicle.dto.BatchResult;
+import com.apollo.vehicle.dto.CacheStatistics;
+import com.apollo.vehicle.dto.CursorPage;
+import com.apollo.vehicle.dto.GroupAggregate;
+import com.apollo.vehicle.dto.SaleRequest;
+import com.apollo.vehicle.dto.SnapshotStatistics;
+import com.apollo.vehicle.dto.VehiclePatch;
+import com.apollo.vehicle.dto.VehicleField;
+import com.apollo.vehicle.dto.VehicleLookupResult;
+import com.apollo.vehicle.dto.VehicleSearchCriteria;
+import com.apollo.vehicle.entity.SoldVehicle;
 import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.exception.InvalidVinException;
+import com.apollo.vehicle.exception.PreconditionFailedException;
+import com.apollo.vehicle.exception.VehicleAlreadyExistsException;
+import com.apollo.vehicle.exception.VehicleAlreadySoldException;
+import com.apollo.vehicle.exception.VehicleNotFoundException;
+import com.apollo.vehicle.service.InventoryVersion;
 import com.apollo.vehicle.service.VehicleService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 
 @WebMvcTest(controllers = VehicleController.class)
 @AutoConfigureMockMvc
+@Import({ResponseCache.class, InventoryVersion.class, SimpleMeterRegistry.class})
 public class VehicleControllerTest {
 
     @Autowired
@@ -31,30 +72,42 @@ public class VehicleControllerTest {
     @MockBean
     private VehicleService vehicleService;
 
+    @Autowired
+    private InventoryVersion inventoryVersion;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Vehicle vehicle;
     private Vehicle vehicle2;
 
     @BeforeEach
     void setUp() {
+        // Responses cached by an earlier test must not be served from the new mocks
+        inventoryVersion.increment();
         vehicle = new Vehicle(
-                "ABCDE12345ABCDE12",
+                "1HGCM82633A004352",
                 "Toyota",
                 "SUV",
                 150,
                 "Camry",
                 2020,
                 new BigDecimal("25000.00"),
-                "Gasoline"
+                "Gasoline",
+                "Red",
+                "SUV"
         );
         vehicle2 = new Vehicle(
-                "ABCDE12345ABCDE12",
+                "1HGCM82633A004352",
                 "Toyota",
                 "SUV",
                 180,
                 "Sedan",
                 2024,
                 new BigDecimal("29000.00"),
-                "Gasoline"
+                "Gasoline",
+                "Red",
+                "SUV"
         );
     }
 
@@ -94,16 +147,147 @@ public class VehicleControllerTest {
         verify(vehicleService, times(1)).getVehicleByVin(vehicle.getVin());
     }
 
+    @Test
+    void testGetAllVehiclesWithFields() throws Exception {
+        Set<VehicleField> fields = EnumSet.of(VehicleField.VIN, VehicleField.MODEL_NAME, VehicleField.PURCHASE_PRICE);
+        when(vehicleService.getAllVehicles(fields)).thenReturn(List.of(VehicleField.project(vehicle, fields)));
+
+        mockMvc.perform(get("/vehicle").param("fields", "modelName,purchasePrice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].vin").value(vehicle.getVin()))
+                .andExpect(jsonPath("$[0].modelName").value(vehicle.getModelName()))
+                .andExpect(jsonPath("$[0].purchasePrice").value(vehicle.getPurchasePrice().doubleValue()))
+                .andExpect(jsonPath("$[0].description").doesNotExist());
+
+        verify(vehicleService, never()).getAllVehicles();
+    }
+
+    @Test
+    void testGetVehicleByVinRejectsUnknownField() throws Exception {
+        mockMvc.perform(get("/vehicle/{vin}", vehicle.getVin()).param("fields", "modelName,owner"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Unknown field owner"));
+
+        verifyNoInteractions(vehicleService);
+    }
+
+    @Test
+    void testGetVehicleByVinRevalidatesFromCache() throws Exception {
+        vehicle.setVersion(3L);
+        when(vehicleService.getVehicleByVin(vehicle.getVin())).thenReturn(vehicle);
+
+        String etag = mockMvc.perform(get("/vehicle/{vin}", vehicle.getVin()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"3-")))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/vehicle/{vin}", vehicle.getVin()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().bytes(new byte[0]));
+
+        verify(vehicleService, times(1)).getVehicleByVin(vehicle.getVin());
+    }
+
+    @Test
+    void testGetVehicleByVinChangesETagWhenRecreatedAtSameVersion() throws Exception {
+        vehicle.setVersion(0L);
+        when(vehicleService.getVehicleByVin(vehicle.getVin())).thenReturn(vehicle);
+        String etag = mockMvc.perform(get("/vehicle/{vin}", vehicle.getVin()))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Deleted and created again with other values, starting over at version 0
+        vehicle2.setVersion(0L);
+        vehicle2.setVin(vehicle.getVin());
+        when(vehicleService.getVehicleByVin(vehicle.getVin())).thenReturn(vehicle2);
+        inventoryVersion.increment(List.of(vehicle.getVin()));
+
+        mockMvc.perform(get("/vehicle/{vin}", vehicle.getVin()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.modelName").value(vehicle2.getModelName()));
+    }
+
+    @Test
+    void testGetVehicleByVinStaysCachedAcrossWritesToOtherVehicles() throws Exception {
+        vehicle2.setVin("1M8GDM9AXKP042788");
+        when(vehicleService.getVehicleByVin(vehicle.getVin())).thenReturn(vehicle);
+        when(vehicleService.getVehicleByVin(vehicle2.getVin())).thenReturn(vehicle2);
+        mockMvc.perform(get("/vehicle/{vin}", vehicle.getVin())).andExpect(status().isOk());
+        mockMvc.perform(get("/vehicle/{vin}", vehicle2.getVin())).andExpect(status().isOk());
+
+        inventoryVersion.increment(List.of(vehicle2.getVin()));
+        mockMvc.perform(get("/vehicle/{vin}", vehicle.getVin())).andExpect(status().isOk());
+        mockMvc.perform(get("/vehicle/{vin}", vehicle2.getVin())).andExpect(status().isOk());
+
+        verify(vehicleService, times(1)).getVehicleByVin(vehicle.getVin());
+        verify(vehicleService, times(2)).getVehicleByVin(vehicle2.getVin());
+    }
+
+    @Test
+    void testGetAllVehiclesReloadsAfterWrite() throws Exception {
+        when(vehicleService.getAllVehicles()).thenReturn(List.of(vehicle));
+
+        String etag = mockMvc.perform(get("/vehicle"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/vehicle").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        verify(vehicleService, times(1)).getAllVehicles();
+
+        inventoryVersion.increment();
+        mockMvc.perform(get("/vehicle").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$[0].vin").value(vehicle.getVin()));
+        verify(vehicleService, times(2)).getAllVehicles();
+    }
+
+    @Test
+    void testGetAllVehiclesGzipWhenAccepted() throws Exception {
+        List<Vehicle> vehicles = IntStream.range(0, 20).mapToObj(i -> vehicle).toList();
+        when(vehicleService.getAllVehicles()).thenReturn(vehicles);
+
+        MvcResult result = mockMvc.perform(get("/vehicle").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andReturn();
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                    .startsWith("[{\"vin\":\"" + vehicle.getVin() + "\"");
+        }
+        mockMvc.perform(get("/vehicle"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
     @Test
     void testReturnNotFoundWhenVehicleNotExists() throws Exception {
         when(vehicleService.getVehicleByVin(vehicle.getVin()))
-                .thenThrow(new IllegalArgumentException("Vehicle not found"));
+                .thenThrow(new VehicleNotFoundException(vehicle.getVin()));
+        double notFound = meterRegistry.counter("vehicle.errors", "type", "not_found").count();
 
         mockMvc.perform(get("/vehicle/{vin}", vehicle.getVin()))
-                .andExpect(status().isBadRequest())
+                .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.error").value("Vehicle not found"));
 
         verify(vehicleService, times(1)).getVehicleByVin(vehicle.getVin());
+        assertThat(meterRegistry.counter("vehicle.errors", "type", "not_found").count()).isEqualTo(notFound + 1);
+    }
+
+    @Test
+    void testReturnBadRequestWhenVinIsInvalid() throws Exception {
+        when(vehicleService.getVehicleByVin("1HGCM82643A004352"))
+                .thenThrow(new InvalidVinException("1HGCM82643A004352"));
+        double invalidVin = meterRegistry.counter("vehicle.errors", "type", "invalid_vin").count();
+
+        mockMvc.perform(get("/vehicle/{vin}", "1HGCM82643A004352"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid VIN"));
+
+        assertThat(meterRegistry.counter("vehicle.errors", "type", "invalid_vin").count()).isEqualTo(invalidVin + 1);
     }
 
     @Test
@@ -114,14 +298,16 @@ public class VehicleControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("""
                                 {
-                                    "vin": "ABCDE12345ABCDE12",
+                                    "vin": "1HGCM82633A004352",
                                     "manufacturerName": "Toyota",
                                     "description": "SUV",
                                     "horsePower": 150,
                                     "modelName": "Camry",
                                     "modelYear": 2020,
                                     "purchasePrice": 25000.00,
-                                    "fuelType": "Gasoline"
+                                    "fuelType": "Gasoline",
+                                    "color": "Red",
+                                    "category": "SUV"
                                 }
                                 """))
                 .andExpect(status().isCreated())
@@ -140,14 +326,16 @@ public class VehicleControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("""
                                 {
-                                    "vin": "ABCDE12345ABCDE12",
+                                    "vin": "1HGCM82633A004352",
                                     "manufacturerName": "Toyota",
                                     "description": "SUV",
                                     "horsePower": 180,
                                     "modelName": "Sedan",
                                     "modelYear": 2024,
                                     "purchasePrice": 29000.00,
-                                    "fuelType": "Gasoline"
+                                    "fuelType": "Gasoline",
+                                    "color": "Red",
+                                    "category": "SUV"
                                 }
                                 """))
                 .andExpect(status().isOk())
@@ -169,13 +357,120 @@ public class VehicleControllerTest {
         verify(vehicleService, times(1)).deleteVehicle(vehicle.getVin());
     }
 
+    @Test
+    void testSellVehicle() throws Exception {
+        when(vehicleService.sellVehicle(eq(vehicle.getVin()), any(SaleRequest.class)))
+                .thenReturn(new SoldVehicle(vehicle.getVin(), new BigDecimal("27000.00"), "Retail"));
+
+        mockMvc.perform(post("/vehicle/{vin}/sell", vehicle.getVin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "salePrice": 27000.00, "transactionType": "Retail" }
+                                """))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.vin").value(vehicle.getVin()))
+                .andExpect(jsonPath("$.salePrice").value(27000.00))
+                .andExpect(jsonPath("$.transactionType").value("Retail"));
+    }
+
+    @Test
+    void testSellVehicleNotFound() throws Exception {
+        when(vehicleService.sellVehicle(eq(vehicle.getVin()), any(SaleRequest.class)))
+                .thenThrow(new VehicleNotFoundException(vehicle.getVin()));
+
+        mockMvc.perform(post("/vehicle/{vin}/sell", vehicle.getVin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "salePrice": 27000.00, "transactionType": "Retail" }
+                                """))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Vehicle not found"));
+    }
+
+    @Test
+    void testSellVehicleInvalidRequest() throws Exception {
+        mockMvc.perform(post("/vehicle/{vin}/sell", vehicle.getVin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "salePrice": 0, "transactionType": "" }
+                                """))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.salePrice").value("Sale price must be greater than 0"))
+                .andExpect(jsonPath("$.transactionType").value("Transaction type cannot be null"));
+
+        verify(vehicleService, never()).sellVehicle(any(), any());
+    }
+
+    @Test
+    void testGetAllSoldVehicles() throws Exception {
+        when(vehicleService.getAllSoldVehicles())
+                .thenReturn(List.of(new SoldVehicle(vehicle.getVin(), new BigDecimal("27000.00"), "Retail")));
+
+        mockMvc.perform(get("/vehicle/getSoldVehicles"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].vin").value(vehicle.getVin()))
+                .andExpect(jsonPath("$[0].salePrice").value(27000.00))
+                .andExpect(jsonPath("$[0].transactionType").value("Retail"));
+    }
+
+    @Test
+    void testGetSoldVinsStillInInventory() throws Exception {
+        when(vehicleService.getSoldVinsStillInInventory(null, 1))
+                .thenReturn(new CursorPage<>(List.of(vehicle.getVin()), "next"));
+
+        mockMvc.perform(get("/vehicle/getSoldVehicles/inInventory").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0]").value(vehicle.getVin()))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void testSellVehicleAlreadySold() throws Exception {
+        when(vehicleService.sellVehicle(eq(vehicle.getVin()), any(SaleRequest.class)))
+                .thenThrow(new VehicleAlreadySoldException(vehicle.getVin()));
+
+        mockMvc.perform(post("/vehicle/{vin}/sell", vehicle.getVin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "salePrice": 27000.00, "transactionType": "Retail" }
+                                """))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Vehicle already sold"));
+    }
+
+    @Test
+    void testLookupVehicles() throws Exception {
+        when(vehicleService.lookupVehicles(List.of(vehicle.getVin(), "5YJSA1E24MF000001")))
+                .thenReturn(new VehicleLookupResult(List.of(vehicle), List.of("5YJSA1E24MF000001")));
+
+        mockMvc.perform(post("/vehicle/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "vins": ["1HGCM82633A004352", "5YJSA1E24MF000001"] }
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vehicles[0].vin").value(vehicle.getVin()))
+                .andExpect(jsonPath("$.missing[0]").value("5YJSA1E24MF000001"));
+    }
+
+    @Test
+    void testSubscribeToChangesPassesLastEventIdToFeed() throws Exception {
+        // The feed decides whether the id is one of its own; any other id gets a reset event rather than an error
+        when(vehicleService.subscribeToChanges("abc")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/vehicle/changes").header("Last-Event-ID", "abc"))
+                .andExpect(status().isOk());
+
+        verify(vehicleService).subscribeToChanges("abc");
+    }
+
     @Test
     void testCreateVehicleValidationError() throws Exception {
         mockMvc.perform(post("/vehicle")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("""
                                 {
-                                    "vin": "ABCDE12345ABCDE12",
+                                    "vin": "1HGCM82633A004352",
                                     "manufacturerName": "Toyota",
                                     "horsePower": 150
                                 }
@@ -185,31 +480,83 @@ public class VehicleControllerTest {
         verify(vehicleService, never()).createVehicle(any(Vehicle.class));
     }
 
+    @Test
+    void testCreateVehicleWithWrongCheckDigit() throws Exception {
+        mockMvc.perform(post("/vehicle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "vin": "1HGCM82643A004352",
+                                    "manufacturerName": "Toyota",
+                                    "description": "SUV",
+                                    "horsePower": 150,
+                                    "modelName": "Camry",
+                                    "modelYear": 2020,
+                                    "purchasePrice": 25000.00,
+                                    "fuelType": "Gasoline",
+                                    "color": "Red",
+                                    "category": "SUV"
+                                }
+                                """))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.vin").exists());
+
+        verify(vehicleService, never()).createVehicle(any(Vehicle.class));
+    }
+
     @Test
     void testCreateVehicleDuplicateVin() throws Exception {
         when(vehicleService.createVehicle(Mockito.any(Vehicle.class)))
-                .thenThrow(new IllegalArgumentException("Vehicle with VIN already exists"));
+                .thenThrow(new VehicleAlreadyExistsException("1HGCM82633A004352"));
 
         mockMvc.perform(post("/vehicle")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("""
                     {
-                        "vin": "ABCDE12345ABCDE12",
+                        "vin": "1HGCM82633A004352",
                         "manufacturerName": "Toyota",
                         "description": "SUV",
                         "horsePower": 150,
                         "modelName": "Camry",
                         "modelYear": 2020,
                         "purchasePrice": 25000.00,
-                        "fuelType": "Gasoline"
+                        "fuelType": "Gasoline",
+                        "color": "Red",
+                        "category": "SUV"
                     }
                     """))
-                .andExpect(status().isBadRequest())
-                .andExpect(jsonPath("$.error").value("Vehicle with VIN already exists"));
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Vehicle already exists"));
 
         verify(vehicleService, times(1)).createVehicle(Mockito.any(Vehicle.class));
     }
 
+    @Test
+    void testCreateVehicleConstraintViolation() throws Exception {
+        when(vehicleService.createVehicle(Mockito.any(Vehicle.class)))
+                .thenThrow(new DataIntegrityViolationException("Unique index violation: PUBLIC.VEHICLE(VIN)"));
+
+        mockMvc.perform(post("/vehicle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                    {
+                        "vin": "1HGCM82633A004352",
+                        "manufacturerName": "Toyota",
+                        "description": "SUV",
+                        "horsePower": 150,
+                        "modelName": "Camry",
+                        "modelYear": 2020,
+                        "purchasePrice": 25000.00,
+                        "fuelType": "Gasoline",
+                        "color": "Red",
+                        "category": "SUV"
+                    }
+                    """))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Request conflicts with the current inventory"))
+                .andExpect(jsonPath("$.details").doesNotExist());
+    }
+
     @Test
     void testGetAllVehiclesEmpty() throws Exception {
         when(vehicleService.getAllVehicles()).thenReturn(Collections.emptyList());
@@ -220,4 +567,238 @@ public class VehicleControllerTest {
 
         verify(vehicleService, times(1)).getAllVehicles();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetVehiclePage() throws Exception {
+        when(vehicleService.getVehiclePage(null, 1))
+                .thenReturn(new CursorPage<>(Collections.singletonList(vehicle), "QUJDREUxMjM0NUFCQ0RFMTI"));
+
+        mockMvc.perform(get("/vehicle").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].vin").value(vehicle.getVin()))
+                .andExpect(jsonPath("$.nextCursor").value("QUJDREUxMjM0NUFCQ0RFMTI"));
+
+        verify(vehicleService, times(1)).getVehiclePage(null, 1);
+        verify(vehicleService, never()).getAllVehicles();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamAllVehicles() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Vehicle> consumer = invocation.getArgument(0);
+            consumer.accept(vehicle);
+            consumer.accept(vehicle2);
+            return null;
+        }).when(vehicleService).streamAllVehicles(any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(get("/vehicle/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(startsWith("{\"vin\":\"" + vehicle.getVin() + "\"")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCreateVehiclesBatch() throws Exception {
+        when(vehicleService.createVehicles(any(List.class), eq(false))).thenReturn(new BatchResult(2, 1, 0,
+                List.of(new BatchItemError(1, "1HGCM82633A004352", "Duplicate VIN in batch"))));
+
+        mockMvc.perform(post("/vehicle/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [
+                                    {"vin": "1HGCM82633A004352", "manufacturerName": "Toyota"},
+                                    {"vin": "1HGCM82633A004352", "manufacturerName": "Toyota"}
+                                ]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.errors[0].index").value(1))
+                .andExpect(jsonPath("$.errors[0].message").value("Duplicate VIN in batch"));
+
+        verify(vehicleService, times(1)).createVehicles(any(List.class), eq(false));
+    }
+
+    @Test
+    void testGetCacheStats() throws Exception {
+        when(vehicleService.getCacheStats()).thenReturn(new CacheStatistics(1, 3, 1, 0.75, 0));
+
+        mockMvc.perform(get("/vehicle/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hitCount").value(3))
+                .andExpect(jsonPath("$.hitRate").value(0.75));
+
+        verify(vehicleService, never()).getVehicleByVin(any());
+    }
+
+    @Test
+    void testGetSnapshotStats() throws Exception {
+        when(vehicleService.getSnapshotStats())
+                .thenReturn(new SnapshotStatistics(true, 2, 600, 300, 1_000_000, 0.0006));
+
+        mockMvc.perform(get("/vehicle/snapshot/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.enabled").value(true))
+                .andExpect(jsonPath("$.bytesPerVehicle").value(300));
+    }
+
+    @Test
+    void testGetAggregatesByDimension() throws Exception {
+        GroupAggregate suv = GroupAggregate.of("SUV", 2, new BigDecimal("50000.00"), new BigDecimal("20000.00"),
+                new BigDecimal("30000.00"), 300, 100, 200);
+        when(vehicleService.getAggregates(AggregateDimension.CATEGORY)).thenReturn(List.of(suv));
+
+        mockMvc.perform(get("/vehicle/aggregates/category"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].key").value("SUV"))
+                .andExpect(jsonPath("$[0].count").value(2))
+                .andExpect(jsonPath("$[0].purchasePriceAvg").value(25000.00))
+                .andExpect(jsonPath("$[0].horsePowerMax").value(200));
+
+        verify(vehicleService, never()).getAllVehicles();
+    }
+
+    @Test
+    void testGetAggregatesRejectsUnknownDimension() throws Exception {
+        mockMvc.perform(get("/vehicle/aggregates/description"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testSearchVehicles() throws Exception {
+        ArgumentCaptor<VehicleSearchCriteria> criteria = ArgumentCaptor.forClass(VehicleSearchCriteria.class);
+        when(vehicleService.searchVehicles(any(VehicleSearchCriteria.class), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(vehicle), PageRequest.of(0, 20), 1));
+
+        mockMvc.perform(get("/vehicle/search")
+                        .param("manufacturerName", "Toyota")
+                        .param("minModelYear", "2020")
+                        .param("maxPrice", "40000")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].vin").value(vehicle.getVin()))
+                .andExpect(jsonPath("$.page.totalElements").value(1));
+
+        verify(vehicleService).searchVehicles(criteria.capture(), any(Pageable.class));
+        assertThat(criteria.getValue().manufacturerName()).isEqualTo("Toyota");
+        assertThat(criteria.getValue().minModelYear()).isEqualTo(2020);
+        assertThat(criteria.getValue().maxModelYear()).isNull();
+        assertThat(criteria.getValue().maxPrice()).isEqualByComparingTo("40000");
+    }
+
+    @Test
+    void testUpdateVehicleWithIfMatch() throws Exception {
+        vehicle2.setVersion(4L);
+        when(vehicleService.updateVehicle(eq(vehicle.getVin()), any(Vehicle.class), eq(3L))).thenReturn(vehicle2);
+
+        mockMvc.perform(put("/vehicle/{vin}", vehicle.getVin())
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "vin": "1HGCM82633A004352",
+                                    "manufacturerName": "Toyota",
+                                    "description": "SUV",
+                                    "horsePower": 180,
+                                    "modelName": "Sedan",
+                                    "modelYear": 2024,
+                                    "purchasePrice": 29000.00,
+                                    "fuelType": "Gasoline",
+                                    "color": "Red",
+                                    "category": "SUV"
+                                }
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.version").value(4));
+
+        verify(vehicleService, never()).updateVehicle(eq(vehicle.getVin()), any(Vehicle.class));
+    }
+
+    @Test
+    void testUpdateVehicleWithStaleIfMatch() throws Exception {
+        when(vehicleService.updateVehicle(eq(vehicle.getVin()), any(Vehicle.class), eq(3L)))
+                .thenThrow(new PreconditionFailedException("Vehicle with VIN 1HGCM82633A004352 has been modified"));
+
+        mockMvc.perform(put("/vehicle/{vin}", vehicle.getVin())
+                        .header("If-Match", "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "vin": "1HGCM82633A004352",
+                                    "manufacturerName": "Toyota",
+                                    "description": "SUV",
+                                    "horsePower": 180,
+                                    "modelName": "Sedan",
+                                    "modelYear": 2024,
+                                    "purchasePrice": 29000.00,
+                                    "fuelType": "Gasoline",
+                                    "color": "Red",
+                                    "category": "SUV"
+                                }
+                                """))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testPatchVehicleAcceptsETagOfGet() throws Exception {
+        when(vehicleService.patchVehicle(eq(vehicle.getVin()), any(VehiclePatch.class), eq(3L))).thenReturn(1);
+
+        mockMvc.perform(patch("/vehicle/{vin}", vehicle.getVin())
+                        .header("If-Match", "\"3-1x2y3z\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"color\": \"Blue\"}"))
+                .andExpect(status().isOk());
+
+        verify(vehicleService, times(1)).patchVehicle(eq(vehicle.getVin()), any(VehiclePatch.class), eq(3L));
+    }
+
+    @Test
+    void testPatchVehicleDistinguishesAbsentFromZero() throws Exception {
+        ArgumentCaptor<VehiclePatch> captured = ArgumentCaptor.forClass(VehiclePatch.class);
+        when(vehicleService.patchVehicle(eq(vehicle.getVin()), any(VehiclePatch.class), isNull())).thenReturn(1);
+
+        mockMvc.perform(patch("/vehicle/{vin}", vehicle.getVin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "purchasePrice": 27500.00 }
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vin").value(vehicle.getVin()))
+                .andExpect(jsonPath("$.updatedRows").value(1));
+
+        verify(vehicleService).patchVehicle(eq(vehicle.getVin()), captured.capture(), isNull());
+        assertThat(captured.getValue().purchasePrice()).isEqualByComparingTo("27500.00");
+        assertThat(captured.getValue().horsePower()).isNull();
+        assertThat(captured.getValue().modelYear()).isNull();
+    }
+
+    @Test
+    void testPatchVehicleRejectsZeroHorsePower() throws Exception {
+        mockMvc.perform(patch("/vehicle/{vin}", vehicle.getVin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "horsePower": 0 }
+                                """))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(vehicleService, never()).patchVehicle(any(), any(), any());
+    }
+
+    @Test
+    void testPatchVehicleRejectsWhitespaceOnlyName() throws Exception {
+        mockMvc.perform(patch("/vehicle/{vin}", vehicle.getVin())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "manufacturerName": "   ", "color": "Blue" }
+                                """))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(vehicleService, never()).patchVehicle(any(), any(), any());
+    }
+}
@@ -0,0 +1,120 @@
+package com.apollo.vehicle.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RowWriterTest {
+
+    @Test
+    void testCsvIsGzippedAndQuoted() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RowWriter writer = ExportFormat.CSV.open(ExportTable.SOLD_VEHICLES, out, true);
+        writer.writeRow(soldVehicle("1HGCM82633A004352", "25000.00", "Lease, 36 months"));
+        writer.writeRow(soldVehicle("1HGCM80683A178906", "18999.99", "Cash"));
+        writer.finish();
+
+        String csv = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertThat(csv).isEqualTo("vin,salePrice,transactionType\r\n"
+                + "1HGCM82633A004352,25000.00,\"Lease, 36 months\"\r\n"
+                + "1HGCM80683A178906,18999.99,Cash\r\n");
+    }
+
+    @Test
+    void testCsvIsPlainWithoutGzip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RowWriter writer = ExportFormat.CSV.open(ExportTable.SOLD_VEHICLES, out, false);
+        writer.writeRow(soldVehicle("1HGCM82633A004352", "25000.00", "Cash"));
+        writer.finish();
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("vin,salePrice,transactionType\r\n"
+                + "1HGCM82633A004352,25000.00,Cash\r\n");
+    }
+
+    @Test
+    void testBinaryUsesFixedWidthVinsCentsAndDictionaryCodes() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RowWriter writer = ExportFormat.BINARY.open(ExportTable.SOLD_VEHICLES, out, false);
+        writer.writeRow(soldVehicle("1HGCM82633A004352", "25000.00", "Cash"));
+        writer.writeRow(soldVehicle("1HGCM80683A178906", "18999.99", "Cash"));
+        writer.finish();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(in.readNBytes(4)).isEqualTo(BinaryRowWriter.MAGIC);
+        assertThat(in.readByte()).isEqualTo((byte) BinaryRowWriter.FORMAT_VERSION);
+        assertThat(in.readByte()).isEqualTo((byte) 3);
+        for (int i = 0; i < 3; i++) {
+            in.readByte();
+            in.skipNBytes(in.readInt());
+        }
+
+        // The dictionary entry for "Cash" is sent once, before the first row that uses it
+        assertThat(in.readByte()).isEqualTo(BinaryRowWriter.DICTIONARY_RECORD);
+        assertThat(in.readInt()).isEqualTo(1 + 4 + 4 + 4);
+        assertThat(in.readByte()).isEqualTo((byte) 2);
+        assertThat(in.readInt()).isZero();
+        assertThat(new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8)).isEqualTo("Cash");
+
+        assertThat(in.readByte()).isEqualTo(BinaryRowWriter.ROW_RECORD);
+        assertThat(in.readInt()).isEqualTo(17 + 8 + 4);
+        assertThat(new String(in.readNBytes(17), StandardCharsets.US_ASCII)).isEqualTo("1HGCM82633A004352");
+        assertThat(in.readLong()).isEqualTo(2_500_000L);
+        assertThat(in.readInt()).isZero();
+
+        assertThat(in.readByte()).isEqualTo(BinaryRowWriter.ROW_RECORD);
+        assertThat(in.readInt()).isEqualTo(17 + 8 + 4);
+        in.skipNBytes(17);
+        assertThat(in.readLong()).isEqualTo(1_899_999L);
+        assertThat(in.readInt()).isZero();
+
+        assertThat(in.readByte()).isEqualTo(BinaryRowWriter.END_RECORD);
+        assertThat(in.readInt()).isEqualTo(8);
+        assertThat(in.readLong()).isEqualTo(2);
+        assertThat(in.available()).isZero();
+    }
+
+    @Test
+    void testBinaryWritesNullSentinels() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        RowWriter writer = ExportFormat.BINARY.open(ExportTable.SOLD_VEHICLES, out, false);
+        writer.writeRow(soldVehicle("1HGCM82633A004352", null, null));
+        writer.finish();
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+        in.skipNBytes(4 + 1);
+        int columns = in.readByte();
+        for (int i = 0; i < columns; i++) {
+            in.readByte();
+            in.skipNBytes(in.readInt());
+        }
+
+        // No dictionary record is sent for the missing transaction type
+        assertThat(in.readByte()).isEqualTo(BinaryRowWriter.ROW_RECORD);
+        assertThat(in.readInt()).isEqualTo(17 + 8 + 4);
+        in.skipNBytes(17);
+        assertThat(in.readLong()).isEqualTo(BinaryRowWriter.NULL_CENTS);
+        assertThat(in.readInt()).isEqualTo(BinaryRowWriter.NULL_CODE);
+        assertThat(in.readByte()).isEqualTo(BinaryRowWriter.END_RECORD);
+        assertThat(in.readInt()).isEqualTo(8);
+        assertThat(in.readLong()).isEqualTo(1);
+    }
+
+    private static ResultSet soldVehicle(String vin, String salePrice, String transactionType) throws Exception {
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString(1)).thenReturn(vin);
+        when(row.getBigDecimal(2)).thenReturn(salePrice == null ? null : new BigDecimal(salePrice));
+        when(row.getString(3)).thenReturn(transactionType);
+        return row;
+    }
+}
@@ -0,0 +1,138 @@
+package com.apollo.vehicle.ingest;
+
+import com.apollo.vehicle.entity.Vehicle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ImportPipelineTest {
+    private static final String HEADER = "vin,manufacturerName,description,horsePower,modelName,modelYear,"
+            + "purchasePrice,fuelType,color,category";
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<String> written = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    private Path feed;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        feed = directory.resolve("dealer.csv");
+        Files.writeString(feed, HEADER + "\r\n"
+                + line("JTDKB20U493000001", "150") + "\r\n"
+                + line("JTDKB20U693000002", "0") + "\r\n"
+                + line("JTDKB20U893000003", "180") + "\r\n"
+                + line("JTDKB20UX93000004", "200") + "\r\n"
+                + "not,enough,fields\r\n"
+                + line("5YJSA1E24MF000001", "420"));
+    }
+
+    @Test
+    void testImportWritesValidLinesAndRejectsTheRest() throws Exception {
+        ImportJob job = run(false, batch -> batch.forEach(vehicle -> written.add(vehicle.getVin())));
+
+        assertThat(job.getState()).isEqualTo(ImportJob.State.COMPLETED);
+        assertThat(written).containsExactly("JTDKB20U493000001", "JTDKB20U893000003", "JTDKB20UX93000004",
+                "5YJSA1E24MF000001");
+        List<String> rejects = Files.readAllLines(directory.resolve("dealer.csv.rejects"));
+        assertThat(rejects).hasSize(2);
+        assertThat(rejects.get(0)).startsWith("3\thorsePower: ");
+        assertThat(rejects.get(1)).startsWith("6\tExpected 10 fields but found 3");
+        assertThat(job.toStatus().imported()).isEqualTo(4);
+        assertThat(job.toStatus().committedOffset()).isEqualTo(Files.size(feed));
+        assertThat(meterRegistry.get("vehicle.import.rows").tag("outcome", "rejected").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testInterruptedImportResumesFromCheckpoint() throws Exception {
+        ImportJob failed = run(false, batch -> {
+            if (batch.stream().anyMatch(vehicle -> vehicle.getVin().equals("JTDKB20UX93000004"))) {
+                throw new IllegalStateException("database unavailable");
+            }
+            batch.forEach(vehicle -> written.add(vehicle.getVin()));
+        });
+        // Lines 2-3 were committed; the batch of lines 4-5 failed as a whole
+        assertThat(failed.getState()).isEqualTo(ImportJob.State.FAILED);
+        assertThat(written).containsExactly("JTDKB20U493000001");
+
+        written.clear();
+        ImportJob resumed = run(true, batch -> batch.forEach(vehicle -> written.add(vehicle.getVin())));
+
+        assertThat(resumed.getState()).isEqualTo(ImportJob.State.COMPLETED);
+        assertThat(written).containsExactly("JTDKB20U893000003", "JTDKB20UX93000004", "5YJSA1E24MF000001");
+        assertThat(Files.readAllLines(directory.resolve("dealer.csv.rejects"))).hasSize(2);
+        assertThat(resumed.toStatus().imported()).isEqualTo(4);
+    }
+
+    @Test
+    @Timeout(10)
+    void testReadFailureStopsTheWriter() {
+        CountDownLatch firstBatchWritten = new CountDownLatch(1);
+        AtomicReference<Thread> writerThread = new AtomicReference<>();
+        AtomicInteger parsed = new AtomicInteger();
+        Executor failingExecutor = task -> {
+            if (parsed.incrementAndGet() == 2) {
+                await(firstBatchWritten);
+                throw new RejectedExecutionException("parse executor shut down");
+            }
+            task.run();
+        };
+
+        ImportJob job = run(false, batch -> {
+            batch.forEach(vehicle -> written.add(vehicle.getVin()));
+            writerThread.set(Thread.currentThread());
+            firstBatchWritten.countDown();
+        }, failingExecutor);
+
+        assertThat(job.getState()).isEqualTo(ImportJob.State.FAILED);
+        assertThat(written).containsExactly("JTDKB20U493000001");
+        assertThat(writerThread.get().isAlive()).isFalse();
+    }
+
+    private ImportJob run(boolean resume, Consumer<List<Vehicle>> writer) {
+        return run(resume, writer, Runnable::run);
+    }
+
+    private ImportJob run(boolean resume, Consumer<List<Vehicle>> writer, Executor parseExecutor) {
+        ImportJob job = new ImportJob("test", feed, meterRegistry.counter("vehicle.import.rows", "outcome", "imported"),
+                meterRegistry.counter("vehicle.import.rows", "outcome", "rejected"));
+        new ImportPipeline(job, resume, validator, new ObjectMapper(), writer, parseExecutor, 2, 1).run();
+        return job;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String line(String vin, String horsePower) {
+        return vin + ",Toyota,\"Compact, reliable\"," + horsePower + ",Corolla,2021,21000.00,Gasoline,White,Sedan";
+    }
+}
@@ -0,0 +1,53 @@
+package com.apollo.vehicle.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryCountInterceptorTest {
+
+    private final QueryCountingStatementInspector inspector = new QueryCountingStatementInspector();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final QueryCountInterceptor interceptor = new QueryCountInterceptor(inspector, meterRegistry);
+
+    @Test
+    void testRecordsStatementsIssuedDuringRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("PUT", "/vehicle/1HGCM82633A004352");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/vehicle/{vin}");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        inspector.inspect("select 1"); // left over from an earlier request on this thread
+
+        interceptor.preHandle(request, response, new Object());
+        inspector.inspect("select v1_0.vin from vehicle v1_0 where v1_0.vin=?");
+        inspector.inspect("update vehicle set purchase_price=? where vin=?");
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        DistributionSummary summary = meterRegistry.get("vehicle.request.queries")
+                .tag("method", "PUT")
+                .tag("uri", "/vehicle/{vin}")
+                .summary();
+        assertThat(summary.count()).isEqualTo(1);
+        assertThat(summary.totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void testSkipsAsyncDispatch() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/vehicle/stream");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/vehicle/stream");
+        request.setDispatcherType(DispatcherType.ASYNC);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, new Object());
+        interceptor.afterCompletion(request, response, new Object(), null);
+
+        assertThat(meterRegistry.find("vehicle.request.queries").summary()).isNull();
+    }
+}
@@ -0,0 +1,162 @@
+package com.apollo.vehicle.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class AttributeDictionaryTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    private AttributeDictionary dictionary;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        dictionary = new AttributeDictionary(jdbcTemplate);
+    }
+
+    @Test
+    void testDecodingReturnsSharedInstance() throws Exception {
+        stubRows(Map.of(1, "Toyota", 2, "Honda"));
+
+        String first = dictionary.valueOf(AttributeDictionary.MANUFACTURER_NAME, 1);
+        String second = dictionary.valueOf(AttributeDictionary.MANUFACTURER_NAME, 1);
+
+        assertThat(first).isEqualTo("Toyota").isSameAs(second);
+        assertThat(dictionary.codeOf(AttributeDictionary.MANUFACTURER_NAME, "Honda")).isEqualTo(2);
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void testUnknownValueEncodesToUnknownCodeWithoutInserting() throws Exception {
+        stubRows(Map.of(1, "Toyota"));
+
+        assertThat(dictionary.codeOf(AttributeDictionary.MANUFACTURER_NAME, "Lada"))
+                .isEqualTo(AttributeDictionary.UNKNOWN_CODE);
+        verify(jdbcTemplate, never()).execute(ArgumentMatchers.<ConnectionCallback<Integer>>any());
+    }
+
+    @Test
+    void testUnknownValueIsRememberedAsMissing() throws Exception {
+        stubRows(Map.of(1, "Toyota"));
+
+        dictionary.codeOf(AttributeDictionary.MANUFACTURER_NAME, "Lada");
+        dictionary.codeOf(AttributeDictionary.MANUFACTURER_NAME, "Lada");
+        dictionary.codeOf(AttributeDictionary.MANUFACTURER_NAME, "Lada");
+
+        // One load of the attribute, then one reload for the first miss only
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void testPreloadLoadsEveryAttributeInOneQuery() throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            ResultSet row = mock(ResultSet.class);
+            when(row.getString(1)).thenReturn(AttributeDictionary.MANUFACTURER_NAME);
+            when(row.getInt(2)).thenReturn(1);
+            when(row.getString(3)).thenReturn("Toyota");
+            handler.processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        dictionary.preload();
+
+        assertThat(dictionary.codeOf(AttributeDictionary.MANUFACTURER_NAME, "Toyota")).isEqualTo(1);
+        assertThat(dictionary.valueOf(AttributeDictionary.MANUFACTURER_NAME, 1)).isEqualTo("Toyota");
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class));
+        verify(jdbcTemplate, never()).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void testUnknownCodeFailsAfterReload() throws Exception {
+        stubRows(Map.of(1, "Toyota"));
+
+        assertThatThrownBy(() -> dictionary.valueOf(AttributeDictionary.MANUFACTURER_NAME, 7))
+                .isInstanceOf(IllegalStateException.class);
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    void testRegisteringKnownValueIsNoOp() throws Exception {
+        stubRows(Map.of(1, "Toyota"));
+
+        dictionary.register(AttributeDictionary.MANUFACTURER_NAME, "Toyota");
+        dictionary.register(AttributeDictionary.MANUFACTURER_NAME, null);
+
+        verify(jdbcTemplate, never()).execute(ArgumentMatchers.<ConnectionCallback<Integer>>any());
+    }
+
+    @Test
+    void testRegisteredValueIsSharedAtOnceOutsideTransactions() throws Exception {
+        stubRows(Map.of(1, "Toyota"));
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Integer>>any())).thenReturn(5);
+
+        dictionary.register(AttributeDictionary.MANUFACTURER_NAME, "Lada");
+
+        assertThat(dictionary.codeOf(AttributeDictionary.MANUFACTURER_NAME, "Lada")).isEqualTo(5);
+        assertThat(dictionary.valueOf(AttributeDictionary.MANUFACTURER_NAME, 5)).isEqualTo("Lada");
+    }
+
+    @Test
+    void testValueRegisteredInTransactionIsSharedOnlyAfterCommit() throws Exception {
+        stubRows(Map.of(1, "Toyota"));
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Integer>>any())).thenReturn(5);
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            dictionary.register(AttributeDictionary.MANUFACTURER_NAME, "Lada");
+            assertThat(dictionary.codeOf(AttributeDictionary.MANUFACTURER_NAME, "Lada")).isEqualTo(5);
+            assertThat(dictionary.valueOf(AttributeDictionary.MANUFACTURER_NAME, 5)).isEqualTo("Lada");
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertThat(codeFromOtherThread()).isEqualTo(AttributeDictionary.UNKNOWN_CODE);
+
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(codeFromOtherThread()).isEqualTo(5);
+    }
+
+    private int codeFromOtherThread() throws Exception {
+        return CompletableFuture.supplyAsync(() -> dictionary.codeOf(AttributeDictionary.MANUFACTURER_NAME, "Lada"))
+                .get();
+    }
+
+    private void stubRows(Map<Integer, String> rows) throws Exception {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<Integer, String> entry : rows.entrySet()) {
+                ResultSet row = mock(ResultSet.class);
+                when(row.getInt(1)).thenReturn(entry.getKey());
+                // A fresh String per read, as the JDBC driver would return
+                when(row.getString(2)).thenReturn(new String(entry.getValue()));
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(AttributeDictionary.MANUFACTURER_NAME));
+    }
+}
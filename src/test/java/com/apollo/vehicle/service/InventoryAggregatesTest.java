@@ -0,0 +1,117 @@
+package com.apollo.vehicle.service;
+
+import com.apollo.vehicle.dto.AggregateDimension;
+import com.apollo.vehicle.dto.GroupAggregate;
+import com.apollo.vehicle.dto.VehicleFacts;
+import com.apollo.vehicle.dto.VehiclePatch;
+import com.apollo.vehicle.repository.VehicleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class InventoryAggregatesTest {
+
+    private final VehicleFacts cheapToyota = facts("Toyota", "SUV", "25000.00", 150);
+    private final VehicleFacts dearToyota = facts("Toyota", "SUV", "40000.00", 300);
+    private final VehicleFacts honda = facts("Honda", "Sedan", "20000.00", 120);
+
+    private VehicleRepository vehicleRepository;
+
+    private InventoryAggregates inventoryAggregates;
+
+    @BeforeEach
+    void setUp() {
+        vehicleRepository = mock(VehicleRepository.class);
+        when(vehicleRepository.aggregateBy(anyString(), isNull())).thenReturn(List.of());
+        inventoryAggregates = new InventoryAggregates(vehicleRepository, Runnable::run);
+        inventoryAggregates.rebuild();
+    }
+
+    @Test
+    void testRebuildLoadsGroupsFromDatabase() {
+        GroupAggregate toyota = GroupAggregate.of("Toyota", 2, new BigDecimal("65000.00"), new BigDecimal("25000.00"),
+                new BigDecimal("40000.00"), 450, 150, 300);
+        when(vehicleRepository.aggregateBy("manufacturerName", null)).thenReturn(List.of(toyota));
+
+        inventoryAggregates.rebuild();
+
+        assertThat(inventoryAggregates.getAggregates(AggregateDimension.MANUFACTURER_NAME)).containsExactly(toyota);
+        assertThat(toyota.purchasePriceAvg()).isEqualByComparingTo("32500.00");
+        assertThat(toyota.horsePowerAvg()).isEqualTo(225.0);
+    }
+
+    @Test
+    void testWritesAreAppliedIncrementally() {
+        inventoryAggregates.record(List.of(), List.of(cheapToyota, dearToyota, honda));
+        inventoryAggregates.record(List.of(honda), List.of(facts("Honda", "SUV", "22000.00", 120)));
+
+        List<GroupAggregate> byCategory = inventoryAggregates.getAggregates(AggregateDimension.CATEGORY);
+
+        // The Sedan group lost its only vehicle
+        assertThat(byCategory).extracting(GroupAggregate::key).containsExactly("SUV");
+        GroupAggregate suv = byCategory.get(0);
+        assertThat(suv.count()).isEqualTo(3);
+        assertThat(suv.purchasePriceSum()).isEqualByComparingTo("87000.00");
+        assertThat(suv.purchasePriceMin()).isEqualByComparingTo("22000.00");
+        assertThat(suv.horsePowerMax()).isEqualTo(300);
+        verify(vehicleRepository, never()).aggregateBy(anyString(), any(Object.class));
+    }
+
+    @Test
+    void testRemovingGroupBoundRecomputesOnlyThatGroup() {
+        inventoryAggregates.record(List.of(), List.of(cheapToyota, dearToyota));
+        GroupAggregate recomputed = GroupAggregate.of("Toyota", 1, new BigDecimal("40000.00"),
+                new BigDecimal("40000.00"), new BigDecimal("40000.00"), 300, 300, 300);
+        when(vehicleRepository.aggregateBy("manufacturerName", "Toyota")).thenReturn(List.of(recomputed));
+
+        inventoryAggregates.record(List.of(cheapToyota), List.of());
+
+        assertThat(inventoryAggregates.getAggregates(AggregateDimension.MANUFACTURER_NAME)).containsExactly(recomputed);
+        assertThat(inventoryAggregates.getAggregates(AggregateDimension.MANUFACTURER_NAME)).containsExactly(recomputed);
+        verify(vehicleRepository, times(1)).aggregateBy("manufacturerName", "Toyota");
+    }
+
+    @Test
+    void testPatchRegroupsOnlyTheDimensionsItCanAffect() {
+        inventoryAggregates.record(List.of(), List.of(cheapToyota, honda));
+        GroupAggregate suv = GroupAggregate.of("SUV", 2, new BigDecimal("45000.00"), new BigDecimal("20000.00"),
+                new BigDecimal("25000.00"), 270, 120, 150);
+        when(vehicleRepository.aggregateBy("category", null)).thenReturn(List.of(suv));
+
+        inventoryAggregates.invalidate(new VehiclePatch(null, null, null, null, null, null, null, null, "SUV"));
+
+        assertThat(inventoryAggregates.getAggregates(AggregateDimension.CATEGORY)).containsExactly(suv);
+        assertThat(inventoryAggregates.getAggregates(AggregateDimension.MANUFACTURER_NAME))
+                .extracting(GroupAggregate::key).containsExactly("Honda", "Toyota");
+        verify(vehicleRepository, times(2)).aggregateBy("category", null);
+        verify(vehicleRepository, times(1)).aggregateBy("manufacturerName", null);
+    }
+
+    @Test
+    void testPatchOfFigureRegroupsEveryDimension() {
+        inventoryAggregates.invalidate(new VehiclePatch(null, null, 200, null, null, null, null, null, null));
+
+        for (AggregateDimension dimension : AggregateDimension.values()) {
+            verify(vehicleRepository, times(2)).aggregateBy(dimension.attribute(), null);
+        }
+    }
+
+    @Test
+    void testPatchOfOtherFieldsLeavesAggregatesAlone() {
+        inventoryAggregates.invalidate(new VehiclePatch(null, "Updated", null, null, null, null, null, "Red", null));
+
+        verify(vehicleRepository, times(4)).aggregateBy(anyString(), isNull());
+    }
+
+    private static VehicleFacts facts(String manufacturerName, String category, String price, int horsePower) {
+        return new VehicleFacts(manufacturerName, category, "Gasoline", 2020, new BigDecimal(price), horsePower, 0L);
+    }
+}
@@ -0,0 +1,201 @@
+package com.apollo.vehicle.service;
+
+import com.apollo.vehicle.dto.SnapshotStatistics;
+import com.apollo.vehicle.dto.VehicleSearchCriteria;
+import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class InventorySnapshotTest {
+
+    private final Vehicle camry = vehicle("JTDKB20U493000001", "Toyota", 2020, "25000.00");
+    private final Vehicle rav4 = vehicle("JTDKB20U693000002", "Toyota", 2022, "32000.00");
+    private final Vehicle prius = vehicle("JTDKB20U893000003", "Toyota", 2022, "28000.0");
+    private final Vehicle accord = vehicle("1HGCM82633A004352", "Honda", 2022, "28000.00");
+
+    private VehicleRepository vehicleRepository;
+
+    private PlatformTransactionManager transactionManager;
+
+    private InventorySnapshot inventorySnapshot;
+
+    @BeforeEach
+    void setUp() {
+        vehicleRepository = mock(VehicleRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        inventorySnapshot = new InventorySnapshot(vehicleRepository, new SimpleMeterRegistry(), transactionManager);
+        ReflectionTestUtils.setField(inventorySnapshot, "enabled", true);
+        when(vehicleRepository.findByVinGreaterThanOrderByVinAsc(eq(""), any(Limit.class)))
+                .thenReturn(List.of(accord, camry, rav4, prius));
+    }
+
+    @Test
+    void testNotReadyUntilLoaded() {
+        assertThat(inventorySnapshot.isReady()).isFalse();
+
+        inventorySnapshot.reload();
+
+        assertThat(inventorySnapshot.isReady()).isTrue();
+        assertThat(inventorySnapshot.getAll()).extracting(Vehicle::getVin)
+                .containsExactly(accord.getVin(), camry.getVin(), rav4.getVin(), prius.getVin());
+        assertThat(inventorySnapshot.get(camry.getVin())).hasValueSatisfying(found -> {
+            assertThat(found).isEqualTo(camry);
+            // Readers get a detached copy, never the entity the repository returned
+            assertThat(found).isNotSameAs(camry);
+        });
+    }
+
+    @Test
+    void testSearchFiltersSortsAndPages() {
+        inventorySnapshot.reload();
+        VehicleSearchCriteria criteria = new VehicleSearchCriteria("Toyota", 2021, null, null, null, null,
+                new BigDecimal("28000"), null);
+
+        Page<Vehicle> page = inventorySnapshot.search(criteria,
+                PageRequest.of(0, 1, Sort.by(Sort.Order.desc("purchasePrice"), Sort.Order.asc("vin"))));
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Vehicle::getVin).containsExactly(rav4.getVin());
+    }
+
+    @Test
+    void testPriceIndexKeepsEqualPricesWithDifferentScales() {
+        inventorySnapshot.reload();
+        VehicleSearchCriteria criteria = new VehicleSearchCriteria(null, null, null, null, null, null,
+                new BigDecimal("28000"), new BigDecimal("28000"));
+
+        Page<Vehicle> page = inventorySnapshot.search(criteria, PageRequest.of(0, 10, Sort.by("vin")));
+
+        assertThat(page.getContent()).extracting(Vehicle::getVin).containsExactly(accord.getVin(), prius.getVin());
+    }
+
+    @Test
+    void testRefreshReadsChangedVehiclesBack() {
+        inventorySnapshot.reload();
+        Vehicle repriced = vehicle(camry.getVin(), "Toyota", 2020, "19000.00");
+        when(vehicleRepository.findAllById(vins(camry.getVin(), rav4.getVin()))).thenReturn(List.of(repriced));
+
+        inventorySnapshot.refresh(List.of(camry.getVin(), rav4.getVin()));
+
+        assertThat(inventorySnapshot.get(camry.getVin()))
+                .hasValueSatisfying(found -> assertThat(found.getPurchasePrice()).isEqualByComparingTo("19000.00"));
+        assertThat(inventorySnapshot.get(rav4.getVin())).isEmpty();
+        assertThat(inventorySnapshot.getAll()).hasSize(3);
+    }
+
+    @Test
+    void testRefreshMovesVehicleBetweenIndexGroups() {
+        inventorySnapshot.reload();
+        Vehicle rebadged = vehicle(camry.getVin(), "Honda", 2023, "26000.00");
+        when(vehicleRepository.findAllById(vins(camry.getVin()))).thenReturn(List.of(rebadged));
+
+        inventorySnapshot.refresh(List.of(camry.getVin()));
+
+        assertThat(search(new VehicleSearchCriteria("Honda", null, null, null, null, null, null, null)))
+                .containsExactly(accord.getVin(), camry.getVin());
+        assertThat(search(new VehicleSearchCriteria("Toyota", null, null, null, null, null, null, null)))
+                .containsExactly(rav4.getVin(), prius.getVin());
+        assertThat(search(new VehicleSearchCriteria(null, 2020, 2020, null, null, null, null, null))).isEmpty();
+        assertThat(search(new VehicleSearchCriteria(null, null, null, null, null, null,
+                new BigDecimal("26000"), new BigDecimal("26000")))).containsExactly(camry.getVin());
+        assertThat(inventorySnapshot.getAll()).extracting(Vehicle::getVin)
+                .containsExactly(accord.getVin(), camry.getVin(), rav4.getVin(), prius.getVin());
+    }
+
+    @Test
+    void testRefreshAfterCommitReadsInNewTransaction() {
+        inventorySnapshot.reload();
+        Vehicle repriced = vehicle(camry.getVin(), "Toyota", 2020, "19000.00");
+        when(vehicleRepository.findAllById(vins(camry.getVin()))).thenReturn(List.of(repriced));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            inventorySnapshot.refresh(List.of(camry.getVin()));
+            verifyNoInteractions(transactionManager);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()
+                && definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        assertThat(inventorySnapshot.get(camry.getVin()))
+                .hasValueSatisfying(found -> assertThat(found.getPurchasePrice()).isEqualByComparingTo("19000.00"));
+    }
+
+    @Test
+    void testWriteDuringReloadIsReadAgainAfterSwap() {
+        inventorySnapshot.reload();
+        Vehicle repriced = vehicle(camry.getVin(), "Toyota", 2020, "19000.00");
+        when(vehicleRepository.findAllById(vins(camry.getVin()))).thenReturn(List.of(repriced));
+        // The reload reads the old camry, then the repricing commits before the new snapshot is swapped in
+        when(vehicleRepository.findByVinGreaterThanOrderByVinAsc(eq(""), any(Limit.class))).thenAnswer(invocation -> {
+            inventorySnapshot.refresh(List.of(camry.getVin()));
+            return List.of(accord, camry, rav4, prius);
+        });
+
+        inventorySnapshot.reload();
+
+        assertThat(inventorySnapshot.get(camry.getVin()))
+                .hasValueSatisfying(found -> assertThat(found.getPurchasePrice()).isEqualByComparingTo("19000.00"));
+        verify(vehicleRepository, times(2)).findAllById(vins(camry.getVin()));
+    }
+
+    @Test
+    void testStatisticsReportBytesPerVehicle() {
+        inventorySnapshot.reload();
+
+        SnapshotStatistics statistics = inventorySnapshot.getStatistics();
+
+        assertThat(statistics.vehicles()).isEqualTo(4);
+        assertThat(statistics.bytesPerVehicle()).isPositive();
+        assertThat(statistics.estimatedBytes()).isEqualTo(statistics.bytesPerVehicle() * 4);
+    }
+
+    @Test
+    void testDisabledSnapshotNeverLoads() {
+        ReflectionTestUtils.setField(inventorySnapshot, "enabled", false);
+
+        inventorySnapshot.reload();
+        inventorySnapshot.refresh(List.of(camry.getVin()));
+
+        assertThat(inventorySnapshot.isReady()).isFalse();
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    private List<String> search(VehicleSearchCriteria criteria) {
+        return inventorySnapshot.search(criteria, PageRequest.of(0, 10, Sort.by("vin"))).map(Vehicle::getVin)
+                .getContent();
+    }
+
+    // The VINs to read back are collected in a set, so their order is not defined
+    private static Iterable<String> vins(String... vins) {
+        return argThat(actual -> actual != null && Set.copyOf((Collection<String>) actual).equals(Set.of(vins)));
+    }
+
+    private static Vehicle vehicle(String vin, String manufacturerName, int modelYear, String price) {
+        return new Vehicle(vin, manufacturerName, "Mid-Size", 150, "Model", modelYear, new BigDecimal(price),
+                "Gasoline", "Blue", "SUV");
+    }
+}
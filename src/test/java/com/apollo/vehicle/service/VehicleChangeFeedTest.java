@@ -0,0 +1,131 @@
+package com.apollo.vehicle.service;
+
+import com.apollo.vehicle.dto.ChangeType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VehicleChangeFeedTest {
+
+    // Configured like the application's mapper, which writes dates as ISO-8601 strings
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+    private final Clock clock = Clock.fixed(Instant.parse("2024-05-01T10:00:00Z"), ZoneOffset.UTC);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testSubscriberReceivesEventsInOrder() {
+        VehicleChangeFeed feed = feed(10, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(null, emitter);
+
+        feed.publish(ChangeType.CREATED, List.of("1HGCM82633A004352", "JTDKB20U493000001"));
+        feed.publish(ChangeType.SOLD, List.of("1HGCM82633A004352"));
+
+        assertThat(emitter.events).containsExactly(
+                "id:" + feed.eventId(1) + "\nevent:created\ndata:{\"sequence\":1,\"type\":\"CREATED\",\"vin\":\"1HGCM82633A004352\","
+                        + "\"committedAt\":\"2024-05-01T10:00:00Z\"}\n\n",
+                "id:" + feed.eventId(2) + "\nevent:created\ndata:{\"sequence\":2,\"type\":\"CREATED\",\"vin\":\"JTDKB20U493000001\","
+                        + "\"committedAt\":\"2024-05-01T10:00:00Z\"}\n\n",
+                "id:" + feed.eventId(3) + "\nevent:sold\ndata:{\"sequence\":3,\"type\":\"SOLD\",\"vin\":\"1HGCM82633A004352\","
+                        + "\"committedAt\":\"2024-05-01T10:00:00Z\"}\n\n");
+    }
+
+    @Test
+    void testResumesAfterLastEventId() {
+        VehicleChangeFeed feed = feed(10, Runnable::run);
+        feed.publish(ChangeType.CREATED, List.of("1HGCM82633A004352", "JTDKB20U493000001", "JTDKB20U693000002"));
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(feed.eventId(1), emitter);
+
+        assertThat(emitter.ids()).containsExactly(feed.eventId(2), feed.eventId(3));
+    }
+
+    @Test
+    void testLastEventIdOfAnotherFeedGetsReset() {
+        VehicleChangeFeed restarted = feed(10, Runnable::run);
+        VehicleChangeFeed feed = feed(10, Runnable::run);
+        feed.publish(ChangeType.CREATED, List.of("1HGCM82633A004352", "JTDKB20U493000001", "JTDKB20U693000002"));
+
+        // An id at or below the head, but issued before a restart or by another instance
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(restarted.eventId(1), emitter);
+
+        assertThat(emitter.events).hasSize(1);
+        assertThat(emitter.events.get(0)).startsWith("id:" + feed.eventId(3) + "\nevent:"
+                + VehicleChangeFeed.RESET_EVENT + "\n");
+    }
+
+    @Test
+    void testLastEventIdOutsideBufferGetsReset() {
+        VehicleChangeFeed feed = feed(4, Runnable::run);
+        for (int i = 0; i < 10; i++) {
+            feed.publish(ChangeType.UPDATED, List.of("1HGCM82633A004352"));
+        }
+
+        RecordingEmitter emitter = new RecordingEmitter();
+        feed.subscribe(feed.eventId(2), emitter);
+        feed.publish(ChangeType.DELETED, List.of("1HGCM82633A004352"));
+
+        assertThat(emitter.events).hasSize(2);
+        assertThat(emitter.events.get(0)).startsWith("id:" + feed.eventId(10) + "\nevent:"
+                + VehicleChangeFeed.RESET_EVENT + "\n");
+        assertThat(emitter.events.get(1)).startsWith("id:" + feed.eventId(11) + "\nevent:deleted\n");
+    }
+
+    @Test
+    void testSlowSubscriberIsDroppedWithoutBlockingPublisher() {
+        // Drains are queued but never run, like a subscriber stuck writing to a slow client
+        List<Runnable> pending = new ArrayList<>();
+        VehicleChangeFeed feed = feed(4, pending::add);
+        feed.subscribe(null, new RecordingEmitter());
+        assertThat(feed.getSubscriberCount()).isEqualTo(1);
+
+        for (int i = 0; i < 5; i++) {
+            feed.publish(ChangeType.UPDATED, List.of("1HGCM82633A004352"));
+        }
+
+        assertThat(feed.getSubscriberCount()).isZero();
+        assertThat(meterRegistry.get("vehicle.changes.dropped").counter().count()).isEqualTo(1);
+    }
+
+    private VehicleChangeFeed feed(int bufferSize, Executor executor) {
+        return new VehicleChangeFeed(objectMapper, meterRegistry, bufferSize, Duration.ofMinutes(1), executor, clock);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            events.add(builder.build().stream().map(data -> data.getData().toString()).collect(Collectors.joining()));
+        }
+
+        private List<String> ids() {
+            return events.stream().map(event -> event.substring(3, event.indexOf('\n'))).toList();
+        }
+    }
+}
@@ -1,17 +1,51 @@
 package com.apollo.vehicle.service;
 
+import com.apollo.vehicle.config.CacheConfig;
+import com.apollo.vehicle.dto.BatchResult;
+import com.apollo.vehicle.dto.BulkDeleteRequest;
+import com.apollo.vehicle.dto.BulkDeleteResult;
+import com.apollo.vehicle.dto.ChangeType;
+import com.apollo.vehicle.dto.CursorPage;
+import com.apollo.vehicle.dto.SaleRequest;
+import com.apollo.vehicle.dto.VehicleFacts;
+import com.apollo.vehicle.dto.VehicleField;
+import com.apollo.vehicle.dto.VehicleLookupResult;
+import com.apollo.vehicle.dto.VehiclePatch;
+import com.apollo.vehicle.dto.VehicleSearchCriteria;
+import com.apollo.vehicle.entity.SoldVehicle;
 import com.apollo.vehicle.entity.Vehicle;
+import com.apollo.vehicle.exception.InvalidVinException;
+import com.apollo.vehicle.exception.PreconditionFailedException;
+import com.apollo.vehicle.exception.VehicleAlreadyExistsException;
+import com.apollo.vehicle.exception.VehicleAlreadySoldException;
+import com.apollo.vehicle.exception.VehicleNotFoundException;
+import com.apollo.vehicle.repository.SoldVehicleRepository;
 import com.apollo.vehicle.repository.VehicleRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -25,6 +59,33 @@ public class VehicleServiceTest {
     @Mock
     private VehicleRepository vehicleRepository;
 
+    @Mock
+    private SoldVehicleRepository soldVehicleRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private InventoryAggregates inventoryAggregates;
+
+    @Mock
+    private VinBloomFilter vinBloomFilter;
+
+    @Mock
+    private InventorySnapshot inventorySnapshot;
+
+    @Mock
+    private InventoryVersion inventoryVersion;
+
+    @Mock
+    private VehicleChangeFeed changeFeed;
+
     private Vehicle vehicle;
     private Vehicle vehicle2;
 
@@ -32,26 +93,31 @@ public class VehicleServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(vinBloomFilter.mightContain(anyString())).thenReturn(true);
 
         vehicle = new Vehicle(
-                "ABCDE12345ABCDE12",
+                "1HGCM82633A004352",
                 "Toyota",
                 "SUV",
                 150,
                 "Camry",
                 2020,
                 new BigDecimal("25000.00"),
-                "Gasoline"
+                "Gasoline",
+                "Red",
+                "SUV"
         );
         vehicle2 = new Vehicle(
-                "ABCDE12345",
+                "JTDKB20U493000001",
                 "Toyota",
                 "SUV",
                 180,
                 "Sedan",
                 2024,
                 new BigDecimal("29000.00"),
-                "Gasoline"
+                "Gasoline",
+                "Red",
+                "SUV"
         );
     }
 
@@ -68,6 +134,40 @@ public class VehicleServiceTest {
         verify(vehicleRepository, times(1)).findById(vehicle.getVin());
     }
 
+    @Test
+    void testGetVehicleByVinRejectsInvalidVin() {
+        InvalidVinException exception = assertThrows(InvalidVinException.class, () ->
+                vehicleService.getVehicleByVin("1HGCM82643A004352")
+        );
+
+        assertThat(exception.getMessage()).isEqualTo("Invalid VIN 1HGCM82643A004352");
+        assertThat(exception.getStackTrace()).isEmpty();
+        verifyNoInteractions(vehicleRepository, vinBloomFilter);
+    }
+
+    @Test
+    void testGetVehicleByVinSkipsDatabaseOnFilterMiss() {
+        when(vinBloomFilter.mightContain(vehicle.getVin())).thenReturn(false);
+
+        Exception exception = assertThrows(VehicleNotFoundException.class, () ->
+                vehicleService.getVehicleByVin(vehicle.getVin())
+        );
+
+        assertThat(exception.getMessage()).isEqualTo("Vehicle with VIN " + vehicle.getVin() + " not found");
+        assertThat(exception.getStackTrace()).isEmpty();
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    @Test
+    void testGetVehicleByVinFromSnapshot() {
+        when(inventorySnapshot.isReady()).thenReturn(true);
+        when(inventorySnapshot.get(vehicle.getVin())).thenReturn(Optional.of(vehicle));
+
+        assertThat(vehicleService.getVehicleByVin(vehicle.getVin())).isSameAs(vehicle);
+
+        verifyNoInteractions(vehicleRepository);
+    }
+
     @Test
     void testCreateVehicle() {
         when(vehicleRepository.save(vehicle)).thenReturn(vehicle);
@@ -78,28 +178,45 @@ public class VehicleServiceTest {
         assertThat(savedVehicle.getVin()).isEqualTo(vehicle.getVin());
 
         verify(vehicleRepository, times(1)).save(vehicle);
+        verify(vinBloomFilter, times(2)).add(vehicle.getVin());
+        verify(inventorySnapshot, times(1)).refresh(List.of(vehicle.getVin()));
     }
 
     @Test
-    void testDeleteVehicle() {
+    void testCreateVehicleChecksDatabaseDespiteFilterMiss() {
+        // Written through another instance, so this instance's filter has never seen it
+        when(vinBloomFilter.mightContain(vehicle.getVin())).thenReturn(false);
         when(vehicleRepository.existsById(vehicle.getVin())).thenReturn(true);
-        doNothing().when(vehicleRepository).deleteById(vehicle.getVin());
+
+        assertThrows(VehicleAlreadyExistsException.class, () -> vehicleService.createVehicle(vehicle));
+
+        verify(vehicleRepository, never()).save(vehicle);
+    }
+
+    @Test
+    void testDeleteVehicle() {
+        VehicleFacts facts = VehicleFacts.of(vehicle);
+        when(vehicleRepository.deleteReturningFacts(List.of(vehicle.getVin())))
+                .thenReturn(Map.of(vehicle.getVin(), facts));
 
         vehicleService.deleteVehicle(vehicle.getVin());
 
-        verify(vehicleRepository, times(1)).existsById(vehicle.getVin());
-        verify(vehicleRepository, times(1)).deleteById(vehicle.getVin());
+        verify(vehicleRepository, never()).findById(vehicle.getVin());
+        verify(vehicleRepository, never()).findFactsByVin(vehicle.getVin());
+        verify(inventoryAggregates, times(1)).record(argThat(removed -> List.copyOf(removed).equals(List.of(facts))),
+                eq(List.of()));
+        verify(changeFeed).publish(ChangeType.DELETED, List.of(vehicle.getVin()));
     }
 
     @Test
     void testNotCreateWithDuplicateVin() {
         when(vehicleRepository.existsById(vehicle.getVin())).thenReturn(true);
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+        Exception exception = assertThrows(VehicleAlreadyExistsException.class, () ->
                 vehicleService.createVehicle(vehicle)
         );
 
-        assertThat(exception.getMessage()).isEqualTo("Vehicle with VIN " + vehicle.getVin() + " already exists.");
+        assertThat(exception.getMessage()).isEqualTo("Vehicle with VIN " + vehicle.getVin() + " already exists");
 
         verify(vehicleRepository, times(1)).existsById(vehicle.getVin());
         verify(vehicleRepository, never()).save(vehicle);
@@ -107,16 +224,16 @@ public class VehicleServiceTest {
 
     @Test
     void testThrowExceptionWhenDeletingNonExistentVehicle() {
-        when(vehicleRepository.existsById(vehicle.getVin())).thenReturn(false);
+        when(vehicleRepository.deleteReturningFacts(List.of(vehicle.getVin()))).thenReturn(Map.of());
 
-        Exception exception = assertThrows(IllegalArgumentException.class, () ->
+        Exception exception = assertThrows(VehicleNotFoundException.class, () ->
                 vehicleService.deleteVehicle(vehicle.getVin())
         );
 
-        assertThat(exception.getMessage()).isEqualTo("Vehicle with VIN " + vehicle.getVin() + " not found.");
+        assertThat(exception.getMessage()).isEqualTo("Vehicle with VIN " + vehicle.getVin() + " not found");
 
-        verify(vehicleRepository, times(1)).existsById(vehicle.getVin());
-        verify(vehicleRepository, never()).deleteById(vehicle.getVin());
+        verify(inventoryAggregates, never()).record(any(), any());
+        verifyNoInteractions(changeFeed);
     }
 
     @Test
@@ -131,4 +248,375 @@ public class VehicleServiceTest {
 
         verify(vehicleRepository, times(1)).findAll();
     }
+
+    @Test
+    void testGetVehiclePageReturnsCursorWhenMoreRowsExist() {
+        when(vehicleRepository.findByVinGreaterThanOrderByVinAsc("", Limit.of(2)))
+                .thenReturn(List.of(vehicle, vehicle2));
+
+        CursorPage<Vehicle> page = vehicleService.getVehiclePage(null, 1);
+
+        assertThat(page.items()).containsExactly(vehicle);
+        assertThat(VehicleService.decodeCursor(page.nextCursor())).isEqualTo(vehicle.getVin());
+    }
+
+    @Test
+    void testGetVehiclePageResumesAfterCursor() {
+        String cursor = VehicleService.encodeCursor(vehicle.getVin());
+        when(vehicleRepository.findByVinGreaterThanOrderByVinAsc(vehicle.getVin(), Limit.of(11)))
+                .thenReturn(List.of(vehicle2));
+
+        CursorPage<Vehicle> page = vehicleService.getVehiclePage(cursor, 10);
+
+        assertThat(page.items()).containsExactly(vehicle2);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void testGetVehiclePageRejectsOversizedLimit() {
+        assertThrows(IllegalArgumentException.class, () ->
+                vehicleService.getVehiclePage(null, VehicleService.MAX_PAGE_SIZE + 1)
+        );
+
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    @Test
+    void testGetVehiclePageWithFieldsSelectsOnlyThoseColumns() {
+        Set<VehicleField> fields = VehicleField.parse("modelName,purchasePrice");
+        PageRequest firstRows = PageRequest.of(0, 2, Sort.by("vin"));
+        when(vehicleRepository.findFields(ArgumentMatchers.<Specification<Vehicle>>any(), eq(fields), eq(firstRows)))
+                .thenReturn(List.of(VehicleField.project(vehicle, fields), VehicleField.project(vehicle2, fields)));
+
+        CursorPage<Map<String, Object>> page = vehicleService.getVehiclePage(null, 1, fields);
+
+        assertThat(page.items()).containsExactly(Map.of("vin", vehicle.getVin(), "modelName", "Camry",
+                "purchasePrice", new BigDecimal("25000.00")));
+        assertThat(VehicleService.decodeCursor(page.nextCursor())).isEqualTo(vehicle.getVin());
+        verify(vehicleRepository, never()).findByVinGreaterThanOrderByVinAsc(any(), any());
+    }
+
+    @Test
+    void testGetVehicleByVinWithFieldsFromSnapshot() {
+        when(inventorySnapshot.isReady()).thenReturn(true);
+        when(inventorySnapshot.get(vehicle.getVin())).thenReturn(Optional.of(vehicle));
+
+        Map<String, Object> projection = vehicleService.getVehicleByVin(vehicle.getVin(),
+                VehicleField.parse("purchasePrice, modelName"));
+
+        assertThat(projection).containsExactly(Map.entry("vin", vehicle.getVin()), Map.entry("modelName", "Camry"),
+                Map.entry("purchasePrice", new BigDecimal("25000.00")));
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    @Test
+    void testLookupVehiclesQueriesOnlyCacheMisses() {
+        Cache cache = mock(Cache.class);
+        when(cacheManager.getCache(CacheConfig.VEHICLES_CACHE)).thenReturn(cache);
+        when(cache.get(vehicle.getVin(), Vehicle.class)).thenReturn(vehicle);
+        when(vinBloomFilter.mightContain("5YJSA1E24MF000001")).thenReturn(false);
+        when(vehicleRepository.findAllById(List.of(vehicle2.getVin()))).thenReturn(List.of(vehicle2));
+
+        VehicleLookupResult result = vehicleService.lookupVehicles(List.of(vehicle2.getVin(), "1HGCM82643A004352",
+                vehicle.getVin(), "5YJSA1E24MF000001", vehicle2.getVin()));
+
+        assertThat(result.vehicles()).containsExactly(vehicle2, vehicle);
+        assertThat(result.missing()).containsExactly("1HGCM82643A004352", "5YJSA1E24MF000001");
+        verify(vehicleRepository, times(1)).findAllById(any());
+        verify(cache, times(1)).put(vehicle2.getVin(), vehicle2);
+    }
+
+    @Test
+    void testLookupVehiclesRejectsOversizedRequest() {
+        List<String> vins = Collections.nCopies(VehicleService.MAX_LOOKUP_SIZE + 1, vehicle.getVin());
+
+        assertThrows(IllegalArgumentException.class, () -> vehicleService.lookupVehicles(vins));
+
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    @Test
+    void testGetVehicleByVinWithFieldsNotFound() {
+        when(vehicleRepository.findFields(ArgumentMatchers.<Specification<Vehicle>>any(), any(), any()))
+                .thenReturn(List.of());
+
+        assertThrows(VehicleNotFoundException.class, () ->
+                vehicleService.getVehicleByVin(vehicle.getVin(), VehicleField.parse("modelName"))
+        );
+    }
+
+    @Test
+    void testCreateVehiclesReportsDuplicatesAndExistingVins() {
+        Vehicle duplicate = new Vehicle(vehicle.getVin(), "Honda", "Sedan", 140, "Civic", 2021,
+                new BigDecimal("21000.00"), "Gasoline", "Blue", "Car");
+        when(validator.validate(any(Vehicle.class))).thenReturn(Collections.emptySet());
+        when(vehicleRepository.findExistingVins(List.of(vehicle.getVin(), vehicle2.getVin())))
+                .thenReturn(List.of(vehicle2.getVin()));
+
+        BatchResult result = vehicleService.createVehicles(List.of(vehicle, duplicate, vehicle2), false);
+
+        assertThat(result.received()).isEqualTo(3);
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.errors()).extracting("index").containsExactly(1, 2);
+        verify(entityManager, times(1)).persist(vehicle);
+        verify(entityManager, never()).persist(vehicle2);
+        verify(vehicleRepository, never()).existsById(any());
+    }
+
+    @Test
+    void testUpsertEvictsOnlyTheBatchVins() {
+        Cache cache = mock(Cache.class);
+        when(cacheManager.getCache(CacheConfig.VEHICLES_CACHE)).thenReturn(cache);
+        when(validator.validate(any(Vehicle.class))).thenReturn(Collections.emptySet());
+        when(vehicleRepository.findAllById(List.of(vehicle.getVin(), vehicle2.getVin()))).thenReturn(List.of(vehicle));
+
+        BatchResult result = vehicleService.createVehicles(List.of(vehicle, vehicle2), true);
+
+        assertThat(result.created()).isEqualTo(1);
+        assertThat(result.updated()).isEqualTo(1);
+        verify(cache).evict(vehicle.getVin());
+        verify(cache).evict(vehicle2.getVin());
+        verify(cache, never()).clear();
+    }
+
+    @Test
+    void testUpsertUpdatesRowsTheFilterHasNotSeen() {
+        when(validator.validate(any(Vehicle.class))).thenReturn(Collections.emptySet());
+        when(vinBloomFilter.mightContain(vehicle.getVin())).thenReturn(false);
+        when(vehicleRepository.findAllById(List.of(vehicle.getVin()))).thenReturn(List.of(vehicle));
+
+        BatchResult result = vehicleService.createVehicles(List.of(vehicle), true);
+
+        assertThat(result.created()).isZero();
+        assertThat(result.updated()).isEqualTo(1);
+    }
+
+    @Test
+    void testGetCacheStatsWhenCacheDisabled() {
+        when(cacheManager.getCache("vehicles")).thenReturn(null);
+
+        assertThat(vehicleService.getCacheStats().hitCount()).isZero();
+    }
+
+    @Test
+    void testSearchVehiclesRejectsUnindexedSort() {
+        VehicleSearchCriteria criteria = new VehicleSearchCriteria("Toyota", null, null, null, null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                vehicleService.searchVehicles(criteria, PageRequest.of(0, 10, Sort.by("description")))
+        );
+
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    @Test
+    void testSearchVehiclesRejectsInvertedYearRange() {
+        VehicleSearchCriteria criteria = new VehicleSearchCriteria(null, 2024, 2020, null, null, null, null, null);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                vehicleService.searchVehicles(criteria, PageRequest.of(0, 10))
+        );
+    }
+
+    @Test
+    void testGetSoldVinsStillInInventory() {
+        when(soldVehicleRepository.findVinsStillInInventory("", Limit.of(2)))
+                .thenReturn(List.of(vehicle.getVin(), vehicle2.getVin()));
+
+        CursorPage<String> page = vehicleService.getSoldVinsStillInInventory(null, 1);
+
+        assertThat(page.items()).containsExactly(vehicle.getVin());
+        assertThat(VehicleService.decodeCursor(page.nextCursor())).isEqualTo(vehicle.getVin());
+        verify(soldVehicleRepository, never()).findAll();
+        verify(vehicleRepository, never()).findAll();
+    }
+
+    @Test
+    void testUpdateVehicleRejectsStaleVersion() {
+        vehicle.setVersion(5L);
+        when(vehicleRepository.findById(vehicle.getVin())).thenReturn(Optional.of(vehicle));
+
+        assertThrows(PreconditionFailedException.class, () ->
+                vehicleService.updateVehicle(vehicle.getVin(), vehicle2, 4L)
+        );
+
+        verify(vehicleRepository, never()).save(any(Vehicle.class));
+    }
+
+    @Test
+    void testUnconditionalUpdateRetriesAfterLosingRace() {
+        vehicle.setVersion(5L);
+        when(vehicleRepository.findById(vehicle.getVin())).thenReturn(Optional.of(vehicle));
+        when(vehicleRepository.save(vehicle))
+                .thenThrow(new OptimisticLockingFailureException("stale"))
+                .thenReturn(vehicle);
+
+        Vehicle updated = vehicleService.updateVehicle(vehicle.getVin(), vehicle2);
+
+        assertThat(updated.getPurchasePrice()).isEqualByComparingTo(vehicle2.getPurchasePrice());
+        verify(vehicleRepository, times(2)).findById(vehicle.getVin());
+        verify(vehicleRepository, times(2)).save(vehicle);
+    }
+
+    @Test
+    void testConditionalUpdateIsNotRetried() {
+        vehicle.setVersion(5L);
+        when(vehicleRepository.findById(vehicle.getVin())).thenReturn(Optional.of(vehicle));
+        when(vehicleRepository.save(vehicle)).thenThrow(new OptimisticLockingFailureException("stale"));
+
+        assertThrows(OptimisticLockingFailureException.class, () ->
+                vehicleService.updateVehicle(vehicle.getVin(), vehicle2, 5L)
+        );
+
+        verify(vehicleRepository, times(1)).save(vehicle);
+    }
+
+    @Test
+    void testPatchVehicleIssuesSingleUpdate() {
+        VehiclePatch patch = new VehiclePatch(null, "Updated", null, null, null, null, null, null, null);
+        when(vehicleRepository.patch(vehicle.getVin(), patch, null)).thenReturn(1);
+
+        assertThat(vehicleService.patchVehicle(vehicle.getVin(), patch, null)).isEqualTo(1);
+
+        verify(vehicleRepository, never()).findById(any());
+        verify(vehicleRepository, never()).findFactsByVin(any());
+        verify(vehicleRepository, never()).save(any(Vehicle.class));
+        verify(inventoryAggregates, never()).record(any(), any());
+    }
+
+    @Test
+    void testPatchAggregatedFieldInvalidatesAggregatesWithoutReading() {
+        VehiclePatch patch = new VehiclePatch(null, null, null, null, null, new BigDecimal("27500.00"), null, null, null);
+        when(vehicleRepository.patch(vehicle.getVin(), patch, null)).thenReturn(1);
+
+        assertThat(vehicleService.patchVehicle(vehicle.getVin(), patch, null)).isEqualTo(1);
+
+        verify(vehicleRepository, times(1)).patch(vehicle.getVin(), patch, null);
+        verify(vehicleRepository, never()).findFactsByVin(any());
+        verify(inventoryAggregates, times(1)).invalidate(patch);
+    }
+
+    @Test
+    void testPatchVehicleWithStaleVersion() {
+        VehiclePatch patch = new VehiclePatch(null, "Updated", null, null, null, null, null, null, null);
+        when(vehicleRepository.patch(vehicle.getVin(), patch, 2L)).thenReturn(0);
+        when(vehicleRepository.existsById(vehicle.getVin())).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () ->
+                vehicleService.patchVehicle(vehicle.getVin(), patch, 2L)
+        );
+    }
+
+    @Test
+    void testPatchVehicleNotFound() {
+        VehiclePatch patch = new VehiclePatch(null, "Updated", null, null, null, null, null, null, null);
+        when(vehicleRepository.patch(vehicle.getVin(), patch, null)).thenReturn(0);
+
+        assertThrows(VehicleNotFoundException.class, () ->
+                vehicleService.patchVehicle(vehicle.getVin(), patch, null)
+        );
+
+        verify(vehicleRepository, never()).existsById(any());
+    }
+
+    @Test
+    void testBulkDeleteByVinsIsChunked() {
+        List<String> vins = IntStream.range(0, 2500).mapToObj(i -> String.format("VIN%014d", i)).toList();
+        when(vehicleRepository.deleteReturningFacts(anyCollection())).thenAnswer(invocation ->
+                deletedFacts(invocation.getArgument(0)));
+
+        BulkDeleteResult result = vehicleService.deleteVehicles(new BulkDeleteRequest(vins, null, null));
+
+        assertThat(result).isEqualTo(new BulkDeleteResult(2500, 3));
+        verify(vehicleRepository, times(3)).deleteReturningFacts(anyCollection());
+        verify(vehicleRepository, never()).findExistingVins(anyCollection());
+        verify(inventoryAggregates, times(3)).record(anyCollection(), eq(List.of()));
+        verify(inventoryAggregates, never()).rebuild();
+        verify(changeFeed, times(3)).publish(eq(ChangeType.DELETED), anyCollection());
+    }
+
+    @Test
+    void testBulkDeleteByVinsAnnouncesOnlyExistingVehicles() {
+        when(vehicleRepository.deleteReturningFacts(List.of(vehicle.getVin(), vehicle2.getVin())))
+                .thenReturn(deletedFacts(List.of(vehicle2.getVin())));
+
+        BulkDeleteResult result = vehicleService.deleteVehicles(
+                new BulkDeleteRequest(List.of(vehicle.getVin(), vehicle2.getVin()), null, null));
+
+        assertThat(result).isEqualTo(new BulkDeleteResult(1, 1));
+        verify(changeFeed).publish(ChangeType.DELETED, Set.of(vehicle2.getVin()));
+    }
+
+    @Test
+    void testSellVehicleRecordsSaleAndRemovesVehicle() {
+        VehicleFacts facts = VehicleFacts.of(vehicle);
+        when(vehicleRepository.findFactsByVin(vehicle.getVin())).thenReturn(Optional.of(facts));
+        when(soldVehicleRepository.save(any(SoldVehicle.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(vehicleRepository.deleteByVinAndVersion(vehicle.getVin(), facts.version())).thenReturn(1);
+
+        SoldVehicle sold = vehicleService.sellVehicle(vehicle.getVin(),
+                new SaleRequest(new BigDecimal("27000.00"), "Retail"));
+
+        assertThat(sold.getSalePrice()).isEqualByComparingTo("27000.00");
+        verify(inventoryAggregates).record(List.of(facts), List.of());
+        verify(changeFeed).publish(ChangeType.SOLD, List.of(vehicle.getVin()));
+    }
+
+    @Test
+    void testSellVehicleRejectsVehicleAlreadySold() {
+        when(vehicleRepository.findFactsByVin(vehicle.getVin())).thenReturn(Optional.of(VehicleFacts.of(vehicle)));
+        when(soldVehicleRepository.existsById(vehicle.getVin())).thenReturn(true);
+
+        assertThrows(VehicleAlreadySoldException.class, () ->
+                vehicleService.sellVehicle(vehicle.getVin(), new SaleRequest(new BigDecimal("27000.00"), "Retail"))
+        );
+
+        verify(vehicleRepository, never()).deleteByVinAndVersion(any(), any());
+        verifyNoInteractions(changeFeed);
+    }
+
+    @Test
+    void testBulkDeleteByCriteriaStopsOnShortChunk() {
+        List<String> fullChunk = IntStream.range(0, 1000).mapToObj(i -> String.format("VIN%014d", i)).toList();
+        when(vehicleRepository.findVins(ArgumentMatchers.<Specification<Vehicle>>any(), eq(1000)))
+                .thenReturn(fullChunk)
+                .thenReturn(List.of("VIN00000000001000"));
+        when(vehicleRepository.deleteReturningFacts(anyCollection())).thenAnswer(invocation ->
+                deletedFacts(invocation.getArgument(0)));
+
+        BulkDeleteResult result = vehicleService.deleteVehicles(new BulkDeleteRequest(null, 2010, "Sedan"));
+
+        assertThat(result).isEqualTo(new BulkDeleteResult(1001, 2));
+        verify(vehicleRepository, times(2)).findVins(ArgumentMatchers.<Specification<Vehicle>>any(), eq(1000));
+    }
+
+    @Test
+    void testBulkDeleteRejectsVinsAndCriteriaTogether() {
+        assertThrows(IllegalArgumentException.class, () ->
+                vehicleService.deleteVehicles(new BulkDeleteRequest(List.of(vehicle.getVin()), 2010, null))
+        );
+        assertThrows(IllegalArgumentException.class, () ->
+                vehicleService.deleteVehicles(new BulkDeleteRequest(null, null, null))
+        );
+
+        verify(vehicleRepository, never()).deleteReturningFacts(anyCollection());
+    }
+
+    @Test
+    void testBulkDeleteByCriteriaAnnouncesOnlyDeletedVehicles() {
+        when(vehicleRepository.findVins(ArgumentMatchers.<Specification<Vehicle>>any(), eq(1000)))
+                .thenReturn(List.of(vehicle.getVin(), vehicle2.getVin()));
+        // The first vehicle was deleted by someone else between the chunk query and the DELETE
+        when(vehicleRepository.deleteReturningFacts(List.of(vehicle.getVin(), vehicle2.getVin())))
+                .thenReturn(deletedFacts(List.of(vehicle2.getVin())));
+
+        BulkDeleteResult result = vehicleService.deleteVehicles(new BulkDeleteRequest(null, 2010, null));
+
+        assertThat(result).isEqualTo(new BulkDeleteResult(1, 1));
+        verify(changeFeed).publish(ChangeType.DELETED, Set.of(vehicle2.getVin()));
+    }
+
+    private Map<String, VehicleFacts> deletedFacts(Collection<String> vins) {
+        return vins.stream().collect(Collectors.toMap(vin -> vin, vin -> VehicleFacts.of(vehicle)));
+    }
 }
@@ -0,0 +1,95 @@
+package com.apollo.vehicle.service;
+
+import com.apollo.vehicle.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class VinBloomFilterTest {
+
+    private VehicleRepository vehicleRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private VinBloomFilter vinBloomFilter;
+
+    @BeforeEach
+    void setUp() {
+        vehicleRepository = mock(VehicleRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        vinBloomFilter = new VinBloomFilter(vehicleRepository, meterRegistry);
+        ReflectionTestUtils.setField(vinBloomFilter, "enabled", true);
+    }
+
+    @Test
+    void testEveryVinMightExistBeforeFirstBuild() {
+        assertThat(vinBloomFilter.mightContain("1HGCM82633A004352")).isTrue();
+    }
+
+    @Test
+    void testRebuildLoadsVinsAndAnswersMisses() {
+        List<String> stored = serials("1HGCM8263", 0, 500);
+        when(vehicleRepository.count()).thenReturn(500L);
+        when(vehicleRepository.findVinsAfter(eq(""), any(Limit.class))).thenReturn(stored);
+
+        vinBloomFilter.rebuild();
+
+        assertThat(stored).allMatch(vinBloomFilter::mightContain);
+        long falsePositives = serials("2HGCM8263", 0, 1000).stream().filter(vinBloomFilter::mightContain).count();
+        assertThat(falsePositives).isLessThan(50);
+        assertThat(meterRegistry.get("vehicle.vin.filter.negatives").counter().count())
+                .isEqualTo(1000 - falsePositives);
+    }
+
+    @Test
+    void testAddedVinsAreFoundAndRebuildDropsDeletedOnes() {
+        when(vehicleRepository.findVinsAfter(eq(""), any(Limit.class))).thenReturn(List.of());
+        vinBloomFilter.rebuild();
+
+        vinBloomFilter.add("1HGCM82633A004352");
+        assertThat(vinBloomFilter.mightContain("1HGCM82633A004352")).isTrue();
+
+        vinBloomFilter.rebuild();
+        assertThat(vinBloomFilter.mightContain("1HGCM82633A004352")).isFalse();
+    }
+
+    @Test
+    void testDisabledFilterNeverAnswersMisses() {
+        ReflectionTestUtils.setField(vinBloomFilter, "enabled", false);
+        when(vehicleRepository.findVinsAfter(eq(""), any(Limit.class))).thenReturn(List.of());
+
+        vinBloomFilter.rebuild();
+
+        assertThat(vinBloomFilter.mightContain("1HGCM82633A004352")).isTrue();
+        verifyNoInteractions(vehicleRepository);
+    }
+
+    @Test
+    void testVinsAddedDuringRebuildReachTheNewFilter() {
+        when(vehicleRepository.findVinsAfter(eq(""), any(Limit.class))).thenAnswer(invocation -> {
+            vinBloomFilter.add("1HGCM82633A004352");
+            return List.of();
+        });
+
+        vinBloomFilter.rebuild();
+
+        assertThat(vinBloomFilter.mightContain("1HGCM82633A004352")).isTrue();
+        assertThat(vinBloomFilter.mightContain("5YJSA1E24MF000001")).isFalse();
+    }
+
+    private static List<String> serials(String prefix, int from, int count) {
+        return IntStream.range(from, from + count).mapToObj(i -> prefix + String.format("A%07d", i)).toList();
+    }
+}
@@ -0,0 +1,41 @@
+package com.apollo.vehicle.validation;
+
+import com.apollo.vehicle.exception.InvalidVinException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VinValidatorTest {
+
+    @Test
+    void testValidVins() {
+        assertThat(VinValidator.isValid("1HGCM82633A004352")).isTrue();
+        assertThat(VinValidator.isValid("5YJSA1E24MF000001")).isTrue();
+        // A remainder of 10 is written as X
+        assertThat(VinValidator.isValid("JTDKB20UX93000004")).isTrue();
+    }
+
+    @Test
+    void testWrongCheckDigit() {
+        assertThat(VinValidator.isValid("1HGCM82643A004352")).isFalse();
+    }
+
+    @Test
+    void testInvalidCharactersAndLengths() {
+        assertThat(VinValidator.isValid(null)).isFalse();
+        assertThat(VinValidator.isValid("1HGCM82633A00435")).isFalse();
+        assertThat(VinValidator.isValid("1HGCM82633A0043521")).isFalse();
+        assertThat(VinValidator.isValid("1HGCM82633A00435O")).isFalse();
+        assertThat(VinValidator.isValid("1hgcm82633a004352")).isFalse();
+        assertThat(VinValidator.isValid("1HGCM82633A00435é")).isFalse();
+    }
+
+    @Test
+    void testRequireValid() {
+        assertThat(VinValidator.requireValid("1HGCM82633A004352")).isEqualTo("1HGCM82633A004352");
+        InvalidVinException exception = assertThrows(InvalidVinException.class, () -> VinValidator.requireValid("TOO-SHORT"));
+        assertThat(exception.getMessage()).isEqualTo("Invalid VIN TOO-SHORT");
+        assertThat(exception.getVin()).isEqualTo("TOO-SHORT");
+    }
+}